@@ -41,6 +41,10 @@ CREATE TABLE `appointments` (
   KEY `fk_customer_id_idx` (`Customer_ID`),
   KEY `fk_user_id_idx` (`User_ID`),
   KEY `fk_contact_id_idx` (`Contact_ID`),
+  KEY `start_end_idx` (`Start`,`End`),
+  KEY `start_id_idx` (`Start`,`Appointment_ID`),
+  KEY `type_start_idx` (`Type`,`Start`),
+  KEY `last_update_idx` (`Last_Update`),
   CONSTRAINT `fk_contact_id` FOREIGN KEY (`Contact_ID`) REFERENCES `contacts` (`Contact_ID`) ON DELETE CASCADE ON UPDATE CASCADE,
   CONSTRAINT `fk_customer_id` FOREIGN KEY (`Customer_ID`) REFERENCES `customers` (`Customer_ID`) ON DELETE RESTRICT ON UPDATE CASCADE,
   CONSTRAINT `fk_user_id` FOREIGN KEY (`User_ID`) REFERENCES `users` (`User_ID`) ON DELETE CASCADE ON UPDATE CASCADE
@@ -56,6 +60,20 @@ LOCK TABLES `appointments` WRITE;
 INSERT INTO `appointments` VALUES (1,'title','description','location','Planning Session','2020-05-28 12:00:00','2020-05-28 13:00:00','2021-09-10 13:14:10','script','2021-09-10 17:14:10','script',1,1,3),(2,'title','description','location','De-Briefing','2020-05-29 12:00:00','2020-05-29 13:00:00','2021-09-10 13:14:10','script','2021-09-10 17:14:10','script',2,2,2),(24,'fdgdf','dfgfdg','dfgfdg','fdgfdg','2023-03-15 22:00:00','2023-03-15 23:00:00','2023-03-15 09:07:26','test','2023-03-15 13:07:26','test',3,1,1),(25,'hhjkkh','hjkhk','hjhkj','hjkh','2023-03-16 12:00:00','2023-03-16 13:00:00','2023-03-15 09:29:47','test','2023-03-15 13:29:47','test',1,1,1),(26,'dsf','sdf','sdf','sdf','2023-03-15 20:15:00','2023-03-15 21:15:00','2023-03-15 09:37:51','test','2023-03-16 00:02:46','test',1,1,1),(27,'dfsds','dsfdfs','dsf','sddfs','2023-03-17 22:45:00','2023-03-16 23:45:00','2023-03-15 21:10:18','test','2023-03-16 09:13:58','test',2,1,1);
 /*!40000 ALTER TABLE `appointments` ENABLE KEYS */;
 UNLOCK TABLES;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_0900_ai_ci */ ;
+DELIMITER ;;
+/*!50003 CREATE*/ /*!50003 TRIGGER `appointments_AFTER_DELETE` AFTER DELETE ON `appointments` FOR EACH ROW BEGIN
+INSERT INTO appointment_tombstones (Appointment_ID, Deleted_At) VALUES (OLD.Appointment_ID, UTC_TIMESTAMP());
+END */;;
+DELIMITER ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
 
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
@@ -41,7 +41,7 @@ CREATE TABLE `users` (
 
 LOCK TABLES `users` WRITE;
 /*!40000 ALTER TABLE `users` DISABLE KEYS */;
-INSERT INTO `users` VALUES (1,'test','test','2021-09-10 13:14:09','script','2021-09-10 17:14:09','script'),(2,'admin','admin','2021-09-10 13:14:09','script','2021-09-10 17:14:09','script');
+INSERT INTO `users` VALUES (1,'test','pbkdf2$120000$+ppN8JqYxE9I34kNYQ/2RQ==$xrymOaMNtqqHNAvfrCLJ68J3MmSxPDwG8f83NN/DNeo=','2021-09-10 13:14:09','script','2021-09-10 17:14:09','script'),(2,'admin','pbkdf2$120000$Y4mNYfOPTIXvFzEKgws6Xg==$XBb0fMZESPBJbSBdfjtb/6zwBEgPBV4sGprAsFzEoIU=','2021-09-10 13:14:09','script','2021-09-10 17:14:09','script');
 /*!40000 ALTER TABLE `users` ENABLE KEYS */;
 UNLOCK TABLES;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
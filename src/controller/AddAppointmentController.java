@@ -1,14 +1,14 @@
 package com.mc.controller;
 
 import com.mc.helper.JDBCQuery;
-import com.mc.helper.NavigateToScene;
+import com.mc.helper.AppointmentOverlapIndex;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NotifyUser;
 import com.mc.helper.TimeUtils;
 import com.mc.model.Appointment;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -82,6 +82,7 @@ public class AddAppointmentController extends BaseAppointmentController {
         endTimeComboBox.setItems(getTimeComboBox(8,15, 22, 15).getItems());
         contactComboBox.setItems(getContactComboBox().getItems());
         customerIdComboBox.setItems(getCustomerIdComboBox().getItems());
+        AppointmentOverlapIndex.warmUp();
 
         startDatePicker.setValue(LocalDate.now());
         startDatePicker.setDayCellFactory(getDateCellFactory());
@@ -97,32 +98,59 @@ public class AddAppointmentController extends BaseAppointmentController {
 
     /**
      * Handles the action of saving a new appointment.
+     * The save button is disabled while the appointment is validated and saved in the background.
      * @param event the action event
-     * @throws IOException if there is an error while navigating to the main menu
      */
     @FXML
-    private void onActionSave(ActionEvent event) throws IOException {
-        if(validateAppointment(customerIdComboBox, contactComboBox, titleField, descriptionField, locationField,
-                typeField, startTimeComboBox, endTimeComboBox, startDatePicker, endDatePicker, -1)){
+    private void onActionSave(ActionEvent event) {
+        saveBtn.setDisable(true);
+        validateAppointment(customerIdComboBox, contactComboBox, titleField, descriptionField, locationField,
+                typeField, startTimeComboBox, endTimeComboBox, startDatePicker, endDatePicker, -1)
+                .thenAccept(valid -> {
+                    if(valid) {
+                        saveAppointment(event);
+                    } else {
+                        saveBtn.setDisable(false);
+                    }
+                });
+    }
 
-            int customerId = customerIdComboBox.getValue();
-            int userId = currentUser.getUserId();
-            int contactId = JDBCQuery.getContactId(contactComboBox.getValue());
-            String title = titleField.getText();
-            String description = descriptionField.getText();
-            String location = locationField.getText();
-            String type = typeField.getText();
-            Timestamp start = TimeUtils.convertToUtcTimestamp(startDatePicker.getValue(), startTimeComboBox.getValue());
-            Timestamp end = TimeUtils.convertToUtcTimestamp(endDatePicker.getValue(), endTimeComboBox.getValue());
-            Timestamp created = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
-            String createdBy = JDBCQuery.getUserName(userId);
+    /**
+     * Saves the validated appointment in the background, then notifies the user and returns to the main menu.  If it
+     * could not be saved, the user is told and can try again.
+     * @param event the action event
+     */
+    private void saveAppointment(ActionEvent event) {
+        int customerId = customerIdComboBox.getValue();
+        int userId = currentUser.getUserId();
+        String contactName = contactComboBox.getValue();
+        String title = titleField.getText();
+        String description = descriptionField.getText();
+        String location = locationField.getText();
+        String type = typeField.getText();
+        Timestamp start = TimeUtils.convertToUtcTimestamp(startDatePicker.getValue(), startTimeComboBox.getValue());
+        Timestamp end = TimeUtils.convertToUtcTimestamp(endDatePicker.getValue(), endTimeComboBox.getValue());
+        Timestamp created = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
 
-            Appointment appointment = new Appointment(title, description, location, type, start, end, created, createdBy,
-                    created, createdBy, customerId, userId, contactId);
+        JDBCQueryAsync.supply(() -> {
+            int contactId = JDBCQuery.getContactId(contactName);
+            String createdBy = JDBCQuery.getUserName(userId);
+            Appointment appointment = new Appointment(title, description, location, type, start, end, created,
+                    createdBy, created, createdBy, customerId, userId, contactId);
+            appointment.setContactName(contactName);
 
-            JDBCQuery.addAppointment(appointment);
-            NotifyUser.objectSaved(appointment);
-            NavigateToScene.goToMainMenu(event, "all", false, currentUser);
-        }
+            return JDBCQuery.addAppointment(appointment) ? appointment : null;
+        }).whenCompleteAsync((appointment, e) -> {
+            if(e != null || appointment == null) {
+                if(e != null) {
+                    System.out.println(e);
+                }
+                NotifyUser.objectNotSaved(Appointment.class);
+                saveBtn.setDisable(false);
+            } else {
+                NotifyUser.objectSaved(appointment);
+                returnToMainMenu(event);
+            }
+        }, JDBCQueryAsync.FX_THREAD);
     }
 }
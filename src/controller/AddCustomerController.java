@@ -1,7 +1,7 @@
 package com.mc.controller;
 
 import com.mc.helper.JDBCQuery;
-import com.mc.helper.NavigateToScene;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NotifyUser;
 import com.mc.helper.TimeUtils;
 import com.mc.model.Customer;
@@ -11,7 +11,6 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -70,11 +69,12 @@ public class AddCustomerController extends BaseCustomerController {
 
     /**
      * Handles the action of saving a new customer.
+     * The customer is saved in the background with the save button disabled, then the user is returned to the
+     * customer menu.
      * @param event the action event
-     * @throws IOException if there is an error while navigating to the customer menu
      */
     @FXML
-    private void onActionSave(ActionEvent event) throws IOException {
+    private void onActionSave(ActionEvent event) {
         if(validateFields(nameField, addressField, countryComboBox, divisionComboBox, postCodeField, phoneField)) {
             String name = nameField.getText();
             String address = addressField.getText();
@@ -82,14 +82,20 @@ public class AddCustomerController extends BaseCustomerController {
             String phone = phoneField.getText();
             Timestamp createdTimestamp = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
             String createdBy = currentUser.getUsername();
-            int divisionId = JDBCQuery.getDivisionId(divisionComboBox.getValue());
+            String division = divisionComboBox.getValue();
 
-            Customer customer = new Customer(name, address, postalCode, phone, createdTimestamp, createdBy, createdTimestamp,
-                    createdBy, divisionId);
+            saveBtn.setDisable(true);
+            JDBCQueryAsync.supply(() -> {
+                int divisionId = JDBCQuery.getDivisionId(division);
+                Customer customer = new Customer(name, address, postalCode, phone, createdTimestamp, createdBy,
+                        createdTimestamp, createdBy, divisionId);
 
-            NotifyUser.objectSaved(customer);
-            JDBCQuery.addCustomer(customer);
-            NavigateToScene.goToScene(event, "CustomerMenu", currentUser);
+                JDBCQuery.addCustomer(customer);
+                return customer;
+            }).thenAcceptAsync(customer -> {
+                NotifyUser.objectSaved(customer);
+                returnToCustomerMenu(event);
+            }, JDBCQueryAsync.FX_THREAD);
         }
 
     }
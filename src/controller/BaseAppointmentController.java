@@ -1,6 +1,7 @@
 package com.mc.controller;
 
-import com.mc.helper.JDBCQuery;
+import com.mc.helper.AppointmentOverlapIndex;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NavigateToScene;
 import com.mc.helper.NotifyUser;
 import com.mc.helper.TimeUtils;
@@ -18,6 +19,7 @@ import java.sql.Timestamp;
 import java.time.*;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Abstract base class for appointment controllers, providing common functionality
@@ -77,25 +79,28 @@ public abstract class BaseAppointmentController implements SharedControllerInter
 
     /**
      * Creates and returns a ComboBox containing contact names.
-     * The contact names are fetched using the JDBCQuery.getContactList() method.
+     * The contact names are fetched in the background using the JDBCQueryAsync.getContactList() method and added
+     * to the ComboBox's items once loaded.
      *
      * @return a ComboBox containing contact names
      */
     protected static ComboBox<String> getContactComboBox() {
         ComboBox<String> contactComboBox = new ComboBox<>();
-        contactComboBox.setItems(JDBCQuery.getContactList());
+        JDBCQueryAsync.getContactList().thenAcceptAsync(contactComboBox.getItems()::setAll, JDBCQueryAsync.FX_THREAD);
         return contactComboBox;
     }
 
     /**
      * Creates and returns a ComboBox containing customer IDs.
-     * The customer IDs are fetched using the JDBCQuery.getCustomerIdList() method.
+     * The customer IDs are fetched in the background using the JDBCQueryAsync.getCustomerIdList() method and added
+     * to the ComboBox's items once loaded.
      *
      * @return a ComboBox containing customer IDs
      */
     protected static ComboBox<Integer> getCustomerIdComboBox() {
         ComboBox<Integer> customerIdComboBox = new ComboBox<>();
-        customerIdComboBox.setItems(JDBCQuery.getCustomerIdList());
+        JDBCQueryAsync.getCustomerIdList().thenAcceptAsync(customerIdComboBox.getItems()::setAll,
+                JDBCQueryAsync.FX_THREAD);
         return customerIdComboBox;
     }
 
@@ -175,7 +180,7 @@ public abstract class BaseAppointmentController implements SharedControllerInter
                 long duration = checkDuration(startDatePicker.getValue(), startTimeLocal,
                         endDatePicker.getValue(), endTimeLocal);
 
-                if (duration > 120) {
+                if (duration > TimeUtils.maxAppointmentMinutes) {
                     NotifyUser.invalidAppointmentDuration();
                     endTimeComboBox.setValue(oldValue);
                 }
@@ -295,10 +300,25 @@ public abstract class BaseAppointmentController implements SharedControllerInter
         NavigateToScene.goToMainMenu(event, "all", false, currentUser);
     }
 
+    /**
+     * Returns the user to the main menu once a background save has completed.
+     *
+     * @param event the ActionEvent representing the save button click
+     */
+    protected void returnToMainMenu(ActionEvent event) {
+        try {
+            NavigateToScene.goToMainMenu(event, "all", false, currentUser);
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
+
     /**
      * Validates appointment data before saving.
      * Ensures that no fields are empty, appointment times are within business hours,
      * appointments are in the future, and no appointment overlaps occur.
+     * The overlap check queries the database in the background; the returned future completes on the JavaFX
+     * Application Thread after any warning has been shown.
      *
      * @param customerIdComboBox the customer ID ComboBox
      * @param contactIdComboBox the contact ComboBox
@@ -311,9 +331,9 @@ public abstract class BaseAppointmentController implements SharedControllerInter
      * @param startDatePicker the start date DatePicker
      * @param endDatePicker the end date DatePicker
      * @param appointmentId the appointment ID
-     * @return true if the appointment data is valid, false otherwise
+     * @return a future completed with true if the appointment data is valid, false otherwise
      */
-    protected boolean validateAppointment(ComboBox<Integer> customerIdComboBox, ComboBox<String> contactIdComboBox,
+    protected CompletableFuture<Boolean> validateAppointment(ComboBox<Integer> customerIdComboBox, ComboBox<String> contactIdComboBox,
                                           TextField titleField, TextField descriptionField, TextField locationField,
                                           TextField typeField, ComboBox<LocalTime> startTimeComboBox,
                                           ComboBox<LocalTime> endTimeComboBox, DatePicker startDatePicker,
@@ -355,7 +375,7 @@ public abstract class BaseAppointmentController implements SharedControllerInter
         if(nullInputMessage.length() > 0) {
             String nullInputMessageFinalString = nullInputMessage.toString();
             NotifyUser.nullInput(nullInputMessageFinalString);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
 //      Validate Appointment Times and Dates
@@ -364,45 +384,26 @@ public abstract class BaseAppointmentController implements SharedControllerInter
         Timestamp endTimestamp =
                 TimeUtils.convertToUtcTimestamp(endDatePicker.getValue(), endTimeComboBox.getValue());
         Timestamp currentTimeUTCTimestamp = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
-        ObservableList<Appointment> appointmentList;
 
 //      Ensure start and end times fall within 8AM-10PM EST
-        if (!isWithinBusinessHours(startTimestamp, endTimestamp)) {
+        if (!TimeUtils.isWithinBusinessHours(startTimestamp, endTimestamp)) {
             NotifyUser.outsideBusinessHours();
-            return false;
+            return CompletableFuture.completedFuture(false);
 //      Ensure start and end times are in the future
         } else if(startTimestamp.before(currentTimeUTCTimestamp) || endTimestamp.before(currentTimeUTCTimestamp)) {
             NotifyUser.pastAppointmentDates();
-            return false;
-//      Check for overlapping appointments
-        } else {
-            appointmentList = JDBCQuery.getOverlappingAppointmentList(startTimestamp, endTimestamp, appointmentId);
-
-            if (appointmentList.size() > 0) {
-                Appointment overlappingAppointment = appointmentList.get(0);
-                NotifyUser.overlappingAppointment(overlappingAppointment);
-                return false;
-            }
+            return CompletableFuture.completedFuture(false);
         }
-        
-        return true;
-    }
 
-    /**
-     * Determines if the appointment start and end times fall within business hours.
-     * Business hours are defined as 8:00 AM to 10:00 PM EST.
-     *
-     * @param startTimestamp the appointment start time as a Timestamp
-     * @param endTimestamp the appointment end time as a Timestamp
-     * @return true if the appointment times fall within business hours, false otherwise
-     */
-    private boolean isWithinBusinessHours(Timestamp startTimestamp, Timestamp endTimestamp) {
-        LocalTime startTimeEST = TimeUtils.convertUtcToEst(startTimestamp);
-        LocalTime endTimeEST = TimeUtils.convertUtcToEst(endTimestamp);
-        LocalTime businessStart = LocalTime.of(8, 0);
-        LocalTime businessEnd = LocalTime.of(22, 0);
-
-        return !startTimeEST.isBefore(businessStart) && !startTimeEST.isAfter(businessEnd)
-                && !endTimeEST.isBefore(businessStart) && !endTimeEST.isAfter(businessEnd);
+//      Check for overlapping appointments
+        return JDBCQueryAsync.supply(() ->
+                        AppointmentOverlapIndex.findFirstOverlapping(startTimestamp, endTimestamp, appointmentId))
+                .thenApplyAsync(overlappingAppointment -> {
+                    if (overlappingAppointment != null) {
+                        NotifyUser.overlappingAppointment(overlappingAppointment);
+                        return false;
+                    }
+                    return true;
+                }, JDBCQueryAsync.FX_THREAD);
     }
 }
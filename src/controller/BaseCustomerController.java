@@ -1,6 +1,6 @@
 package com.mc.controller;
 
-import com.mc.helper.JDBCQuery;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NavigateToScene;
 import com.mc.helper.NotifyUser;
 import com.mc.model.CurrentUser;
@@ -31,25 +31,33 @@ public abstract class BaseCustomerController implements SharedControllerInterfac
     public void setCurrentUser(CurrentUser currentUser) { this.currentUser = currentUser; }
 
     /**
-     * Returns a ComboBox containing a list of countries.
+     * Returns a ComboBox containing a list of countries.  The countries are loaded in the background and added to the
+     * ComboBox's items once available.
      *
      * @return ComboBox containing country names
      */
     protected static ComboBox<String> getCountryComboBox() {
         ComboBox<String> countryComboBox = new ComboBox<>();
-        countryComboBox.setItems(JDBCQuery.getCountryList());
+        JDBCQueryAsync.getCountryList().thenAcceptAsync(countryComboBox.getItems()::setAll, JDBCQueryAsync.FX_THREAD);
         return countryComboBox;
     }
 
     /**
      * Sets a listener for the country ComboBox to update the division ComboBox based on the selected country.
+     * Divisions are loaded in the background; the division ComboBox is disabled until they arrive.
      *
      * @param countryComboBox the ComboBox containing country names
      * @param divisionComboBox the ComboBox containing division names
      */
     protected static void setCountryListener(ComboBox<String> countryComboBox, ComboBox<String> divisionComboBox) {
         countryComboBox.valueProperty().addListener((observable, oldValue, newValue) -> {
-                divisionComboBox.setItems(JDBCQuery.getDivisionList(JDBCQuery.getCountryId(newValue)));
+            divisionComboBox.setDisable(true);
+            JDBCQueryAsync.getCountryId(newValue)
+                    .thenCompose(JDBCQueryAsync::getDivisionList)
+                    .thenAcceptAsync(divisionList -> {
+                        divisionComboBox.getItems().setAll(divisionList);
+                        divisionComboBox.setDisable(false);
+                    }, JDBCQueryAsync.FX_THREAD);
         });
     }
 
@@ -102,6 +110,19 @@ public abstract class BaseCustomerController implements SharedControllerInterfac
         NavigateToScene.goToScene(event, "CustomerMenu", currentUser);
     }
 
+    /**
+     * Returns the user to the Customer menu once a background save has completed.
+     *
+     * @param event the action event of the save button
+     */
+    protected void returnToCustomerMenu(ActionEvent event) {
+        try {
+            NavigateToScene.goToScene(event, "CustomerMenu", currentUser);
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
+
     /**
      * Validates input fields and returns a boolean indicating whether the fields are valid.
      *
@@ -1,28 +1,44 @@
 package com.mc.controller;
 
+import com.mc.helper.CsvImporter;
+import com.mc.helper.CustomerSearchIndex;
 import com.mc.helper.JDBCQuery;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NavigateToScene;
 import com.mc.helper.NotifyUser;
 import com.mc.model.CurrentUser;
 import com.mc.model.Customer;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.Pane;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
  * A controller class for managing the customer menu UI.
+ * The customers are held in a CustomerSearchIndex, and a search box filters them as the user types.  Searching and
+ * sorting run in the background, and the table is given a view of the matches that only looks up the rows it shows.
  * Implements the SharedControllerInterface to support currentUser handling.
  * @author Michael Cassidy
  */
@@ -68,7 +84,17 @@ public class CustomerMenuController implements SharedControllerInterface {
     @FXML
     private RadioButton viewReportsBtn;
 
-    private final ObservableList<Customer> customerList = FXCollections.observableArrayList();
+    private static final double searchFieldWidth = 250;
+    private static final double importButtonWidth = 120;
+    private static final double buttonGap = 10;
+    private final Button importBtn = new Button();
+    private final TextField searchFld = new TextField();
+    private final Label noSearchResultsLbl = new Label();
+    private final Map<TableColumn<Customer, ?>, Comparator<Customer>> sortComparators = new HashMap<>();
+    private CustomerSearchIndex customerIndex;
+    private Comparator<Customer> sortOrder;
+    private long searchCount;
+    private boolean showingMatches;
 
     private CurrentUser currentUser;
 
@@ -87,6 +113,9 @@ public class CustomerMenuController implements SharedControllerInterface {
     private void initialize() {
         setLanguage();
         populateTable();
+        setSearch();
+        setImportButton();
+        loadCustomers();
     }
 
     /**
@@ -115,16 +144,32 @@ public class CustomerMenuController implements SharedControllerInterface {
         modifyCustBtn.setText(messages.getString("cust.modCust"));
         deleteCustBtn.setText(messages.getString("cust.delCust"));
         logoffBtn.setText(messages.getString("main.logoff"));
+        searchFld.setPromptText(messages.getString("cust.searchPrompt"));
+        noSearchResultsLbl.setText(messages.getString("cust.noSearchResults"));
+        importBtn.setText(messages.getString("main.importCsv"));
     }
 
     /**
-     * Populates the customer table with data from the customerList.
+     * Loads the customers and indexes them in the background, showing a progress indicator in the table until they
+     * are ready, then shows those matching the search box.
      */
-    private void populateTable() {
-        customerList.clear();
-        customerList.setAll(JDBCQuery.getAllCustomerList());
-        customerTbl.setItems(customerList);
+    private void loadCustomers() {
+        customerIndex = null;
+        showMatches(FXCollections.emptyObservableList());
+        customerTbl.setPlaceholder(new ProgressIndicator());
+        JDBCQueryAsync.supply(() -> new CustomerSearchIndex(JDBCQuery.getAllCustomerList()))
+                .thenAcceptAsync(index -> {
+                    customerIndex = index;
+                    customerTbl.setPlaceholder(null);
+                    filterCustomers();
+                }, JDBCQueryAsync.FX_THREAD);
+    }
 
+    /**
+     * Sets up the customer table's columns.  Sorting by a column re-runs the search in that order, since the table's
+     * items are a read-only view of the matches.
+     */
+    private void populateTable() {
         idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         addressCol.setCellValueFactory(new PropertyValueFactory<>("address"));
@@ -133,10 +178,123 @@ public class CustomerMenuController implements SharedControllerInterface {
         countryCol.setCellValueFactory(new PropertyValueFactory<>("country"));
         phoneCol.setCellValueFactory(new PropertyValueFactory<>("phone"));
 
+        sortComparators.put(idCol, Comparator.comparingInt(Customer::getId));
+        sortComparators.put(nameCol, Comparator.comparing(Customer::getName,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        sortComparators.put(addressCol, Comparator.comparing(Customer::getAddress,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        sortComparators.put(divisionCol, Comparator.comparing(Customer::getDivision,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        sortComparators.put(postalCodeCol, Comparator.comparing(Customer::getPostalCode,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        sortComparators.put(countryCol, Comparator.comparing(Customer::getCountry,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        sortComparators.put(phoneCol, Comparator.comparing(Customer::getPhone,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        customerTbl.setSortPolicy(table -> {
+            if(!showingMatches) {
+                sortOrder = getSortComparator();
+                filterCustomers();
+            }
+            return true;
+        });
+
         customerTbl.getSortOrder().add(idCol);
         customerTbl.autosize();
     }
 
+    /**
+     * Creates the search box on the same row as the view buttons, aligned with the right edge of the table.  The
+     * customers are filtered on every change to it.
+     */
+    private void setSearch() {
+        searchFld.setPrefWidth(searchFieldWidth);
+        searchFld.setLayoutX(customerTbl.getLayoutX() + customerTbl.getPrefWidth() - searchFieldWidth);
+        searchFld.setLayoutY(apptAllBtn.getLayoutY());
+        if(AnchorPane.getRightAnchor(customerTbl) != null) {
+            AnchorPane.setRightAnchor(searchFld, AnchorPane.getRightAnchor(customerTbl));
+        }
+        if(customerTbl.getParent() instanceof Pane parent) {
+            parent.getChildren().add(searchFld);
+        }
+        searchFld.textProperty().addListener((observable, oldText, newText) -> filterCustomers());
+    }
+
+    /**
+     * Creates the import button to the left of the search box, and imports customers from a CSV file when it is
+     * clicked.
+     */
+    private void setImportButton() {
+        importBtn.setPrefWidth(importButtonWidth);
+        importBtn.setLayoutX(searchFld.getLayoutX() - buttonGap - importButtonWidth);
+        importBtn.setLayoutY(searchFld.getLayoutY());
+        if(AnchorPane.getRightAnchor(customerTbl) != null) {
+            AnchorPane.setRightAnchor(importBtn, AnchorPane.getRightAnchor(customerTbl) + searchFieldWidth + buttonGap);
+        }
+        if(customerTbl.getParent() instanceof Pane parent) {
+            parent.getChildren().add(importBtn);
+        }
+        importBtn.setOnAction(this::onActionImportCustomers);
+    }
+
+    /**
+     * Searches the customers in the background for the search box text, in the table's sort order, and shows the
+     * matches unless a later search has been started since.
+     */
+    private void filterCustomers() {
+        if(customerIndex == null) {
+            return;
+        }
+        CustomerSearchIndex index = customerIndex;
+        String query = searchFld.getText();
+        Comparator<Customer> order = sortOrder;
+        long search = ++searchCount;
+        JDBCQueryAsync.supply(() -> index.search(query, order)).thenAcceptAsync(matches -> {
+            if(search == searchCount) {
+                showMatches(matches);
+                customerTbl.setPlaceholder(query.isBlank() ? null : noSearchResultsLbl);
+            }
+        }, JDBCQueryAsync.FX_THREAD);
+    }
+
+    /**
+     * Sets the table's items without the sort policy starting another search.
+     *
+     * @param matches The customers to show
+     */
+    private void showMatches(List<Customer> matches) {
+        showingMatches = true;
+        customerTbl.setItems(FXCollections.observableList(matches));
+        showingMatches = false;
+    }
+
+    /**
+     * Builds a comparator from the table's sort order.
+     *
+     * @return The comparator, or null if the table is sorted by ascending ID alone or not at all, which is the
+     * index's own order
+     */
+    private Comparator<Customer> getSortComparator() {
+        List<TableColumn<Customer, ?>> sortOrder = customerTbl.getSortOrder();
+        if(sortOrder.isEmpty() ||
+                (sortOrder.size() == 1 && sortOrder.get(0) == idCol &&
+                        idCol.getSortType() == TableColumn.SortType.ASCENDING)) {
+            return null;
+        }
+        Comparator<Customer> order = null;
+        for(TableColumn<Customer, ?> column : sortOrder) {
+            Comparator<Customer> columnOrder = sortComparators.get(column);
+            if(columnOrder == null) {
+                continue;
+            }
+            if(column.getSortType() == TableColumn.SortType.DESCENDING) {
+                columnOrder = columnOrder.reversed();
+            }
+            order = order == null ? columnOrder : order.thenComparing(columnOrder);
+        }
+        return order;
+    }
+
     /**
      * Navigates to the AddCustomer scene.
      *
@@ -149,7 +307,8 @@ public class CustomerMenuController implements SharedControllerInterface {
     }
 
     /**
-     * Deletes the selected customer from the database and updates the table.
+     * Deletes the selected customer from the database in the background and updates the table, showing the progress
+     * of the deletion of the customer's appointments on the delete button.
      * Notifies user if no customer is selected.
      *
      * @param event The ActionEvent associated with the button click
@@ -160,15 +319,57 @@ public class CustomerMenuController implements SharedControllerInterface {
         Customer selectedCustomer = customerTbl.getSelectionModel().getSelectedItem();
         if (selectedCustomer != null) {
             if(NotifyUser.confirmDeleteObject(selectedCustomer)) {
-                JDBCQuery.deleteCustomer(selectedCustomer.getId());
-                populateTable();
-                NotifyUser.objectDeleted(selectedCustomer);
+                ProgressBar progressBar = new ProgressBar(0);
+                deleteCustBtn.setDisable(true);
+                deleteCustBtn.setGraphic(progressBar);
+                JDBCQueryAsync.deleteCustomer(selectedCustomer.getId(), (deleted, total) ->
+                        JDBCQueryAsync.FX_THREAD.execute(() ->
+                                progressBar.setProgress(total == 0 ? 1 : (double) deleted / total)))
+                        .thenAcceptAsync(customerDeleted -> {
+                            loadCustomers();
+                            deleteCustBtn.setGraphic(null);
+                            deleteCustBtn.setDisable(false);
+                            if(customerDeleted) {
+                                NotifyUser.objectDeleted(selectedCustomer);
+                            } else {
+                                NotifyUser.objectNotDeleted(selectedCustomer);
+                            }
+                        }, JDBCQueryAsync.FX_THREAD);
             }
         } else {
             NotifyUser.nothingSelected("customer");
         }
     }
 
+    /**
+     * Imports customers from a CSV file chosen by the user, then reloads the table and reports the rows imported and
+     * rejected.
+     *
+     * @param event The ActionEvent associated with the button click
+     */
+    @FXML
+    private void onActionImportCustomers(ActionEvent event) {
+        Path path = NotifyUser.chooseCsvFile(((Node) event.getSource()).getScene().getWindow());
+        if(path == null) {
+            return;
+        }
+        CsvImporter importer = new CsvImporter(currentUser.getUsername(), null);
+        JDBCQueryAsync.supply(() -> {
+            try {
+                return importer.importCustomers(path);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenCompleteAsync((report, e) -> {
+            if(e != null) {
+                NotifyUser.importFailed(e);
+                return;
+            }
+            loadCustomers();
+            NotifyUser.importFinished(report);
+        }, JDBCQueryAsync.FX_THREAD);
+    }
+
     /**
      * Logs user off by navigating to the LoginScreen scene and passing 'null' as the current user.
      *
@@ -1,9 +1,10 @@
 package com.mc.controller;
 
-import com.mc.helper.JDBCConnector;
+import com.mc.helper.Authenticator;
+import com.mc.helper.JDBCQueryAsync;
+import com.mc.helper.LoginActivityLog;
 import com.mc.helper.NavigateToScene;
 import com.mc.helper.NotifyUser;
-import com.mc.model.CurrentUser;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -12,12 +13,7 @@ import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.sql.ResultSet;
-import java.sql.Statement;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -67,50 +63,32 @@ public class LoginScreenController {
     }
 
     /**
-     * Authenticates the user.  Sets currentUser and navigates to the main menu if successful.
+     * Authenticates the user in the background.  Sets currentUser and navigates to the main menu if successful.
      *
      * @param event The ActionEvent associated with the button click
      */
     @FXML
     private void onActionLogin(ActionEvent event) {
         String usernameInput = usernameFld.getText();
-        String passwordInput = passwordFld.getText();
+        char[] passwordInput = passwordFld.getText() == null ? new char[0] : passwordFld.getText().toCharArray();
 
-        try (Statement statement = JDBCConnector.connection.createStatement()) {
-            String query = "SELECT * FROM users;";
-            ResultSet resultSet = statement.executeQuery(query);
-            while(resultSet.next()) {
-                String usernameDB = resultSet.getString("User_Name");
-                String passwordDB = resultSet.getString("Password");
-
-                if(usernameDB.equals(usernameInput) && passwordDB.equals(passwordInput)) {
-                    CurrentUser currentUser = new CurrentUser(usernameInput);
-                    NavigateToScene.goToMainMenu(event, "all", true, currentUser);
-                    logActivity(usernameInput, true);
-                    return;
-                }
-            }
-            logActivity(usernameInput, false);
-            NotifyUser.unableToLogin();
-            onActionReset();
-        } catch(Exception e) {
-            System.out.println(e);
-        }
-    }
-
-    /**
-     * Logs the user's login activity, including the timestamp and success status.
-     *
-     * @param userName The username of the user attempting to log in
-     * @param loginSuccessful A boolean indicating whether the login was successful
-     */
-    private static void logActivity(String userName, boolean loginSuccessful) {
-        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now());
-        try (FileWriter writer = new FileWriter("login_activity.txt", true)) {
-                writer.write(userName + ", " + timestamp + ", " + timeZone + ", " + loginSuccessful + "\n");
-        } catch (IOException e) {
-            System.err.println(e);
-        }
+        loginBtn.setDisable(true);
+        JDBCQueryAsync.supply(() -> Authenticator.authenticate(usernameInput, passwordInput))
+                .thenAcceptAsync(currentUser -> {
+                    loginBtn.setDisable(false);
+                    if(currentUser != null) {
+                        try {
+                            NavigateToScene.goToMainMenu(event, "all", true, currentUser);
+                        } catch(IOException e) {
+                            System.out.println(e);
+                        }
+                        LoginActivityLog.append(usernameInput, true);
+                    } else {
+                        LoginActivityLog.append(usernameInput, false);
+                        NotifyUser.unableToLogin();
+                        onActionReset();
+                    }
+                }, JDBCQueryAsync.FX_THREAD);
     }
 
     /**
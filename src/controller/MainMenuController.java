@@ -1,32 +1,53 @@
 package com.mc.controller;
 
+import com.mc.helper.AppointmentPageQuery;
+import com.mc.helper.AppointmentPageQuery.SortKey;
+import com.mc.helper.CsvImporter;
 import com.mc.helper.NavigateToScene;
-import com.mc.helper.JDBCQuery;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NotifyUser;
+import com.mc.helper.PagedAppointmentList;
+import com.mc.helper.TableCells;
 import com.mc.model.Appointment;
 import com.mc.model.CurrentUser;
-import javafx.collections.FXCollections;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.Pane;
+import javafx.util.Duration;
 import java.io.IOException;
-import java.sql.Time;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
  * Controller class for the MainMenu scene.
  * Handles the display and management of appointments and navigation to other scenes.
+ * The appointments loaded for each view are kept between visits to the scene and refreshed incrementally, both on
+ * return and periodically while the scene is shown, instead of being queried again.
+ * A search box finds appointments by the words in their title, description or location, showing the results in
+ * place of the current view until it is cleared.
  * Implements SharedControllerInterface to manage currentUser.
  * @author Michael Cassidy
  */
@@ -56,9 +77,9 @@ public class MainMenuController implements SharedControllerInterface {
     @FXML
     private TableColumn<Appointment, String> descriptionCol;
     @FXML
-    private TableColumn<Appointment, Date> endDateCol;
+    private TableColumn<Appointment, LocalDate> endDateCol;
     @FXML
-    private TableColumn<Appointment, Time> endTimeCol;
+    private TableColumn<Appointment, LocalTime> endTimeCol;
     @FXML
     private TableColumn<Appointment, Integer> idCol;
     @FXML
@@ -68,7 +89,7 @@ public class MainMenuController implements SharedControllerInterface {
     @FXML
     private Button modifyApptBtn;
     @FXML
-    private TableColumn<Appointment, Date> startDateCol;
+    private TableColumn<Appointment, LocalDate> startDateCol;
     @FXML
     private TableColumn<Appointment, LocalTime> startTimeCol;
     @FXML
@@ -82,7 +103,22 @@ public class MainMenuController implements SharedControllerInterface {
     @FXML
     private RadioButton viewReportsBtn;
     private String appointmentView;
-    private final ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+    private static final int pageSize = 100;
+    private static final int maxPages = 5;
+    private static final Duration refreshInterval = Duration.seconds(30);
+    private static final Map<String, PagedAppointmentList> retainedPages = new HashMap<>();
+    private PagedAppointmentList appointmentPages;
+    private Timeline refreshTimeline;
+    private final Map<TableColumn<Appointment, ?>, SortKey> sortKeys = new HashMap<>();
+    private static final int maxSearchResults = 500;
+    private static final double searchFieldWidth = 250;
+    private static final double importButtonWidth = 120;
+    private static final double buttonGap = 10;
+    private final Button importBtn = new Button();
+    private final TextField searchFld = new TextField();
+    private final Label noSearchResultsLbl = new Label();
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(150));
+    private ObservableList<Appointment> searchResults;
 
     private CurrentUser currentUser;
 
@@ -93,6 +129,11 @@ public class MainMenuController implements SharedControllerInterface {
     @FXML
     private void initialize() {
         setLanguage();
+        populateTable();
+        setPaging();
+        setRefresh();
+        setSearch();
+        setImportButton();
 
         switch (this.appointmentView) {
             case "month" -> {
@@ -126,10 +167,12 @@ public class MainMenuController implements SharedControllerInterface {
     public void setAppointmentView(String appointmentView) { this.appointmentView = appointmentView; }
 
     /**
-     * Notifies the user of upcoming appointments.
+     * Notifies the user of appointments starting within fifteen minutes.
+     * These are queried directly because the appointment table only holds the pages that have been scrolled to.
      */
     public void notifyOnLogin() {
-        NotifyUser.upcomingAppointments(appointmentList);
+        JDBCQueryAsync.getUpcomingAppointmentList()
+                .thenAcceptAsync(NotifyUser::upcomingAppointments, JDBCQueryAsync.FX_THREAD);
     }
 
     /**
@@ -163,29 +206,266 @@ public class MainMenuController implements SharedControllerInterface {
         modifyApptBtn.setText(messages.getString("main.modAppt"));
         deleteApptBtn.setText(messages.getString("main.delAppt"));
         logoffBtn.setText(messages.getString("main.logoff"));
+        searchFld.setPromptText(messages.getString("main.searchPrompt"));
+        noSearchResultsLbl.setText(messages.getString("main.noSearchResults"));
+        importBtn.setText(messages.getString("main.importCsv"));
     }
 
     /**
-     * Populates the appointment table with data from the appointmentList.
+     * Binds the appointment table to the paged appointment list and sets up its columns.
      */
     private void populateTable() {
-        apptTbl.setItems(appointmentList);
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
-        descriptionCol.setCellValueFactory(new PropertyValueFactory<>("description"));
-        locationCol.setCellValueFactory(new PropertyValueFactory<>("location"));
-        typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
-        startTimeCol.setCellValueFactory(new PropertyValueFactory<>("startTime"));
-        endTimeCol.setCellValueFactory(new PropertyValueFactory<>("endTime"));
-        startDateCol.setCellValueFactory(new PropertyValueFactory<>("startDate"));
-        endDateCol.setCellValueFactory(new PropertyValueFactory<>("endDate"));
-        customerIdCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
-        userIdCol.setCellValueFactory(new PropertyValueFactory<>("userId"));
-        contactIdCol.setCellValueFactory(new PropertyValueFactory<>("contactId"));
+        idCol.setCellValueFactory(TableCells.value(Appointment::getId));
+        titleCol.setCellValueFactory(TableCells.value(Appointment::getTitle));
+        descriptionCol.setCellValueFactory(TableCells.value(Appointment::getDescription));
+        locationCol.setCellValueFactory(TableCells.value(Appointment::getLocation));
+        typeCol.setCellValueFactory(TableCells.value(Appointment::getType));
+        startTimeCol.setCellValueFactory(TableCells.value(Appointment::getStartTime));
+        endTimeCol.setCellValueFactory(TableCells.value(Appointment::getEndTime));
+        startDateCol.setCellValueFactory(TableCells.value(Appointment::getStartDate));
+        endDateCol.setCellValueFactory(TableCells.value(Appointment::getEndDate));
+        customerIdCol.setCellValueFactory(TableCells.value(Appointment::getCustomerId));
+        userIdCol.setCellValueFactory(TableCells.value(Appointment::getUserId));
+        contactIdCol.setCellValueFactory(TableCells.value(Appointment::getContactId));
+        startTimeCol.setCellFactory(TableCells.text(Appointment::getStartTimeText));
+        endTimeCol.setCellFactory(TableCells.text(Appointment::getEndTimeText));
+        startDateCol.setCellFactory(TableCells.text(Appointment::getStartDateText));
+        endDateCol.setCellFactory(TableCells.text(Appointment::getEndDateText));
 
         apptTbl.autosize();
     }
 
+    /**
+     * Sets up paging for the appointment table.
+     * Scrolling near the bottom or top of the loaded rows fetches the next or previous page, and sorting by a column
+     * re-runs the query with that ORDER BY instead of sorting the loaded rows in memory.
+     */
+    private void setPaging() {
+        sortKeys.put(idCol, SortKey.ID);
+        sortKeys.put(titleCol, SortKey.TITLE);
+        sortKeys.put(descriptionCol, SortKey.DESCRIPTION);
+        sortKeys.put(locationCol, SortKey.LOCATION);
+        sortKeys.put(typeCol, SortKey.TYPE);
+        sortKeys.put(startDateCol, SortKey.START);
+        sortKeys.put(startTimeCol, SortKey.START);
+        sortKeys.put(endDateCol, SortKey.END);
+        sortKeys.put(endTimeCol, SortKey.END);
+        sortKeys.put(customerIdCol, SortKey.CUSTOMER_ID);
+        sortKeys.put(userIdCol, SortKey.USER_ID);
+        sortKeys.put(contactIdCol, SortKey.CONTACT_ID);
+
+        apptTbl.setSortPolicy(table -> {
+            if(searchResults != null) {
+                return TableView.DEFAULT_SORT_POLICY.call(table);
+            }
+            sortAppointments();
+            return true;
+        });
+
+//      The table's VirtualFlow only exists once its skin has been created
+        apptTbl.skinProperty().addListener((observable, oldSkin, newSkin) -> {
+            VirtualFlow<?> flow = (VirtualFlow<?>) apptTbl.lookup(".virtual-flow");
+            if(flow != null) {
+                flow.positionProperty().addListener((positionObservable, oldPosition, newPosition) ->
+                        onScroll(flow, newPosition.doubleValue()));
+            }
+        });
+    }
+
+    /**
+     * Refreshes the appointment table every refreshInterval until the scene is no longer shown.
+     */
+    private void setRefresh() {
+        refreshTimeline = new Timeline(new KeyFrame(refreshInterval, event -> {
+            if(apptTbl.getScene() == null || apptTbl.getScene().getWindow() == null) {
+                refreshTimeline.stop();
+            } else if(appointmentPages != null) {
+                appointmentPages.refresh();
+            }
+        }));
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+        refreshTimeline.play();
+    }
+
+    /**
+     * Creates the search box on the same row as the view buttons, aligned with the right edge of the table.  The
+     * search runs once typing pauses for searchDelay, or straight away on Enter, and clearing the box shows the
+     * current view again.
+     */
+    private void setSearch() {
+        searchFld.setPrefWidth(searchFieldWidth);
+        searchFld.setLayoutX(apptTbl.getLayoutX() + apptTbl.getPrefWidth() - searchFieldWidth);
+        searchFld.setLayoutY(apptAllBtn.getLayoutY());
+        if(AnchorPane.getRightAnchor(apptTbl) != null) {
+            AnchorPane.setRightAnchor(searchFld, AnchorPane.getRightAnchor(apptTbl));
+        }
+        if(apptTbl.getParent() instanceof Pane parent) {
+            parent.getChildren().add(searchFld);
+        }
+
+        searchDelay.setOnFinished(event -> search(searchFld.getText()));
+        searchFld.setOnAction(event -> {
+            searchDelay.stop();
+            search(searchFld.getText());
+        });
+        searchFld.textProperty().addListener((observable, oldText, newText) -> {
+            if(newText.isBlank()) {
+                searchDelay.stop();
+                clearSearch();
+            } else {
+                searchDelay.playFromStart();
+            }
+        });
+    }
+
+    /**
+     * Creates the import button to the left of the search box, and imports appointments from a CSV file when it is
+     * clicked.
+     */
+    private void setImportButton() {
+        importBtn.setPrefWidth(importButtonWidth);
+        importBtn.setLayoutX(searchFld.getLayoutX() - buttonGap - importButtonWidth);
+        importBtn.setLayoutY(searchFld.getLayoutY());
+        if(AnchorPane.getRightAnchor(apptTbl) != null) {
+            AnchorPane.setRightAnchor(importBtn, AnchorPane.getRightAnchor(apptTbl) + searchFieldWidth + buttonGap);
+        }
+        if(apptTbl.getParent() instanceof Pane parent) {
+            parent.getChildren().add(importBtn);
+        }
+        importBtn.setOnAction(this::onActionImportAppointments);
+    }
+
+    /**
+     * Searches appointments in the background and shows the results, unless the search box has changed since.
+     *
+     * @param query The search box text
+     */
+    private void search(String query) {
+        if(query.isBlank()) {
+            return;
+        }
+        JDBCQueryAsync.searchAppointments(query, maxSearchResults).thenAcceptAsync(results -> {
+            if(query.equals(searchFld.getText())) {
+                searchResults = results;
+                apptTbl.setItems(results);
+                apptTbl.setPlaceholder(noSearchResultsLbl);
+            }
+        }, JDBCQueryAsync.FX_THREAD);
+    }
+
+    /**
+     * Shows the current view again in place of any search results.
+     */
+    private void clearSearch() {
+        if(searchResults != null) {
+            searchResults = null;
+            apptTbl.setItems(appointmentPages.getItems());
+            apptTbl.setPlaceholder(null);
+        }
+    }
+
+    /**
+     * Fetches another page when the table is scrolled near either end of the loaded rows.  If a page is dropped
+     * from the other end, the table is scrolled by the same number of rows so that the rows in view stay put.
+     *
+     * @param flow The table's VirtualFlow
+     * @param position The scroll position, from 0 (top) to 1 (bottom)
+     */
+    private void onScroll(VirtualFlow<?> flow, double position) {
+        if(searchResults != null || appointmentPages.isLoading() || flow.getFirstVisibleCell() == null) {
+            return;
+        }
+        int firstVisibleIndex = flow.getFirstVisibleCell().getIndex();
+
+        if(position > 0.9) {
+            appointmentPages.loadNext().thenAccept(removed -> {
+                if(removed > 0) {
+                    apptTbl.scrollTo(Math.max(0, firstVisibleIndex - removed));
+                }
+            });
+        } else if(position < 0.1) {
+            appointmentPages.loadPrevious().thenAccept(inserted -> {
+                if(inserted > 0) {
+                    apptTbl.scrollTo(firstVisibleIndex + inserted);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reloads the appointment table sorted by the first column in the table's sort order, or by start time if
+     * the table is unsorted.
+     */
+    private void sortAppointments() {
+        SortKey sortKey = SortKey.START;
+        boolean ascending = true;
+        if(!apptTbl.getSortOrder().isEmpty()) {
+            TableColumn<Appointment, ?> column = apptTbl.getSortOrder().get(0);
+            sortKey = sortKeys.getOrDefault(column, SortKey.START);
+            ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+        }
+
+        AppointmentPageQuery query = appointmentPages.getQuery();
+        if(query != null && (query.getSortKey() != sortKey || query.isAscending() != ascending)) {
+            loadAppointments(query.sortedBy(sortKey, ascending));
+        }
+    }
+
+    /**
+     * Shows the appointments for a view.  If the view has been shown before, its retained appointments are displayed
+     * straight away and refreshed with the changes made since; otherwise the first page is loaded.  The table's
+     * current sort order is kept, reloading the retained appointments if they were sorted differently.  Retained
+     * appointments are also reloaded if the view's range has moved since they were loaded, as the week view's does
+     * when the day changes and the month view's does when the month changes.  Any search is cleared.
+     *
+     * @param view The appointment view ("all", "month", or "week")
+     * @param query The query for the view's current range
+     */
+    private void showView(String view, AppointmentPageQuery query) {
+        AppointmentPageQuery currentQuery = appointmentPages == null ? null : appointmentPages.getQuery();
+        SortKey sortKey = currentQuery == null ? SortKey.START : currentQuery.getSortKey();
+        boolean ascending = currentQuery == null || currentQuery.isAscending();
+        appointmentView = view;
+        searchFld.clear();
+
+        PagedAppointmentList retained = retainedPages.get(view);
+        if(retained != null && retained.getQuery() != null) {
+            appointmentPages = retained;
+            apptTbl.setItems(appointmentPages.getItems());
+            AppointmentPageQuery retainedQuery = retained.getQuery();
+            if(!retainedQuery.hasSameRange(query)) {
+                loadAppointments(query.sortedBy(sortKey, ascending));
+            } else if(retainedQuery.getSortKey() != sortKey || retainedQuery.isAscending() != ascending) {
+                loadAppointments(retainedQuery.sortedBy(sortKey, ascending));
+            } else {
+                apptTbl.setPlaceholder(null);
+                appointmentPages.refresh();
+            }
+        } else {
+            appointmentPages = new PagedAppointmentList(pageSize, maxPages);
+            retainedPages.put(view, appointmentPages);
+            apptTbl.setItems(appointmentPages.getItems());
+            loadAppointments(query.sortedBy(sortKey, ascending));
+        }
+    }
+
+    /**
+     * Loads the first page of appointments in the background, showing a progress indicator until it arrives.
+     * Pages still loading for a previous query are discarded.
+     *
+     * @param query The query for the appointments to display
+     */
+    private void loadAppointments(AppointmentPageQuery query) {
+        PagedAppointmentList pages = appointmentPages;
+        apptTbl.setPlaceholder(new ProgressIndicator());
+        pages.load(query).thenRun(() -> {
+            if(appointmentPages == pages && pages.getQuery() == query) {
+                apptTbl.setPlaceholder(null);
+                apptTbl.scrollTo(0);
+            }
+        });
+    }
+
     /**
      * Navigates to the "AddAppointment" scene.
      *
@@ -207,17 +487,23 @@ public class MainMenuController implements SharedControllerInterface {
         Appointment selectedAppt = apptTbl.getSelectionModel().getSelectedItem();
         if(selectedAppt != null) {
             if(NotifyUser.confirmDeleteObject(selectedAppt)) {
-                JDBCQuery.deleteAppointment(selectedAppt);
-
-                if (apptMonthBtn.isSelected()) {
-                    onActionShowMonth();
-                } else if (apptWeekBtn.isSelected()) {
-                    onActionShowWeek();
-                } else {
-                    onActionShowAll();
-                }
-
-                NotifyUser.objectDeleted(selectedAppt);
+                deleteApptBtn.setDisable(true);
+                JDBCQueryAsync.deleteAppointment(selectedAppt).whenCompleteAsync((deleted, e) -> {
+                    deleteApptBtn.setDisable(false);
+                    if(e != null || !deleted) {
+                        if(e != null) {
+                            System.out.println(e);
+                        }
+                        NotifyUser.objectNotDeleted(selectedAppt);
+                        return;
+                    }
+                    appointmentPages.remove(selectedAppt);
+                    if(searchResults != null) {
+                        searchResults.remove(selectedAppt);
+                    }
+                    appointmentPages.refresh();
+                    NotifyUser.objectDeleted(selectedAppt);
+                }, JDBCQueryAsync.FX_THREAD);
             }
         } else {
             NotifyUser.nothingSelected("appointment");
@@ -246,8 +532,7 @@ public class MainMenuController implements SharedControllerInterface {
      */
     @FXML
     private void onActionShowAll() {
-        appointmentList.setAll(JDBCQuery.getAllAppointmentList());
-        populateTable();
+        showView("all", AppointmentPageQuery.forAll());
     }
 
     /**
@@ -255,9 +540,7 @@ public class MainMenuController implements SharedControllerInterface {
      */
     @FXML
     private void onActionShowMonth() {
-        appointmentList.clear();
-        appointmentList.setAll(JDBCQuery.getMonthAppointmentList());
-        populateTable();
+        showView("month", AppointmentPageQuery.forCurrentMonth());
     }
 
     /**
@@ -265,9 +548,36 @@ public class MainMenuController implements SharedControllerInterface {
      */
     @FXML
     private void onActionShowWeek() {
-        appointmentList.clear();
-        appointmentList.setAll(JDBCQuery.getWeekAppointmentList());
-        populateTable();
+        showView("week", AppointmentPageQuery.forCurrentWeek());
+    }
+
+    /**
+     * Imports appointments from a CSV file chosen by the user, then refreshes the table and reports the rows imported
+     * and rejected.
+     *
+     * @param event The ActionEvent associated with the button click
+     */
+    @FXML
+    private void onActionImportAppointments(ActionEvent event) {
+        Path path = NotifyUser.chooseCsvFile(((Node) event.getSource()).getScene().getWindow());
+        if(path == null) {
+            return;
+        }
+        CsvImporter importer = new CsvImporter(currentUser.getUsername(), null);
+        JDBCQueryAsync.supply(() -> {
+            try {
+                return importer.importAppointments(path);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenCompleteAsync((report, e) -> {
+            if(e != null) {
+                NotifyUser.importFailed(e);
+                return;
+            }
+            appointmentPages.refresh();
+            NotifyUser.importFinished(report);
+        }, JDBCQueryAsync.FX_THREAD);
     }
 
     /**
@@ -283,13 +593,15 @@ public class MainMenuController implements SharedControllerInterface {
     }
 
     /**
-     * Navigates back to the "LoginScreen" scene and clears the currentUser.
+     * Navigates back to the "LoginScreen" scene and clears the currentUser and the retained appointments.
      *
      * @param event The ActionEvent that triggered the method
      * @throws IOException If there's an issue loading the FXML file
      */
     @FXML
     private void onActionLogoff(ActionEvent event) throws IOException {
+        refreshTimeline.stop();
+        retainedPages.clear();
         NavigateToScene.goToScene(event, "LoginScreen", null);
     }
 
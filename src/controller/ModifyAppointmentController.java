@@ -1,9 +1,11 @@
 package com.mc.controller;
 
-import com.mc.helper.JDBCQuery;
+import com.mc.helper.AppointmentOverlapIndex;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NavigateToScene;
 import com.mc.helper.NotifyUser;
 import com.mc.helper.TimeUtils;
+import com.mc.helper.UpdateConflictException;
 import com.mc.model.Appointment;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -12,6 +14,8 @@ import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for the Modify Appointment view.
@@ -84,6 +88,7 @@ public class ModifyAppointmentController extends BaseAppointmentController {
         endTimeComboBox.setItems(getTimeComboBox(8,15, 22, 15).getItems());
         contactComboBox.setItems(getContactComboBox().getItems());
         customerIdComboBox.setItems(getCustomerIdComboBox().getItems());
+        AppointmentOverlapIndex.warmUp();
 
         startDatePicker.setValue(LocalDate.now());
         startDatePicker.setDayCellFactory(getDateCellFactory());
@@ -128,9 +133,11 @@ public class ModifyAppointmentController extends BaseAppointmentController {
      * @param updatedTimestamp The timestamp when the appointment was last updated
      * @param userId The ID of the user who is updating the appointment
      * @param updatedBy The username of the user who is updating the appointment
+     * @param contactId The ID of the contact selected in the form
      * @return A new Appointment object with the updated information
      */
-    private Appointment createModifiedAppointment(Timestamp updatedTimestamp, int userId, String updatedBy) {
+    private Appointment createModifiedAppointment(Timestamp updatedTimestamp, int userId, String updatedBy,
+                                                  int contactId) {
         int id = appointment.getId();
         String title = titleField.getText();
         String description = descriptionField.getText();
@@ -144,29 +151,52 @@ public class ModifyAppointmentController extends BaseAppointmentController {
         String createdBy = appointment.getCreatedBy();
         int customerId = customerIdComboBox.getValue();
 
-        int contactId = JDBCQuery.getContactId(contactComboBox.getValue());
-
-        return new Appointment(id, title, description, location, type, startTimestamp, endTimestamp, createdTimestamp,
-                createdBy, updatedTimestamp, updatedBy, customerId, userId, contactId);
+        Appointment modifiedAppointment = new Appointment(id, title, description, location, type, startTimestamp,
+                endTimestamp, createdTimestamp, createdBy, updatedTimestamp, updatedBy, customerId, userId, contactId);
+        modifiedAppointment.setContactName(contactComboBox.getValue());
+        return modifiedAppointment;
     }
 
     /**
      * Validates the appointment form and saves the changes to the database.
-     * Navigates back to the main menu.
+     * The save button is disabled while the appointment is validated and saved in the background.
      *
      * @param event The ActionEvent that triggered the method
-     * @throws IOException If there's an issue loading the FXML file
      */
     @FXML
-    private void onActionSave(ActionEvent event) throws IOException {
-        if(validateAppointment(customerIdComboBox, contactComboBox, titleField, descriptionField,
+    private void onActionSave(ActionEvent event) {
+        saveBtn.setDisable(true);
+        String contactName = contactComboBox.getValue();
+        validateAppointment(customerIdComboBox, contactComboBox, titleField, descriptionField,
                 locationField, typeField, startTimeComboBox, endTimeComboBox, startDatePicker, endDatePicker,
-                appointment.getId())) {
-            Timestamp updatedTimestamp = appointment.getUpdatedTimestamp();
-            int userId = currentUser.getUserId();
-            String updatedBy = appointment.getUpdatedBy();
-            Appointment modifiedAppointment = createModifiedAppointment(updatedTimestamp, userId, updatedBy);
+                appointment.getId())
+                .thenCompose(valid -> valid ? JDBCQueryAsync.getContactId(contactName) :
+                        CompletableFuture.<Integer>completedFuture(null))
+                .thenAcceptAsync(contactId -> {
+                    if(contactId != null) {
+                        saveAppointment(event, contactId);
+                    } else {
+                        saveBtn.setDisable(false);
+                    }
+                }, JDBCQueryAsync.FX_THREAD);
+    }
+
+    /**
+     * Saves the validated changes in the background, then notifies the user and navigates back to the main menu.
+     * If no changes were made, asks the user whether to return to the menu instead.
+     * The update only applies if the appointment has not been changed since it was loaded; if it has, the latest
+     * version is reloaded into the form.
+     *
+     * @param event The ActionEvent that triggered the save
+     * @param contactId The ID of the contact selected in the form
+     */
+    private void saveAppointment(ActionEvent event, int contactId) {
+        Timestamp updatedTimestamp = appointment.getUpdatedTimestamp();
+        int userId = currentUser.getUserId();
+        String updatedBy = appointment.getUpdatedBy();
+        Appointment modifiedAppointment = createModifiedAppointment(updatedTimestamp, userId, updatedBy, contactId);
 
+        try {
             if(modifiedAppointment.equals(appointment)) {
                 if(NotifyUser.noChangesMade()) {
                     NavigateToScene.goToMainMenu(event, "all", false, currentUser);
@@ -176,11 +206,46 @@ public class ModifyAppointmentController extends BaseAppointmentController {
             } else {
                 updatedTimestamp = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
                 updatedBy = currentUser.getUsername();
-                Appointment newAppointment = createModifiedAppointment(updatedTimestamp, userId, updatedBy);
-                JDBCQuery.updateAppointment(newAppointment);
-                NotifyUser.objectUpdated(newAppointment);
-                NavigateToScene.goToMainMenu(event, "all", false, currentUser);
+                Appointment newAppointment = createModifiedAppointment(updatedTimestamp, userId, updatedBy,
+                        contactId);
+                JDBCQueryAsync.updateAppointment(newAppointment, appointment.getUpdatedTimestamp())
+                        .whenCompleteAsync((rowsUpdated, e) -> {
+                            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                            if(cause instanceof UpdateConflictException) {
+                                NotifyUser.updateConflict((UpdateConflictException) cause);
+                                reloadAppointment(event);
+                            } else if(e != null || rowsUpdated == 0) {
+                                if(e != null) {
+                                    System.out.println(e);
+                                }
+                                NotifyUser.objectNotUpdated(newAppointment);
+                                saveBtn.setDisable(false);
+                            } else {
+                                NotifyUser.objectUpdated(newAppointment);
+                                returnToMainMenu(event);
+                            }
+                        }, JDBCQueryAsync.FX_THREAD);
             }
+        } catch (IOException e) {
+            System.out.println(e);
         }
     }
+
+    /**
+     * Reloads the appointment after a conflicting update and shows the latest version in the form, or returns to the
+     * main menu if it has been deleted.
+     *
+     * @param event The ActionEvent that triggered the save
+     */
+    private void reloadAppointment(ActionEvent event) {
+        JDBCQueryAsync.getAppointment(appointment.getId()).thenAcceptAsync(current -> {
+            if(current == null) {
+                returnToMainMenu(event);
+                return;
+            }
+            appointment = current;
+            setFields();
+            saveBtn.setDisable(false);
+        }, JDBCQueryAsync.FX_THREAD);
+    }
 }
@@ -1,9 +1,9 @@
 package com.mc.controller;
 
-import com.mc.helper.JDBCQuery;
-import com.mc.helper.NavigateToScene;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NotifyUser;
 import com.mc.helper.TimeUtils;
+import com.mc.helper.UpdateConflictException;
 import com.mc.model.Customer;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -12,10 +12,10 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 
-import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for the Modify Customer view.
@@ -95,9 +95,10 @@ public class ModifyCustomerController extends BaseCustomerController {
     /**
      * Creates a modified customer with the updated information from the form.
      *
+     * @param divisionId The ID of the division selected in the form
      * @return A new Customer object with the updated information
      */
-    private Customer makeModifiedCustomer() {
+    private Customer makeModifiedCustomer(int divisionId) {
         int id = customer.getId();
         String name = nameField.getText();
         String address = addressField.getText();
@@ -107,27 +108,63 @@ public class ModifyCustomerController extends BaseCustomerController {
         String createdBy = customer.getCreatedBy();
         Timestamp updatedTimestamp = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
         String updatedBy = currentUser.getUsername();
-        int divisionId = JDBCQuery.getDivisionId(divisionComboBox.getValue());
 
         return new Customer(id, name, address, postalCode, phone, createdTimestamp, createdBy, updatedTimestamp,
                 updatedBy, divisionId);
     }
 
     /**
-     * Validates the form and saves the changes to the database.
-     * Navigates back to the Customer Menu.
+     * Validates the form and saves the changes to the database in the background.
+     * Navigates back to the Customer Menu once saved.  If the customer has been changed since they were loaded, the
+     * latest version is reloaded into the form instead.
      *
      * @param event The ActionEvent that triggered the method
-     * @throws IOException If there's an issue loading the FXML file
      */
     @FXML
-    private void onActionSave(ActionEvent event) throws IOException {
+    private void onActionSave(ActionEvent event) {
         if(validateFields(nameField, addressField, countryComboBox, divisionComboBox, postCodeField, phoneField)) {
-            Customer modifiedCustomer = makeModifiedCustomer();
-            NotifyUser.objectUpdated(modifiedCustomer);
-            JDBCQuery.updateCustomer(modifiedCustomer);
+            String division = divisionComboBox.getValue();
 
-            NavigateToScene.goToScene(event, "CustomerMenu", currentUser);
+            saveBtn.setDisable(true);
+            JDBCQueryAsync.getDivisionId(division)
+                    .thenApplyAsync(this::makeModifiedCustomer, JDBCQueryAsync.FX_THREAD)
+                    .thenCompose(modifiedCustomer -> JDBCQueryAsync.updateCustomer(modifiedCustomer,
+                                    customer.getUpdatedTimestamp())
+                            .thenApply(rowsUpdated -> rowsUpdated > 0 ? modifiedCustomer : null))
+                    .whenCompleteAsync((modifiedCustomer, e) -> {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        if(cause instanceof UpdateConflictException) {
+                            NotifyUser.updateConflict((UpdateConflictException) cause);
+                            reloadCustomer(event);
+                        } else if(e != null || modifiedCustomer == null) {
+                            if(e != null) {
+                                System.out.println(e);
+                            }
+                            NotifyUser.objectNotUpdated(customer);
+                            saveBtn.setDisable(false);
+                        } else {
+                            NotifyUser.objectUpdated(modifiedCustomer);
+                            returnToCustomerMenu(event);
+                        }
+                    }, JDBCQueryAsync.FX_THREAD);
         }
     }
+
+    /**
+     * Reloads the customer after a conflicting update and shows the latest version in the form, or returns to the
+     * Customer Menu if they have been deleted.
+     *
+     * @param event The ActionEvent that triggered the save
+     */
+    private void reloadCustomer(ActionEvent event) {
+        JDBCQueryAsync.getCustomer(customer.getId()).thenAcceptAsync(current -> {
+            if(current == null) {
+                returnToCustomerMenu(event);
+                return;
+            }
+            customer = current;
+            setFields();
+            saveBtn.setDisable(false);
+        }, JDBCQueryAsync.FX_THREAD);
+    }
 }
@@ -1,34 +1,51 @@
 package com.mc.controller;
 
 import com.mc.helper.JDBCQuery;
+import com.mc.helper.JDBCQueryAsync;
 import com.mc.helper.NavigateToScene;
+import com.mc.helper.NotifyUser;
+import com.mc.helper.ReportAggregates;
+import com.mc.helper.ReportExporter;
+import com.mc.helper.SummaryRow;
+import com.mc.helper.TableCells;
 import com.mc.model.Appointment;
 import com.mc.model.CurrentUser;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.Pane;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Month;
+import java.time.Year;
 import java.time.ZoneId;
 import java.time.format.TextStyle;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * Controller class that handles actions and interactions in the Report Menu screen.
- * Allows the user to view and filter appointments by month & type, contact, and country.
+ * Allows the user to view and filter appointments by month & type, contact, and country, or view summary tables of
+ * appointment counts and booked minutes that are aggregated by the database.
  * @author Michael Cassidy
  */
 public class ReportMenuController implements SharedControllerInterface {
@@ -88,6 +105,15 @@ public class ReportMenuController implements SharedControllerInterface {
     private final ZoneId timeZone = ZoneId.systemDefault();
     ResourceBundle messages = ResourceBundle.getBundle("LanguageBundle", userLocale);
     private ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+    private CompletableFuture<ObservableList<Appointment>> pendingQuery;
+    private Supplier<ReportExporter> reportExport;
+    private final TableView<SummaryRow> summaryTbl = new TableView<>();
+    private final TableColumn<SummaryRow, String> summaryGroupCol = new TableColumn<>();
+    private final TableColumn<SummaryRow, String> summaryPeriodCol = new TableColumn<>();
+    private final TableColumn<SummaryRow, Long> summaryValueCol = new TableColumn<>();
+    private CompletableFuture<ObservableList<SummaryRow>> pendingSummary;
+    private static final double exportButtonWidth = 140;
+    private final Button exportBtn = new Button();
     private CurrentUser currentUser;
 
     /**
@@ -104,6 +130,8 @@ public class ReportMenuController implements SharedControllerInterface {
     private void initialize() {
         setLanguage();
         setReportTypeComboBox();
+        setSummaryTable();
+        setExportButton();
         setListeners();
         messageLbl.setText(null);
     }
@@ -149,6 +177,7 @@ public class ReportMenuController implements SharedControllerInterface {
         userIdCol.setText(messages.getString("main.userId"));
         contactIdCol.setText(messages.getString("main.contactId"));
         logoffBtn.setText(messages.getString("main.logoff"));
+        exportBtn.setText(messages.getString("report.export"));
     }
 
     /**
@@ -159,7 +188,11 @@ public class ReportMenuController implements SharedControllerInterface {
                 messages.getString("report.selectReport"),
                 messages.getString("report.month"),
                 messages.getString("report.contact"),
-                messages.getString("report.country")
+                messages.getString("report.country"),
+                messages.getString("report.summaryMonth"),
+                messages.getString("report.summaryContact"),
+                messages.getString("report.summaryCountry"),
+                messages.getString("report.summaryContactWeek")
         );
         reportTypeComboBox.setItems(reportTypeList);
         filter1ComboBox.setVisible(false);
@@ -168,6 +201,52 @@ public class ReportMenuController implements SharedControllerInterface {
         reportTypeComboBox.getSelectionModel().selectFirst();
     }
 
+    /**
+     * Creates the summary table in the same place as the appointment table.  Only one of the two is shown at a time.
+     */
+    private void setSummaryTable() {
+        summaryTbl.getColumns().add(summaryGroupCol);
+        summaryTbl.getColumns().add(summaryPeriodCol);
+        summaryTbl.getColumns().add(summaryValueCol);
+        summaryGroupCol.setCellValueFactory(new PropertyValueFactory<>("group"));
+        summaryPeriodCol.setCellValueFactory(new PropertyValueFactory<>("period"));
+        summaryValueCol.setCellValueFactory(new PropertyValueFactory<>("value"));
+        summaryTbl.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        summaryTbl.setLayoutX(apptTbl.getLayoutX());
+        summaryTbl.setLayoutY(apptTbl.getLayoutY());
+        summaryTbl.prefWidthProperty().bind(apptTbl.widthProperty());
+        summaryTbl.prefHeightProperty().bind(apptTbl.heightProperty());
+        AnchorPane.setTopAnchor(summaryTbl, AnchorPane.getTopAnchor(apptTbl));
+        AnchorPane.setRightAnchor(summaryTbl, AnchorPane.getRightAnchor(apptTbl));
+        AnchorPane.setBottomAnchor(summaryTbl, AnchorPane.getBottomAnchor(apptTbl));
+        AnchorPane.setLeftAnchor(summaryTbl, AnchorPane.getLeftAnchor(apptTbl));
+        summaryTbl.managedProperty().bind(summaryTbl.visibleProperty());
+        apptTbl.managedProperty().bind(apptTbl.visibleProperty());
+        summaryTbl.setVisible(false);
+
+        if(apptTbl.getParent() instanceof Pane parent) {
+            parent.getChildren().add(parent.getChildren().indexOf(apptTbl) + 1, summaryTbl);
+        }
+    }
+
+    /**
+     * Creates the export button on the same row as the view buttons, aligned with the right edge of the table, and
+     * exports the report shown when it is clicked.
+     */
+    private void setExportButton() {
+        exportBtn.setPrefWidth(exportButtonWidth);
+        exportBtn.setLayoutX(apptTbl.getLayoutX() + apptTbl.getPrefWidth() - exportButtonWidth);
+        exportBtn.setLayoutY(apptAllBtn.getLayoutY());
+        if(AnchorPane.getRightAnchor(apptTbl) != null) {
+            AnchorPane.setRightAnchor(exportBtn, AnchorPane.getRightAnchor(apptTbl));
+        }
+        if(apptTbl.getParent() instanceof Pane parent) {
+            parent.getChildren().add(exportBtn);
+        }
+        exportBtn.setOnAction(this::onActionExport);
+    }
+
     /**
      * Handles actions when the report type combo box value is changed.
      * @param newValue The new value of the report type combo box.
@@ -175,15 +254,15 @@ public class ReportMenuController implements SharedControllerInterface {
     private void reportComboBoxListener(String newValue) {
         if(newValue != null) {
             appointmentList.clear();
+            pendingQuery = null;
+            reportExport = null;
+            pendingSummary = null;
             messageLbl.setText(null);
+            showSummaryTable(false);
             if(newValue.equals(messages.getString("report.month"))) {
                 reportTypeComboBox.getItems().remove(messages.getString("report.selectReport"));
 
-                ObservableList<String> typeList = JDBCQuery.getTypeList();
-                filter1ComboBox.setItems(typeList);
-                typeList.add(0, messages.getString("report.selectType"));
-                filter1ComboBox.getSelectionModel().selectFirst();
-                filter1ComboBox.setVisible(true);
+                setFilter1Items(JDBCQueryAsync.getTypeList(), messages.getString("report.selectType"));
 
                 ObservableList<String> monthList = FXCollections.observableArrayList(
 //                        messages.getString("report.january"),
@@ -212,24 +291,45 @@ public class ReportMenuController implements SharedControllerInterface {
                 filter2ComboBox.setVisible(true);
             } else if(newValue.equals(messages.getString("report.contact"))) {
                 reportTypeComboBox.getItems().remove(messages.getString("report.selectReport"));
-                ObservableList<String> contactList = JDBCQuery.getContactList();
-                filter1ComboBox.setItems(contactList);
-                contactList.add(0, messages.getString("report.selectContact"));
-                filter1ComboBox.getSelectionModel().selectFirst();
-                filter1ComboBox.setVisible(true);
+                setFilter1Items(JDBCQueryAsync.getContactList(), messages.getString("report.selectContact"));
                 filter2ComboBox.setVisible(false);
             } else if(newValue.equals(messages.getString("report.country"))) {
                 reportTypeComboBox.getItems().remove(messages.getString("report.selectReport"));
-                ObservableList<String> countryList = JDBCQuery.getCountryList();
-                filter1ComboBox.setItems(countryList);
-                countryList.add(0, messages.getString("report.selectCountry"));
-                filter1ComboBox.getSelectionModel().selectFirst();
-                filter1ComboBox.setVisible(true);
+                setFilter1Items(JDBCQueryAsync.getCountryList(), messages.getString("report.selectCountry"));
                 filter2ComboBox.setVisible(false);
+            } else if(newValue.equals(messages.getString("report.summaryMonth"))) {
+                loadSummary(() -> ReportAggregates.countByTypeAndMonth(Year.now()), "main.type",
+                        "report.columnMonth", "report.columnAppointments");
+            } else if(newValue.equals(messages.getString("report.summaryContact"))) {
+                loadSummary(ReportAggregates::countByContact, "report.columnContact", null,
+                        "report.columnAppointments");
+            } else if(newValue.equals(messages.getString("report.summaryCountry"))) {
+                loadSummary(ReportAggregates::countByCountry, "report.columnCountry", null,
+                        "report.columnAppointments");
+            } else if(newValue.equals(messages.getString("report.summaryContactWeek"))) {
+                loadSummary(() -> ReportAggregates.minutesByContactAndWeek(Year.now()), "report.columnContact",
+                        "report.columnWeek", "report.columnMinutes");
             }
         }
     }
 
+    /**
+     * Fills the filter 1 combo box once its options have loaded, with the given prompt as the first option.
+     *
+     * @param query The pending query for the filter options.
+     * @param prompt The prompt text shown before the user selects an option.
+     */
+    private void setFilter1Items(CompletableFuture<ObservableList<String>> query, String prompt) {
+        filter1ComboBox.setDisable(true);
+        query.thenAcceptAsync(options -> {
+            filter1ComboBox.setItems(options);
+            options.add(0, prompt);
+            filter1ComboBox.getSelectionModel().selectFirst();
+            filter1ComboBox.setVisible(true);
+            filter1ComboBox.setDisable(false);
+        }, JDBCQueryAsync.FX_THREAD);
+    }
+
     /**
      * Handles actions when the filter 1 combo box value is changed.
      * @param newValue The new value of the filter 1 combo box.
@@ -245,10 +345,10 @@ public class ReportMenuController implements SharedControllerInterface {
 //              criteria: Type and Month
                 if(!Objects.equals(filter2ComboBox.getValue(), messages.getString("report.selectMonth")) &&
                         filter1ComboBox.getValue() != null && filter2ComboBox.getValue() != null) {
-                    setAppointmentList(JDBCQuery.getAppointmentListByTypeAndMonth(filter1ComboBox.getValue(),
-                            filter2ComboBox.getValue()));
-                    populateTable();
-                    setMessageLbl();
+                    String type = filter1ComboBox.getValue();
+                    String month = filter2ComboBox.getValue();
+                    loadReport(JDBCQueryAsync.getAppointmentListByTypeAndMonth(type, month),
+                            () -> ReportExporter.byTypeAndMonth(type, month));
                 }
 //          Filter by Contact Report:
             } else if(reportTypeComboBox.getValue().equals(messages.getString("report.contact")) &&
@@ -256,18 +356,18 @@ public class ReportMenuController implements SharedControllerInterface {
 //              Remove prompt text when option is selected by user
                 filter1ComboBox.getItems().remove(messages.getString("report.selectContact"));
 
-                int contactId = JDBCQuery.getContactId(filter1ComboBox.getValue());
-                setAppointmentList(JDBCQuery.getAppointmentListByContactId(contactId));
-                populateTable();
-                setMessageLbl();
+                String contact = filter1ComboBox.getValue();
+                loadReport(JDBCQueryAsync.getContactId(contact)
+                        .thenCompose(JDBCQueryAsync::getAppointmentListByContactId),
+                        () -> ReportExporter.byContactId(JDBCQuery.getContactId(contact)));
             } else if(reportTypeComboBox.getValue().equals(messages.getString("report.country")) &&
                     !Objects.equals(newValue, messages.getString("report.selectCountry"))) {
 //              Remove prompt text when option is selected by user
                 filter1ComboBox.getItems().remove(messages.getString("report.selectCountry"));
 
-                setAppointmentList(JDBCQuery.getAppointmentListByCountry(filter1ComboBox.getValue()));
-                populateTable();
-                setMessageLbl();
+                String country = filter1ComboBox.getValue();
+                loadReport(JDBCQueryAsync.getAppointmentListByCountry(country),
+                        () -> ReportExporter.byCountry(country));
             }
         }
     }
@@ -286,15 +386,81 @@ public class ReportMenuController implements SharedControllerInterface {
 //              criteria: Type and Month
                 if(!Objects.equals(filter1ComboBox.getValue(), messages.getString("report.selectType")) &&
                         filter1ComboBox.getValue() != null && filter2ComboBox.getValue() != null) {
-                    setAppointmentList(JDBCQuery.getAppointmentListByTypeAndMonth(filter1ComboBox.getValue(),
-                            filter2ComboBox.getValue()));
-                    populateTable();
-                    setMessageLbl();
+                    String type = filter1ComboBox.getValue();
+                    String month = filter2ComboBox.getValue();
+                    loadReport(JDBCQueryAsync.getAppointmentListByTypeAndMonth(type, month),
+                            () -> ReportExporter.byTypeAndMonth(type, month));
                 }
             }
         }
     }
 
+    /**
+     * Loads a report in the background, showing a progress indicator in the table until the query completes.
+     * Results from a query that has since been superseded by another filter selection are discarded.
+     *
+     * @param query The pending query for the report's appointments.
+     * @param export Creates an export of the same report; called off the JavaFX Application Thread.
+     */
+    private void loadReport(CompletableFuture<ObservableList<Appointment>> query, Supplier<ReportExporter> export) {
+        pendingQuery = query;
+        reportExport = export;
+        messageLbl.setText(null);
+        showSummaryTable(false);
+        apptTbl.setItems(null);
+        apptTbl.setPlaceholder(new ProgressIndicator());
+        query.thenAcceptAsync(appointments -> {
+            if(query == pendingQuery) {
+                setAppointmentList(appointments);
+                apptTbl.setPlaceholder(null);
+                populateTable();
+                setMessageLbl();
+            }
+        }, JDBCQueryAsync.FX_THREAD);
+    }
+
+    /**
+     * Loads a summary table in the background, showing a progress indicator in it until the query completes.
+     * The filters do not apply to summaries and are hidden.
+     *
+     * @param summary Runs the summary's query; called off the JavaFX Application Thread.
+     * @param groupKey The bundle key of the group column's heading.
+     * @param periodKey The bundle key of the period column's heading, or null if the summary has no periods.
+     * @param valueKey The bundle key of the value column's heading.
+     */
+    private void loadSummary(Supplier<ObservableList<SummaryRow>> summary, String groupKey, String periodKey,
+                             String valueKey) {
+        reportTypeComboBox.getItems().remove(messages.getString("report.selectReport"));
+        filter1ComboBox.setVisible(false);
+        filter2ComboBox.setVisible(false);
+        summaryGroupCol.setText(messages.getString(groupKey));
+        summaryPeriodCol.setText(periodKey == null ? null : messages.getString(periodKey));
+        summaryPeriodCol.setVisible(periodKey != null);
+        summaryValueCol.setText(messages.getString(valueKey));
+
+        CompletableFuture<ObservableList<SummaryRow>> query = JDBCQueryAsync.supply(summary);
+        pendingSummary = query;
+        summaryTbl.setItems(null);
+        summaryTbl.setPlaceholder(new ProgressIndicator());
+        showSummaryTable(true);
+        query.thenAcceptAsync(rows -> {
+            if(query == pendingSummary) {
+                summaryTbl.setPlaceholder(null);
+                summaryTbl.setItems(rows);
+            }
+        }, JDBCQueryAsync.FX_THREAD);
+    }
+
+    /**
+     * Shows either the summary table or the appointment table in their shared place.
+     *
+     * @param show true to show the summary table, false to show the appointment table.
+     */
+    private void showSummaryTable(boolean show) {
+        summaryTbl.setVisible(show);
+        apptTbl.setVisible(!show);
+    }
+
     /**
      * Sets the message label based on the results of the filtering.
      */
@@ -336,23 +502,59 @@ public class ReportMenuController implements SharedControllerInterface {
         if(appointmentList != null) {
             apptTbl.setItems(appointmentList);
 
-            idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-            titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
-            descriptionCol.setCellValueFactory(new PropertyValueFactory<>("description"));
-            locationCol.setCellValueFactory(new PropertyValueFactory<>("location"));
-            typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
-            startTimeCol.setCellValueFactory(new PropertyValueFactory<>("startTime"));
-            endTimeCol.setCellValueFactory(new PropertyValueFactory<>("endTime"));
-            startDateCol.setCellValueFactory(new PropertyValueFactory<>("startDate"));
-            endDateCol.setCellValueFactory(new PropertyValueFactory<>("endDate"));
-            customerIdCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
-            userIdCol.setCellValueFactory(new PropertyValueFactory<>("userId"));
-            contactIdCol.setCellValueFactory(new PropertyValueFactory<>("contactId"));
+            idCol.setCellValueFactory(TableCells.value(Appointment::getId));
+            titleCol.setCellValueFactory(TableCells.value(Appointment::getTitle));
+            descriptionCol.setCellValueFactory(TableCells.value(Appointment::getDescription));
+            locationCol.setCellValueFactory(TableCells.value(Appointment::getLocation));
+            typeCol.setCellValueFactory(TableCells.value(Appointment::getType));
+            startTimeCol.setCellValueFactory(TableCells.value(Appointment::getStartTime));
+            endTimeCol.setCellValueFactory(TableCells.value(Appointment::getEndTime));
+            startDateCol.setCellValueFactory(TableCells.value(Appointment::getStartDate));
+            endDateCol.setCellValueFactory(TableCells.value(Appointment::getEndDate));
+            customerIdCol.setCellValueFactory(TableCells.value(Appointment::getCustomerId));
+            userIdCol.setCellValueFactory(TableCells.value(Appointment::getUserId));
+            contactIdCol.setCellValueFactory(TableCells.value(Appointment::getContactId));
+            startTimeCol.setCellFactory(TableCells.text(Appointment::getStartTimeText));
+            endTimeCol.setCellFactory(TableCells.text(Appointment::getEndTimeText));
+            startDateCol.setCellFactory(TableCells.text(Appointment::getStartDateText));
+            endDateCol.setCellFactory(TableCells.text(Appointment::getEndDateText));
 
             apptTbl.autosize();
         }
     }
 
+    /**
+     * Exports the report currently shown to a file chosen by the user, streaming it from the database in the
+     * background.  Notifies the user if no report has been selected.
+     *
+     * @param event The ActionEvent associated with the button click
+     */
+    @FXML
+    private void onActionExport(ActionEvent event) {
+        if(reportExport == null) {
+            NotifyUser.nothingSelected("report");
+            return;
+        }
+        Path path = NotifyUser.chooseExportFile(((Node) event.getSource()).getScene().getWindow());
+        if(path == null) {
+            return;
+        }
+        Supplier<ReportExporter> export = reportExport;
+        JDBCQueryAsync.supply(() -> {
+            try {
+                return export.get().export(path);
+            } catch(IOException | SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenCompleteAsync((rows, e) -> {
+            if(e != null) {
+                NotifyUser.exportFailed(e);
+            } else {
+                NotifyUser.exportFinished(rows, path);
+            }
+        }, JDBCQueryAsync.FX_THREAD);
+    }
+
     /**
      * Handles the logoff action, navigating to the login screen and resetting currentUser
      * @param event The ActionEvent triggering the method.
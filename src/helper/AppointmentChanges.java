@@ -0,0 +1,45 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * The appointments added, updated or deleted since a pair of watermarks, as returned by
+ * JDBCQuery.getAppointmentChanges.
+ * Added and updated rows are found by their Last_Update time; deleted rows by the tombstones the appointments delete
+ * trigger writes, which are numbered in the order they were written.
+ * @author Michael Cassidy
+ */
+public class AppointmentChanges {
+    private final List<Appointment> updatedAppointments;
+    private final List<Integer> deletedAppointmentIds;
+    private final Timestamp updateWatermark;
+    private final long tombstoneWatermark;
+
+    /**
+     * Creates a set of changes.
+     *
+     * @param updatedAppointments The appointments added or updated.
+     * @param deletedAppointmentIds The IDs of the appointments deleted.
+     * @param updateWatermark The latest Last_Update among the updated appointments, or the previous watermark.
+     * @param tombstoneWatermark The highest tombstone ID read, or the previous watermark.
+     */
+    public AppointmentChanges(List<Appointment> updatedAppointments, List<Integer> deletedAppointmentIds,
+                              Timestamp updateWatermark, long tombstoneWatermark) {
+        this.updatedAppointments = updatedAppointments;
+        this.deletedAppointmentIds = deletedAppointmentIds;
+        this.updateWatermark = updateWatermark;
+        this.tombstoneWatermark = tombstoneWatermark;
+    }
+
+    public List<Appointment> getUpdatedAppointments() { return updatedAppointments; }
+
+    public List<Integer> getDeletedAppointmentIds() { return deletedAppointmentIds; }
+
+    public Timestamp getUpdateWatermark() { return updateWatermark; }
+
+    public long getTombstoneWatermark() { return tombstoneWatermark; }
+
+    public boolean isEmpty() { return updatedAppointments.isEmpty() && deletedAppointmentIds.isEmpty(); }
+}
@@ -0,0 +1,240 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An augmented interval tree of appointments keyed by start time.
+ * The tree is kept balanced as an AVL tree and every node records the latest end time in its subtree, so overlap
+ * queries only descend into subtrees that can contain an overlapping appointment: "any overlap?" runs in O(log n)
+ * and "all overlaps" in O(log n + k) for k results.
+ * Two appointments overlap when each one starts before the other ends, matching the SQL overlap check.
+ * This class is not thread-safe; AppointmentOverlapIndex guards access to it.
+ * @author Michael Cassidy
+ */
+public class AppointmentIntervalTree {
+    private Node root;
+    private final Map<Integer, Appointment> appointmentsById = new HashMap<>();
+
+    /**
+     * Adds an appointment to the tree, replacing any appointment already stored with the same ID.
+     *
+     * @param appointment The appointment to add.
+     */
+    public void put(Appointment appointment) {
+        remove(appointment.getId());
+        appointmentsById.put(appointment.getId(), appointment);
+        root = insert(root, new Node(appointment));
+    }
+
+    /**
+     * Removes the appointment with the given ID, if present.
+     *
+     * @param appointmentId The ID of the appointment to remove.
+     * @return The removed appointment, or null if none was stored with that ID.
+     */
+    public Appointment remove(int appointmentId) {
+        Appointment appointment = appointmentsById.remove(appointmentId);
+        if(appointment != null) {
+            root = delete(root, startOf(appointment), appointmentId);
+        }
+        return appointment;
+    }
+
+    /**
+     * Removes every appointment belonging to the given customer.
+     *
+     * @param customerId The ID of the customer whose appointments are removed.
+     */
+    public void removeByCustomerId(int customerId) {
+        List<Integer> appointmentIds = new ArrayList<>();
+        for(Appointment appointment : appointmentsById.values()) {
+            if(appointment.getCustomerId() == customerId) {
+                appointmentIds.add(appointment.getId());
+            }
+        }
+        appointmentIds.forEach(this::remove);
+    }
+
+    public int size() { return appointmentsById.size(); }
+
+    /**
+     * Finds one appointment overlapping the given range.
+     *
+     * @param start The start of the range in epoch milliseconds.
+     * @param end The end of the range in epoch milliseconds.
+     * @param excludedId The ID of an appointment to ignore, e.g. the one being modified.
+     * @return An overlapping appointment, or null if there is none.
+     */
+    public Appointment findFirstOverlapping(long start, long end, int excludedId) {
+        return findFirstOverlapping(root, start, end, excludedId);
+    }
+
+    /**
+     * Finds every appointment overlapping the given range, in start time order.
+     *
+     * @param start The start of the range in epoch milliseconds.
+     * @param end The end of the range in epoch milliseconds.
+     * @param excludedId The ID of an appointment to ignore, e.g. the one being modified.
+     * @return The overlapping appointments.
+     */
+    public List<Appointment> findAllOverlapping(long start, long end, int excludedId) {
+        List<Appointment> overlapping = new ArrayList<>();
+        collectOverlapping(root, start, end, excludedId, overlapping);
+        return overlapping;
+    }
+
+    private Appointment findFirstOverlapping(Node node, long start, long end, int excludedId) {
+//      Skip subtrees that end before the range starts; stop at nodes that start after the range ends, since every
+//      node to their right starts later still
+        if(node == null || node.maxEnd <= start) {
+            return null;
+        }
+        Appointment found = findFirstOverlapping(node.left, start, end, excludedId);
+        if(found != null) {
+            return found;
+        }
+        if(node.start >= end) {
+            return null;
+        }
+        if(node.end > start && node.id != excludedId) {
+            return node.appointment;
+        }
+        return findFirstOverlapping(node.right, start, end, excludedId);
+    }
+
+    private void collectOverlapping(Node node, long start, long end, int excludedId, List<Appointment> overlapping) {
+        if(node == null || node.maxEnd <= start) {
+            return;
+        }
+        collectOverlapping(node.left, start, end, excludedId, overlapping);
+        if(node.start >= end) {
+            return;
+        }
+        if(node.end > start && node.id != excludedId) {
+            overlapping.add(node.appointment);
+        }
+        collectOverlapping(node.right, start, end, excludedId, overlapping);
+    }
+
+    private static long startOf(Appointment appointment) { return appointment.getStartTimestamp().getTime(); }
+
+    private static int compare(long start, int id, Node node) {
+        int result = Long.compare(start, node.start);
+        return result != 0 ? result : Integer.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if(node == null) {
+            return newNode;
+        }
+        if(compare(newNode.start, newNode.id, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, long start, int id) {
+        if(node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if(comparison < 0) {
+            node.left = delete(node.left, start, id);
+        } else if(comparison > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if(node.left == null) {
+                return node.right;
+            }
+            if(node.right == null) {
+                return node.left;
+            }
+//          Replace the node with its in-order successor
+            Node successor = node.right;
+            while(successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = delete(node.right, successor.start, successor.id);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if(balance > 1) {
+            if(height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if(balance < -1) {
+            if(height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if(node.left != null) {
+            node.maxEnd = Math.max(node.maxEnd, node.left.maxEnd);
+        }
+        if(node.right != null) {
+            node.maxEnd = Math.max(node.maxEnd, node.right.maxEnd);
+        }
+    }
+
+    private static int height(Node node) { return node == null ? 0 : node.height; }
+
+    /**
+     * A tree node holding one appointment's interval and the latest end time in its subtree.
+     */
+    private static final class Node {
+        private final Appointment appointment;
+        private final int id;
+        private final long start;
+        private final long end;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Appointment appointment) {
+            this.appointment = appointment;
+            this.id = appointment.getId();
+            this.start = appointment.getStartTimestamp().getTime();
+            this.end = appointment.getEndTimestamp().getTime();
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Abstract class that answers appointment overlap checks from an in-memory AppointmentIntervalTree of current and
+ * upcoming appointments instead of querying the database on every save.
+ * The index is loaded in the background and kept in sync by JDBCQuery's add, update and delete methods.  While the
+ * index is cold (not yet loaded, or older than its maximum age so that changes made by other schedulers are picked
+ * up) checks fall back to the SQL overlap query and a reload is started.
+ * @author Michael Cassidy
+ */
+public abstract class AppointmentOverlapIndex {
+    private static final long maxAgeMillis = 300_000;
+    private static final Object lock = new Object();
+    private static AppointmentIntervalTree tree;
+    private static long loadedAt;
+    private static long modificationCount;
+    private static boolean loading;
+
+    /**
+     * Finds one appointment overlapping the given times.
+     *
+     * @param startTimestamp The start timestamp to compare.
+     * @param endTimestamp The end timestamp to compare.
+     * @param appointmentId The ID of the appointment to exclude from the search.
+     * @return An overlapping appointment, or null if there is none.
+     */
+    public static Appointment findFirstOverlapping(Timestamp startTimestamp, Timestamp endTimestamp,
+                                                   int appointmentId) {
+        synchronized(lock) {
+            if(isWarm()) {
+                return tree.findFirstOverlapping(startTimestamp.getTime(), endTimestamp.getTime(), appointmentId);
+            }
+        }
+        warmUp();
+        List<Appointment> appointmentList =
+                JDBCQuery.getOverlappingAppointmentList(startTimestamp, endTimestamp, appointmentId);
+        return appointmentList.isEmpty() ? null : appointmentList.get(0);
+    }
+
+    /**
+     * Finds every appointment overlapping the given times.
+     *
+     * @param startTimestamp The start timestamp to compare.
+     * @param endTimestamp The end timestamp to compare.
+     * @param appointmentId The ID of the appointment to exclude from the search.
+     * @return The overlapping appointments.
+     */
+    public static List<Appointment> findAllOverlapping(Timestamp startTimestamp, Timestamp endTimestamp,
+                                                       int appointmentId) {
+        synchronized(lock) {
+            if(isWarm()) {
+                return tree.findAllOverlapping(startTimestamp.getTime(), endTimestamp.getTime(), appointmentId);
+            }
+        }
+        warmUp();
+        return JDBCQuery.getOverlappingAppointmentList(startTimestamp, endTimestamp, appointmentId);
+    }
+
+    /**
+     * Starts loading the index in the background unless it is already loaded and fresh, or already loading.
+     */
+    public static void warmUp() {
+        synchronized(lock) {
+            if(loading || isWarm()) {
+                return;
+            }
+            loading = true;
+        }
+        JDBCQueryAsync.run(AppointmentOverlapIndex::load);
+    }
+
+    /**
+     * Loads the index on the calling thread unless it is already loaded and fresh, e.g. before checking many
+     * appointments in a row.  If loading fails the index stays cold and checks fall back to the database.
+     */
+    public static void loadNow() {
+        synchronized(lock) {
+            if(isWarm()) {
+                return;
+            }
+        }
+        load();
+    }
+
+    /**
+     * Adds or replaces an appointment in the index after it has been written to the database.
+     *
+     * @param appointment The saved appointment.
+     */
+    public static void put(Appointment appointment) {
+        synchronized(lock) {
+            modificationCount++;
+            if(tree != null) {
+                tree.put(appointment);
+            }
+        }
+    }
+
+    /**
+     * Removes an appointment from the index after it has been deleted from the database.
+     *
+     * @param appointmentId The ID of the deleted appointment.
+     */
+    public static void remove(int appointmentId) {
+        synchronized(lock) {
+            modificationCount++;
+            if(tree != null) {
+                tree.remove(appointmentId);
+            }
+        }
+    }
+
+    /**
+     * Removes a customer's appointments from the index after they have been deleted from the database.
+     *
+     * @param customerId The ID of the deleted customer.
+     */
+    public static void removeByCustomerId(int customerId) {
+        synchronized(lock) {
+            modificationCount++;
+            if(tree != null) {
+                tree.removeByCustomerId(customerId);
+            }
+        }
+    }
+
+    /**
+     * Discards the index so that the next check falls back to the database and reloads it.
+     */
+    public static void invalidate() {
+        synchronized(lock) {
+            modificationCount++;
+            tree = null;
+        }
+    }
+
+    private static boolean isWarm() {
+        return tree != null && System.currentTimeMillis() - loadedAt < maxAgeMillis;
+    }
+
+    /**
+     * Loads appointments that have not yet ended into a new tree.  Past appointments are skipped because an
+     * appointment can only be saved with a start time in the future.  If the index was modified while loading, the
+     * new tree may have missed that change and is discarded; if the query fails the index stays cold.
+     */
+    private static void load() {
+        long startModificationCount;
+        synchronized(lock) {
+            startModificationCount = modificationCount;
+        }
+
+        AppointmentIntervalTree newTree = new AppointmentIntervalTree();
+        Timestamp now = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
+        boolean loaded = false;
+        try {
+            JDBCQuery.getAppointmentListEndingAfter(now).forEach(newTree::put);
+            loaded = true;
+        } catch(SQLException e) {
+            System.out.println(e);
+        }
+
+        synchronized(lock) {
+            if(loaded && modificationCount == startModificationCount) {
+                tree = newTree;
+                loadedAt = System.currentTimeMillis();
+            }
+            loading = false;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static com.mc.helper.JDBCConnector.getConnection;
+
+/**
+ * Fetches appointments one page at a time using keyset pagination.
+ * Rows are ordered by a sort key with Appointment_ID as the tie-breaker, and each page is requested relative to the
+ * last (or first) row of the page before it, e.g. {@code WHERE (Start, Appointment_ID) > (?, ?) ORDER BY Start,
+ * Appointment_ID LIMIT ?}.  Unlike LIMIT/OFFSET, the database never has to read and discard the rows before the page,
+ * so every page costs the same no matter how far into the table it is.
+ * Queries are immutable; sorting differently creates a new query.
+ * @author Michael Cassidy
+ */
+public class AppointmentPageQuery {
+    private final Timestamp rangeStart;
+    private final Timestamp rangeEnd;
+    private final SortKey sortKey;
+    private final boolean ascending;
+
+    /**
+     * Columns the appointment table can be sorted by, with the SQL expression each sorts on and the matching value
+     * of a loaded appointment.
+     * Nullable text columns sort on COALESCE(column, '') so that every row has a comparable key.
+     */
+    public enum SortKey {
+        ID("appointments.Appointment_ID", Appointment::getId),
+        TITLE("COALESCE(appointments.Title, '')", appointment -> nullToEmpty(appointment.getTitle())),
+        DESCRIPTION("COALESCE(appointments.Description, '')",
+                appointment -> nullToEmpty(appointment.getDescription())),
+        LOCATION("COALESCE(appointments.Location, '')", appointment -> nullToEmpty(appointment.getLocation())),
+        TYPE("COALESCE(appointments.Type, '')", appointment -> nullToEmpty(appointment.getType())),
+        START("appointments.Start", Appointment::getStartTimestamp),
+        END("appointments.End", Appointment::getEndTimestamp),
+        CUSTOMER_ID("appointments.Customer_ID", Appointment::getCustomerId),
+        USER_ID("appointments.User_ID", Appointment::getUserId),
+        CONTACT_ID("appointments.Contact_ID", Appointment::getContactId);
+
+        private final String expression;
+        private final Function<Appointment, Object> value;
+
+        SortKey(String expression, Function<Appointment, Object> value) {
+            this.expression = expression;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Creates a query for appointments starting within a range, sorted by the given key.
+     *
+     * @param rangeStart The earliest start time to include, or null for no lower bound.
+     * @param rangeEnd The start time to stop before, or null for no upper bound.
+     * @param sortKey The column to sort by.
+     * @param ascending true to sort ascending, false to sort descending.
+     */
+    public AppointmentPageQuery(Timestamp rangeStart, Timestamp rangeEnd, SortKey sortKey, boolean ascending) {
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.sortKey = sortKey;
+        this.ascending = ascending;
+    }
+
+    /**
+     * Creates a query for every appointment, sorted by start time.
+     *
+     * @return The query.
+     */
+    public static AppointmentPageQuery forAll() {
+        return new AppointmentPageQuery(null, null, SortKey.START, true);
+    }
+
+    /**
+     * Creates a query for appointments starting in the current month, sorted by start time.
+     *
+     * @return The query.
+     */
+    public static AppointmentPageQuery forCurrentMonth() {
+        YearMonth currentMonth = YearMonth.now();
+        return new AppointmentPageQuery(TimeUtils.getStartOfMonthUtcTimestamp(currentMonth),
+                TimeUtils.getStartOfMonthUtcTimestamp(currentMonth.plusMonths(1)), SortKey.START, true);
+    }
+
+    /**
+     * Creates a query for appointments starting in the seven days from the start of today, sorted by start time.
+     * The range only moves when the day changes, so a retained week view can be refreshed rather than reloaded.
+     *
+     * @return The query.
+     */
+    public static AppointmentPageQuery forCurrentWeek() {
+        LocalDate today = LocalDate.now();
+        return new AppointmentPageQuery(TimeUtils.convertToUtcTimestamp(today, LocalTime.MIDNIGHT),
+                TimeUtils.convertToUtcTimestamp(today.plusDays(7), LocalTime.MIDNIGHT), SortKey.START, true);
+    }
+
+    /**
+     * Returns a copy of this query with the same range and a different sort order.
+     *
+     * @param sortKey The column to sort by.
+     * @param ascending true to sort ascending, false to sort descending.
+     * @return The re-sorted query.
+     */
+    public AppointmentPageQuery sortedBy(SortKey sortKey, boolean ascending) {
+        return new AppointmentPageQuery(rangeStart, rangeEnd, sortKey, ascending);
+    }
+
+    /**
+     * Checks whether another query covers the same range of start times as this one, whatever its sort order.
+     *
+     * @param other The other query.
+     * @return true if both queries have the same range.
+     */
+    public boolean hasSameRange(AppointmentPageQuery other) {
+        return Objects.equals(rangeStart, other.rangeStart) && Objects.equals(rangeEnd, other.rangeEnd);
+    }
+
+    public SortKey getSortKey() { return sortKey; }
+
+    public boolean isAscending() { return ascending; }
+
+    /**
+     * Compares two loaded appointments in the order this query returns them, so that changed appointments can be
+     * placed in an already loaded page.  Text is compared ignoring case, as the database collation does.
+     *
+     * @param first The first appointment.
+     * @param second The second appointment.
+     * @return A negative number, zero or a positive number as the first appointment sorts before, with or after the
+     * second.
+     */
+    public int compare(Appointment first, Appointment second) {
+        Object firstValue = sortKey.value.apply(first);
+        Object secondValue = sortKey.value.apply(second);
+        int result;
+        if(firstValue instanceof String && secondValue instanceof String) {
+            result = String.CASE_INSENSITIVE_ORDER.compare((String) firstValue, (String) secondValue);
+        } else {
+            result = compareValues(firstValue, secondValue);
+        }
+        if(result == 0) {
+            result = Integer.compare(first.getId(), second.getId());
+        }
+        return ascending ? result : -result;
+    }
+
+    /**
+     * Checks whether a loaded appointment starts within this query's range.
+     *
+     * @param appointment The appointment to check.
+     * @return true if the query would return the appointment.
+     */
+    public boolean includes(Appointment appointment) {
+        Timestamp start = appointment.getStartTimestamp();
+        return (rangeStart == null || !start.before(rangeStart)) && (rangeEnd == null || start.before(rangeEnd));
+    }
+
+    /**
+     * Fetches the first page.
+     *
+     * @param pageSize The maximum number of appointments to fetch.
+     * @return The appointments in sort order.
+     */
+    public ObservableList<Appointment> fetchFirst(int pageSize) {
+        return fetch(null, true, pageSize);
+    }
+
+    /**
+     * Fetches the page that follows the given appointment in sort order.
+     *
+     * @param last The last appointment of the previous page.
+     * @param pageSize The maximum number of appointments to fetch.
+     * @return The appointments in sort order, empty if there are no more.
+     */
+    public ObservableList<Appointment> fetchAfter(Appointment last, int pageSize) {
+        return fetch(last, true, pageSize);
+    }
+
+    /**
+     * Fetches the page that precedes the given appointment in sort order.
+     *
+     * @param first The first appointment of the following page.
+     * @param pageSize The maximum number of appointments to fetch.
+     * @return The appointments in sort order, empty if there are none before.
+     */
+    public ObservableList<Appointment> fetchBefore(Appointment first, int pageSize) {
+        return fetch(first, false, pageSize);
+    }
+
+    /**
+     * Runs one keyset query.  Pages before the anchor are read in reverse order, starting next to the anchor, and
+     * then flipped back into sort order.
+     *
+     * @param anchor The appointment to page from, or null to start at the beginning.
+     * @param forward true to read the rows after the anchor, false to read the rows before it.
+     * @param pageSize The maximum number of appointments to fetch.
+     * @return The appointments in sort order.
+     */
+    private ObservableList<Appointment> fetch(Appointment anchor, boolean forward, int pageSize) {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        boolean readAscending = ascending == forward;
+        String comparison = readAscending ? ">" : "<";
+        String direction = readAscending ? " ASC" : " DESC";
+
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder query = new StringBuilder(JDBCQuery.appointmentSelect).append("WHERE 1 = 1");
+        if(rangeStart != null) {
+            query.append(" AND appointments.Start >= ?");
+            parameters.add(rangeStart);
+        }
+        if(rangeEnd != null) {
+            query.append(" AND appointments.Start < ?");
+            parameters.add(rangeEnd);
+        }
+        if(anchor != null) {
+            Object anchorValue = sortKey.value.apply(anchor);
+            if(sortKey == SortKey.ID) {
+                query.append(" AND appointments.Appointment_ID ").append(comparison).append(" ?");
+                parameters.add(anchorValue);
+            } else {
+                query.append(" AND (").append(sortKey.expression).append(' ').append(comparison).append(" ? OR (")
+                        .append(sortKey.expression).append(" = ? AND appointments.Appointment_ID ")
+                        .append(comparison).append(" ?))");
+                parameters.add(anchorValue);
+                parameters.add(anchorValue);
+                parameters.add(anchor.getId());
+            }
+        }
+        query.append("\nORDER BY ");
+        if(sortKey != SortKey.ID) {
+            query.append(sortKey.expression).append(direction).append(", ");
+        }
+        query.append("appointments.Appointment_ID").append(direction).append("\nLIMIT ?;");
+        parameters.add(pageSize);
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            for(int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
+            }
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+
+        if(!forward) {
+            Collections.reverse(appointmentList);
+        }
+        return appointmentList;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object first, Object second) {
+        if(first == null || second == null) {
+            return first == null ? (second == null ? 0 : -1) : 1;
+        }
+        return ((Comparable<Object>) first).compareTo(second);
+    }
+
+    private static String nullToEmpty(String value) { return value == null ? "" : value; }
+}
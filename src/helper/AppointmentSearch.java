@@ -0,0 +1,175 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.mc.helper.JDBCConnector.getConnection;
+
+/**
+ * Abstract class that finds appointments by the words in their Title, Description or Location.
+ * Searches are answered from an in-memory AppointmentTextIndex, which is built in the background from one pass over
+ * the appointments and kept up to date by JDBCQuery's add, update and delete methods, then the matching appointments
+ * are read by ID.  Changes made by other schedulers are not seen by those methods, so once the index is older than
+ * maxAgeMillis it is rebuilt in the background while the current one keeps being used.  Until the index is first
+ * built, searches fall back to a LIKE query, which scans the appointments table.
+ * @author Michael Cassidy
+ */
+public abstract class AppointmentSearch {
+    private static final long maxAgeMillis = 600_000;
+    private static final int fetchSize = 1000;
+    private static final String textQuery = "SELECT Appointment_ID, Customer_ID, Title, Description, Location " +
+            "FROM appointments;";
+    private static final Object lock = new Object();
+    private static AppointmentTextIndex index;
+    private static long loadedAt;
+    private static long modificationCount;
+    private static boolean loading;
+
+    /**
+     * Finds the appointments matching a query.  See {@link AppointmentTextIndex#parseQuery(String)} for the syntax.
+     *
+     * @param query The query text.
+     * @param limit The most appointments to return.
+     * @return The most recently added matching appointments, ordered by start time; empty if the query has no words.
+     */
+    public static ObservableList<Appointment> search(String query, int limit) {
+        List<List<AppointmentTextIndex.Term>> clauses = AppointmentTextIndex.parseQuery(query);
+        if(clauses.isEmpty()) {
+            return FXCollections.observableArrayList();
+        }
+        int[] appointmentIds;
+        synchronized(lock) {
+            appointmentIds = isLoaded() ? index.search(clauses) : null;
+        }
+        if(appointmentIds == null) {
+            return JDBCQuery.searchAppointmentList(clauses, limit);
+        }
+        return JDBCQuery.getAppointmentListByIds(Arrays.copyOfRange(appointmentIds,
+                Math.max(0, appointmentIds.length - limit), appointmentIds.length));
+    }
+
+    /**
+     * Starts building the index in the background unless it is already being built, or was built less than
+     * maxAgeMillis ago.
+     */
+    public static void warmUp() {
+        synchronized(lock) {
+            if(loading || (index != null && System.currentTimeMillis() - loadedAt < maxAgeMillis)) {
+                return;
+            }
+            loading = true;
+        }
+        JDBCQueryAsync.run(AppointmentSearch::load);
+    }
+
+    /**
+     * Indexes an appointment after it has been added or updated in the database, replacing its previous version.
+     *
+     * @param appointment The saved appointment.
+     */
+    public static void put(Appointment appointment) {
+        synchronized(lock) {
+            modificationCount++;
+            if(index != null) {
+                index.put(appointment.getId(), appointment.getCustomerId(), appointment.getTitle(),
+                        appointment.getDescription(), appointment.getLocation());
+            }
+        }
+    }
+
+    /**
+     * Removes an appointment from the index after it has been deleted from the database.
+     *
+     * @param appointmentId The ID of the deleted appointment.
+     */
+    public static void remove(int appointmentId) {
+        synchronized(lock) {
+            modificationCount++;
+            if(index != null) {
+                index.remove(appointmentId);
+            }
+        }
+    }
+
+    /**
+     * Removes a customer's appointments from the index after they have been deleted from the database.
+     *
+     * @param customerId The ID of the deleted customer.
+     */
+    public static void removeByCustomerId(int customerId) {
+        synchronized(lock) {
+            modificationCount++;
+            if(index != null) {
+                index.removeByCustomerId(customerId);
+            }
+        }
+    }
+
+    /**
+     * Discards the index so that searches fall back to the database until it has been rebuilt.
+     */
+    public static void invalidate() {
+        synchronized(lock) {
+            modificationCount++;
+            index = null;
+        }
+    }
+
+    /**
+     * Checks whether the index has been built, starting a rebuild if it is missing or older than maxAgeMillis.  Must
+     * be called holding the lock.
+     *
+     * @return true if there is an index to search, even if it is being rebuilt.
+     */
+    private static boolean isLoaded() {
+        if(index == null || System.currentTimeMillis() - loadedAt >= maxAgeMillis) {
+            if(!loading) {
+                loading = true;
+                JDBCQueryAsync.run(AppointmentSearch::load);
+            }
+        }
+        return index != null;
+    }
+
+    /**
+     * Builds a new index from the database.  If the index was modified while building, the new one may have missed
+     * that change and is discarded; the next search tries again.
+     */
+    private static void load() {
+        long startModificationCount;
+        synchronized(lock) {
+            startModificationCount = modificationCount;
+        }
+
+        AppointmentTextIndex newIndex = new AppointmentTextIndex();
+        boolean loaded = false;
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(textQuery)) {
+            stmt.setFetchSize(fetchSize);
+            try(ResultSet rs = stmt.executeQuery()) {
+                while(rs.next()) {
+                    newIndex.put(rs.getInt("Appointment_ID"), rs.getInt("Customer_ID"), rs.getString("Title"),
+                            rs.getString("Description"), rs.getString("Location"));
+                }
+            }
+            loaded = true;
+        } catch(SQLException e) {
+            System.out.println(e);
+        }
+
+        synchronized(lock) {
+            if(loaded && modificationCount == startModificationCount) {
+                index = newIndex;
+                loadedAt = System.currentTimeMillis();
+            }
+            loading = false;
+        }
+    }
+}
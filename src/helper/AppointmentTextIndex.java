@@ -0,0 +1,372 @@
+package com.mc.helper;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An inverted index of the words in appointments' Title, Description and Location.
+ * Each word maps to a posting list: the sorted IDs of the appointments containing it, held in a primitive int array
+ * rather than a collection of Integers.  Words are kept in a sorted map so a prefix query reads one contiguous range
+ * of it.  The words indexed for each appointment are also recorded, so that an update or delete removes exactly
+ * the postings the previous version added.
+ * Queries are parsed by {@link #parseQuery(String)}.  Terms are ANDed by intersecting their posting lists, smallest
+ * first, and OR clauses are merged, so a query costs time in proportion to the postings it reads rather than the
+ * number of appointments.
+ * This class is not thread-safe; AppointmentSearch guards access to it.
+ * @author Michael Cassidy
+ */
+public class AppointmentTextIndex {
+    private static final int[] noPostings = new int[0];
+    private final TreeMap<String, Postings> postingsByWord = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    /**
+     * One term of a query: a word to match exactly, or a prefix that matches every word starting with it.
+     */
+    public static final class Term {
+        private final String word;
+        private final boolean prefix;
+
+        private Term(String word, boolean prefix) {
+            this.word = word;
+            this.prefix = prefix;
+        }
+
+        public String getWord() { return word; }
+
+        public boolean isPrefix() { return prefix; }
+
+        @Override
+        public String toString() { return prefix ? word + "*" : word; }
+    }
+
+    /**
+     * Adds an appointment's text to the index, replacing any text already indexed for the same ID.
+     *
+     * @param appointmentId The appointment's ID.
+     * @param customerId The appointment's customer ID, so the appointment can be removed with its customer.
+     * @param texts The appointment's Title, Description and Location; null values are skipped.
+     */
+    public void put(int appointmentId, int customerId, String... texts) {
+        remove(appointmentId);
+        Set<String> words = new LinkedHashSet<>();
+        for(String text : texts) {
+            words.addAll(tokenize(text));
+        }
+        String[] indexedWords = new String[words.size()];
+        int i = 0;
+        for(String word : words) {
+//          Share one String per word between the dictionary and the documents
+            Postings postings = postingsByWord.computeIfAbsent(word, Postings::new);
+            postings.add(appointmentId);
+            indexedWords[i++] = postings.word;
+        }
+        documents.put(appointmentId, new Document(customerId, indexedWords));
+    }
+
+    /**
+     * Removes the appointment with the given ID, if present.
+     *
+     * @param appointmentId The ID of the appointment to remove.
+     */
+    public void remove(int appointmentId) {
+        Document document = documents.remove(appointmentId);
+        if(document == null) {
+            return;
+        }
+        for(String word : document.words) {
+            Postings postings = postingsByWord.get(word);
+            postings.remove(appointmentId);
+            if(postings.size == 0) {
+                postingsByWord.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Removes every appointment of a customer.
+     *
+     * @param customerId The ID of the customer.
+     */
+    public void removeByCustomerId(int customerId) {
+        List<Integer> appointmentIds = new ArrayList<>();
+        documents.forEach((appointmentId, document) -> {
+            if(document.customerId == customerId) {
+                appointmentIds.add(appointmentId);
+            }
+        });
+        appointmentIds.forEach(this::remove);
+    }
+
+    /**
+     * Returns the number of appointments indexed.
+     *
+     * @return The number of appointments.
+     */
+    public int size() { return documents.size(); }
+
+    /**
+     * Returns the number of distinct words indexed.
+     *
+     * @return The number of words.
+     */
+    public int wordCount() { return postingsByWord.size(); }
+
+    /**
+     * Finds the appointments matching a parsed query.
+     *
+     * @param clauses The query's OR clauses, each a list of terms that must all match.
+     * @return The IDs of the matching appointments, in ascending order.
+     */
+    public int[] search(List<List<Term>> clauses) {
+        int[] matches = noPostings;
+        for(List<Term> clause : clauses) {
+            matches = union(matches, searchClause(clause));
+        }
+        return matches;
+    }
+
+    /**
+     * Splits text into the words it is indexed by: runs of letters and digits, lower-cased and with accents removed,
+     * so that accented and unaccented spellings match.
+     *
+     * @param text The text, or null.
+     * @return The words, in order of appearance and possibly repeated.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if(text == null) {
+            return words;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for(int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if(wordChar && start < 0) {
+                start = i;
+            } else if(!wordChar && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Parses a search query.  Words are ANDed; the keyword OR (upper case) separates alternative clauses, and a word
+     * ending in * matches every word starting with it.  A query word made of several indexed words, such as
+     * "follow-up", must match all of them.
+     *
+     * @param query The query text.
+     * @return The OR clauses, each a non-empty list of terms; empty if the query has no words.
+     */
+    public static List<List<Term>> parseQuery(String query) {
+        List<List<Term>> clauses = new ArrayList<>();
+        List<Term> clause = new ArrayList<>();
+        for(String queryWord : query.trim().split("\\s+")) {
+            if(queryWord.equals("OR")) {
+                if(!clause.isEmpty()) {
+                    clauses.add(clause);
+                    clause = new ArrayList<>();
+                }
+                continue;
+            }
+            List<String> words = tokenize(queryWord);
+            for(int i = 0; i < words.size(); i++) {
+                boolean prefix = i == words.size() - 1 && queryWord.endsWith("*");
+                clause.add(new Term(words.get(i), prefix));
+            }
+        }
+        if(!clause.isEmpty()) {
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    /**
+     * Finds the appointments matching every term of a clause.  Only the term with the fewest postings is read in
+     * full; the candidates it yields are then narrowed by binary searching the posting list of each remaining word,
+     * or, for a remaining prefix, by checking the words indexed for each candidate, so a short prefix such as "a*"
+     * costs nothing when ANDed with a rarer word.
+     */
+    private int[] searchClause(List<Term> clause) {
+        List<Term> terms = new ArrayList<>(clause);
+        Map<Term, Long> estimates = new HashMap<>();
+        for(Term term : terms) {
+            long estimate = term.prefix ? prefixRange(term.word).values().stream().mapToLong(postings -> postings.size)
+                    .sum() : postingsSize(term.word);
+            if(estimate == 0) {
+                return noPostings;
+            }
+            estimates.put(term, estimate);
+        }
+        terms.sort((a, b) -> Long.compare(estimates.get(a), estimates.get(b)));
+
+        Term first = terms.get(0);
+        int[] matches = first.prefix ? prefixMatches(first.word) : exactMatches(first.word);
+        int size = matches.length;
+        for(int i = 1; i < terms.size() && size > 0; i++) {
+            Term term = terms.get(i);
+            int matchingSize = 0;
+            if(term.prefix) {
+                for(int j = 0; j < size; j++) {
+                    if(documents.get(matches[j]).hasWordStartingWith(term.word)) {
+                        matches[matchingSize++] = matches[j];
+                    }
+                }
+            } else {
+                Postings postings = postingsByWord.get(term.word);
+                int from = 0;
+                for(int j = 0; j < size; j++) {
+                    int position = Arrays.binarySearch(postings.ids, from, postings.size, matches[j]);
+                    if(position >= 0) {
+                        matches[matchingSize++] = matches[j];
+                        from = position + 1;
+                    } else {
+                        from = -position - 1;
+                    }
+                }
+            }
+            size = matchingSize;
+        }
+        return size == matches.length ? matches : Arrays.copyOf(matches, size);
+    }
+
+    private int postingsSize(String word) {
+        Postings postings = postingsByWord.get(word);
+        return postings == null ? 0 : postings.size;
+    }
+
+    private NavigableMap<String, Postings> prefixRange(String prefix) {
+        return postingsByWord.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+    }
+
+    private int[] exactMatches(String word) {
+        Postings postings = postingsByWord.get(word);
+        return postings == null ? noPostings : Arrays.copyOf(postings.ids, postings.size);
+    }
+
+    /**
+     * Unions the posting lists of every word starting with a prefix.  Several lists are combined in a BitSet, which
+     * costs one pass over the postings however many words share the prefix.
+     */
+    private int[] prefixMatches(String prefix) {
+        NavigableMap<String, Postings> range = prefixRange(prefix);
+        if(range.size() <= 1) {
+            return range.isEmpty() ? noPostings : exactMatches(range.firstKey());
+        }
+        BitSet ids = new BitSet();
+        for(Postings postings : range.values()) {
+            for(int i = 0; i < postings.size; i++) {
+                ids.set(postings.ids[i]);
+            }
+        }
+        return ids.stream().toArray();
+    }
+
+    /**
+     * Merges two sorted arrays of IDs, dropping duplicates.
+     */
+    private static int[] union(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while(i < a.length || j < b.length) {
+            int next;
+            if(j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if(i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            merged[size++] = next;
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * Lower-cases text and, if it has any non-ASCII characters, strips their accents.
+     */
+    private static String fold(String text) {
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        for(int i = 0; i < lowerCase.length(); i++) {
+            if(lowerCase.charAt(i) > 127) {
+                return Normalizer.normalize(lowerCase, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+        }
+        return lowerCase;
+    }
+
+    /**
+     * The sorted IDs of the appointments containing a word.  IDs are usually added in ascending order, as new
+     * appointments are, so adding one is normally an append.
+     */
+    private static final class Postings {
+        private final String word;
+        private int[] ids = new int[2];
+        private int size;
+
+        private Postings(String word) { this.word = word; }
+
+        void add(int id) {
+            int position = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if(position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if(size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if(position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            if(size > 8 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+            }
+        }
+    }
+
+    /**
+     * The customer and words an appointment was indexed with.
+     */
+    private static final class Document {
+        private final int customerId;
+        private final String[] words;
+
+        private Document(int customerId, String[] words) {
+            this.customerId = customerId;
+            this.words = words;
+        }
+
+        boolean hasWordStartingWith(String prefix) {
+            for(String word : words) {
+                if(word.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
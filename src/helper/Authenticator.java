@@ -0,0 +1,147 @@
+package com.mc.helper;
+
+import com.mc.model.CurrentUser;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.mc.helper.JDBCConnector.getConnection;
+
+/**
+ * Abstract class containing static methods for logging users in and recording how long logins take.
+ * A login reads the user's ID and password hash in a single lookup on the unique User_Name index, then verifies the
+ * password with PasswordHasher.  The index's collation ignores case and accents, so the name found must also equal
+ * the name entered exactly, as user names are case-sensitive.  Legacy plaintext passwords are replaced with a hash
+ * the first time they are used.
+ * Verification is deliberately slow, so authenticate must be called off the JavaFX Application Thread.
+ * @author Michael Cassidy
+ */
+public abstract class Authenticator {
+    private static final String credentialQuery = "SELECT User_ID, User_Name, Password FROM users " +
+            "WHERE User_Name = ?";
+    private static final String updatePasswordQuery = "UPDATE users SET Password = ?, Last_Update = ?, " +
+            "Last_Updated_By = ? WHERE User_ID = ?";
+    private static final String unknownUserHash = PasswordHasher.hash(new char[0]);
+    private static final LongAdder loginCount = new LongAdder();
+    private static final LongAdder successCount = new LongAdder();
+    private static final LongAdder totalNanos = new LongAdder();
+    private static final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Checks a user name and password.  An unknown user name takes as long to reject as a wrong password, so the
+     * time taken does not reveal which user names exist.
+     *
+     * @param userName The user name entered.
+     * @param password The password entered.  The array is cleared before returning.
+     * @return The logged-in user, or null if the user name or password is wrong or the database cannot be reached.
+     */
+    public static CurrentUser authenticate(String userName, char[] password) {
+        long startNanos = System.nanoTime();
+        CurrentUser currentUser = null;
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(credentialQuery)) {
+            stmt.setString(1, userName);
+            try(ResultSet rs = stmt.executeQuery()) {
+                String storedName = rs.next() ? rs.getString("User_Name") : null;
+                if(storedName != null && storedName.equals(userName)) {
+                    int userId = rs.getInt("User_ID");
+                    String stored = rs.getString("Password");
+                    if(PasswordHasher.verify(password, stored)) {
+                        if(PasswordHasher.needsRehash(stored)) {
+                            updatePassword(connection, userId, storedName, PasswordHasher.hash(password));
+                        }
+                        currentUser = new CurrentUser(userId, storedName);
+                    }
+                } else {
+                    PasswordHasher.verify(password, unknownUserHash);
+                }
+            }
+        } catch(SQLException e) {
+            System.out.println(e);
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        loginCount.increment();
+        if(currentUser != null) {
+            successCount.increment();
+        }
+        totalNanos.add(elapsedNanos);
+        maxNanos.accumulate(elapsedNanos);
+        return currentUser;
+    }
+
+    /**
+     * Replaces a user's stored password with a new hash.
+     *
+     * @param connection The connection to update through.
+     * @param userId The ID of the user.
+     * @param userName The name of the user, recorded as the updater.
+     * @param hash The new password hash.
+     * @throws SQLException If the update fails.
+     */
+    private static void updatePassword(Connection connection, int userId, String userName, String hash)
+            throws SQLException {
+        try(PreparedStatement stmt = connection.prepareStatement(updatePasswordQuery)) {
+            Timestamp now = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
+            stmt.setString(1, hash);
+            stmt.setTimestamp(2, now);
+            stmt.setString(3, userName);
+            stmt.setInt(4, userId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the number of login attempts since the application started.
+     *
+     * @return The number of attempts.
+     */
+    public static long getLoginCount() { return loginCount.sum(); }
+
+    /**
+     * Returns the number of successful logins since the application started.
+     *
+     * @return The number of successful logins.
+     */
+    public static long getSuccessCount() { return successCount.sum(); }
+
+    /**
+     * Returns the average time taken by a login attempt, including the lookup and password verification.
+     *
+     * @return The average latency in milliseconds, or 0 if there have been no attempts.
+     */
+    public static double getAverageLatencyMillis() {
+        long logins = getLoginCount();
+        return logins == 0 ? 0 : totalNanos.sum() / (double) logins / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the longest time taken by a login attempt.
+     *
+     * @return The maximum latency in milliseconds.
+     */
+    public static double getMaxLatencyMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Summarises the login metrics for logging.
+     *
+     * @return A one-line summary of attempts, successes and latency.
+     */
+    public static String getStatistics() {
+        return String.format("Authenticator[logins=%d, successful=%d, avgLatency=%.1f ms, maxLatency=%.1f ms]",
+                getLoginCount(), getSuccessCount(), getAverageLatencyMillis(), getMaxLatencyMillis());
+    }
+}
@@ -0,0 +1,348 @@
+package com.mc.helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of MySQL connections shared by every query in the application.
+ * Connections are validated when borrowed, idle connections above the minimum size are evicted after a timeout,
+ * and connections held longer than the leak threshold are reported along with the stack that borrowed them.
+ * Calling close() on a borrowed connection returns it to the pool instead of closing the physical connection.
+ * @author Michael Cassidy
+ */
+public class ConnectionPool {
+    private static final int validationTimeoutSeconds = 2;
+    private static final long housekeepingIntervalMillis = 30_000;
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledEntry> idleEntries = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> borrowedEntries = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowNanos = new LongAdder();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool and opens the minimum number of connections.
+     *
+     * @param jdbcUrl The JDBC URL of the database.
+     * @param userName The database user name.
+     * @param password The database password.
+     * @param minSize The number of connections kept open while idle.
+     * @param maxSize The maximum number of connections open at once.
+     * @param borrowTimeoutMillis How long a caller waits for a free connection before failing.
+     * @param idleTimeoutMillis How long a connection above the minimum size may sit idle before it is closed.
+     * @param leakThresholdMillis How long a connection may be held before it is reported as a possible leak.
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        fillToMinimum();
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingIntervalMillis, housekeepingIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a validated connection from the pool, opening a new one if none are idle.
+     * The returned connection must be closed by the caller (ideally with try-with-resources) to return it.
+     *
+     * @return A connection that returns itself to the pool when closed.
+     * @throws SQLException If the pool is closed, no connection becomes free in time, or a new connection fails.
+     */
+    public Connection getConnection() throws SQLException {
+        if(closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long borrowStart = System.nanoTime();
+        try {
+            if(!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a connection");
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while((entry = idleEntries.pollFirst()) != null) {
+                if(isValid(entry)) {
+                    break;
+                }
+                closeQuietly(entry);
+                evictedCount.increment();
+            }
+            if(entry == null) {
+                entry = createEntry();
+            }
+
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrowStack = new Throwable("Connection borrowed by thread " + Thread.currentThread().getName());
+            entry.leakReported = false;
+            borrowedEntries.add(entry);
+            recordBorrow(System.nanoTime() - borrowStart);
+            return entry.newHandle();
+        } catch(SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeping thread.  Borrowed connections are closed as they are
+     * returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while((entry = idleEntries.pollFirst()) != null) {
+            closeQuietly(entry);
+        }
+    }
+
+    public int getActiveCount() { return borrowedEntries.size(); }
+
+    public int getIdleCount() { return idleEntries.size(); }
+
+    public long getBorrowCount() { return borrowCount.sum(); }
+
+    public long getCreatedCount() { return createdCount.sum(); }
+
+    public long getEvictedCount() { return evictedCount.sum(); }
+
+    public long getLeakCount() { return leakCount.sum(); }
+
+    /**
+     * Returns the mean time callers waited to borrow a connection, including validation and connection creation.
+     *
+     * @return The average borrow latency in milliseconds.
+     */
+    public double getAverageBorrowMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : borrowNanos.sum() / (double) count / 1_000_000;
+    }
+
+    /**
+     * Returns the longest time a caller waited to borrow a connection.
+     *
+     * @return The maximum borrow latency in milliseconds.
+     */
+    public double getMaxBorrowMillis() { return maxBorrowNanos.get() / 1_000_000.0; }
+
+    /**
+     * Returns a one-line summary of the pool's size and borrow metrics.
+     *
+     * @return The pool statistics.
+     */
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, max=%d, borrowed=%d, created=%d, evicted=%d, " +
+                        "leaks=%d, avgBorrow=%.3f ms, maxBorrow=%.3f ms]", getActiveCount(), getIdleCount(), maxSize,
+                getBorrowCount(), getCreatedCount(), getEvictedCount(), getLeakCount(), getAverageBorrowMillis(),
+                getMaxBorrowMillis());
+    }
+
+    /**
+     * Returns a borrowed connection to the pool.  Connections left outside auto-commit mode are rolled back first so
+     * that the next borrower never inherits an open transaction.
+     *
+     * @param entry The pooled connection being returned.
+     */
+    private void release(PooledEntry entry) {
+        borrowedEntries.remove(entry);
+        try {
+            if(closed || entry.connection.isClosed()) {
+                closeQuietly(entry);
+                return;
+            }
+            if(!entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            idleEntries.offerFirst(entry);
+        } catch(SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+            closeQuietly(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Evicts connections that have been idle too long, reports possible leaks and tops the pool back up to its
+     * minimum size.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+//      Idle connections are offered to the head of the deque, so the least recently used ones sit at the tail
+        PooledEntry entry;
+        while(idleEntries.size() > minSize && (entry = idleEntries.peekLast()) != null &&
+                now - entry.lastUsed > idleTimeoutMillis) {
+            if(idleEntries.removeLastOccurrence(entry)) {
+                closeQuietly(entry);
+                evictedCount.increment();
+            }
+        }
+
+        for(PooledEntry borrowed : borrowedEntries) {
+            if(!borrowed.leakReported && now - borrowed.borrowedAt > leakThresholdMillis) {
+                borrowed.leakReported = true;
+                leakCount.increment();
+                System.out.println("Possible connection leak: connection held for " + (now - borrowed.borrowedAt) +
+                        " ms");
+                borrowed.borrowStack.printStackTrace(System.out);
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    /**
+     * Opens connections until the pool holds at least its minimum size.
+     */
+    private void fillToMinimum() {
+        while(!closed && idleEntries.size() + borrowedEntries.size() < minSize) {
+            try {
+                idleEntries.offerLast(createEntry());
+            } catch(SQLException e) {
+                System.out.println("Error: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks that an idle connection is still usable before it is handed out.
+     *
+     * @param entry The pooled connection to check.
+     * @return true if the connection responded within the validation timeout, false otherwise.
+     */
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.connection.isValid(validationTimeoutSeconds);
+        } catch(SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry createEntry() throws SQLException {
+        PooledEntry entry = new PooledEntry(DriverManager.getConnection(jdbcUrl, userName, password));
+        createdCount.increment();
+        return entry;
+    }
+
+    private void recordBorrow(long nanos) {
+        borrowCount.increment();
+        borrowNanos.add(nanos);
+        maxBorrowNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closeQuietly(PooledEntry entry) {
+        try {
+            entry.connection.close();
+        } catch(SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A physical connection and the bookkeeping the pool keeps about it.
+     */
+    private final class PooledEntry {
+        private final Connection connection;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+
+        private PooledEntry(Connection connection) { this.connection = connection; }
+
+        /**
+         * Creates the handle given to a borrower.  Each borrow gets its own handle so that a caller who keeps a
+         * reference after closing it cannot use a connection that now belongs to someone else.
+         *
+         * @return A proxy Connection that returns this entry to the pool when closed.
+         */
+        private Connection newHandle() {
+            AtomicBoolean handleClosed = new AtomicBoolean(false);
+            InvocationHandler handler = (proxy, method, args) -> {
+                switch(method.getName()) {
+                    case "close" -> {
+                        if(handleClosed.compareAndSet(false, true)) {
+                            release(this);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return handleClosed.get() || connection.isClosed();
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    case "toString" -> {
+                        return "Pooled" + connection;
+                    }
+                    default -> {
+                        if(handleClosed.get()) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch(InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, handler);
+        }
+    }
+}
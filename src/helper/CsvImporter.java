@@ -0,0 +1,448 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import com.mc.model.Customer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports appointments or customers from CSV files through a bounded pipeline:
+ * parse (calling thread) -> validate and resolve IDs (one worker per core) -> check overlaps and batch insert (a single
+ * writer thread).
+ * Rows are handled in chunks.  At most a fixed number of chunks are in flight at once, so the file is streamed in
+ * constant memory and parsing waits when validation or the database falls behind.  Chunks are written in file order.
+ * Rows are checked with the same rules as the add screens: required fields, 8:00 AM-10:00 PM EST business hours, the
+ * maximum appointment length, start times in the future and no overlapping appointments (including other rows of the
+ * same file).  Rows that fail are skipped and reported with their line number; the rest are imported.
+ *
+ * Appointment files need the columns Title, Description, Location, Type, Start, End, Customer_ID, Contact and User;
+ * customer files need Customer_Name, Address, Postal_Code, Phone, Country and Division.  Column names are matched
+ * ignoring case and order.  Start and End are in the importing user's time zone, formatted as yyyy-MM-dd HH:mm.
+ * @author Michael Cassidy
+ */
+public class CsvImporter {
+    private static final int chunkSize = 1000;
+    private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final List<String> appointmentColumns = List.of("Title", "Description", "Location", "Type",
+            "Start", "End", "Customer_ID", "Contact", "User");
+    private static final List<String> customerColumns = List.of("Customer_Name", "Address", "Postal_Code", "Phone",
+            "Country", "Division");
+
+    private final String importedBy;
+    private final ProgressListener progressListener;
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Receives progress updates after each chunk is written.  Called on the import's writer thread.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(int rowsRead, int rowsImported, int rowsRejected);
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param importedBy The user name recorded as creator of the imported rows.
+     * @param progressListener Receives progress after each chunk, or null for none.
+     */
+    public CsvImporter(String importedBy, ProgressListener progressListener) {
+        this.importedBy = importedBy;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Imports appointments from a CSV file.  Runs on the calling thread until the import is complete.
+     *
+     * @param path The CSV file.
+     * @return The import report.
+     * @throws IOException If the file cannot be read or lacks a required column.
+     */
+    public ImportReport importAppointments(Path path) throws IOException {
+        Set<Integer> customerIds = new HashSet<>(JDBCQuery.getCustomerIdList());
+        Timestamp created = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
+        AppointmentOverlapIndex.loadNow();
+
+        return run(path, appointmentColumns, row -> parseAppointment(row, customerIds, created),
+                this::writeAppointments);
+    }
+
+    /**
+     * Imports customers from a CSV file.  Runs on the calling thread until the import is complete.
+     *
+     * @param path The CSV file.
+     * @return The import report.
+     * @throws IOException If the file cannot be read or lacks a required column.
+     */
+    public ImportReport importCustomers(Path path) throws IOException {
+        Timestamp created = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
+
+        return run(path, customerColumns, row -> parseCustomer(row, created), (chunk, errors) -> {
+            List<Customer> customers = new ArrayList<>(chunk.size());
+            chunk.forEach(line -> customers.add(line.value));
+            return reportUnsaved(chunk, JDBCQuery.addCustomers(customers), errors);
+        });
+    }
+
+    /**
+     * Runs the pipeline over a file.
+     *
+     * @param path The CSV file.
+     * @param requiredColumns The columns the header must contain.
+     * @param parser Validates one row and builds the object to insert.
+     * @param writer Inserts one chunk of valid rows and returns how many were saved.
+     * @param <T> The type of object imported.
+     * @return The import report.
+     * @throws IOException If the file cannot be read or lacks a required column.
+     */
+    private <T> ImportReport run(Path path, List<String> requiredColumns, RowParser<T> parser, ChunkWriter<T> writer)
+            throws IOException {
+        long startMillis = System.currentTimeMillis();
+        AtomicInteger rowsRead = new AtomicInteger();
+        AtomicInteger rowsImported = new AtomicInteger();
+        List<ImportReport.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService validators = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "csv-import-validator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<CompletableFuture<ParsedChunk<T>>> chunks = new ArrayBlockingQueue<>(parallelism * 2);
+        CompletableFuture<ParsedChunk<T>> endOfFile = CompletableFuture.completedFuture(null);
+
+        Thread writerThread = new Thread(() -> {
+            while(true) {
+                CompletableFuture<ParsedChunk<T>> future;
+                try {
+                    future = chunks.take();
+                } catch(InterruptedException e) {
+                    return;
+                }
+                if(future == endOfFile) {
+                    return;
+                }
+                ParsedChunk<T> chunk = future.join();
+                errors.addAll(chunk.errors);
+                if(!chunk.rows.isEmpty()) {
+                    try {
+                        rowsImported.addAndGet(writer.write(chunk.rows, errors));
+                    } catch(RuntimeException e) {
+                        reportUnsaved(chunk.rows, 0, errors);
+                    }
+                }
+                if(progressListener != null) {
+                    progressListener.onProgress(rowsRead.get(), rowsImported.get(), errors.size());
+                }
+            }
+        }, "csv-import-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        try(CsvReader reader = new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columnIndexes = readHeader(reader, requiredColumns);
+            List<CsvRow> rows = new ArrayList<>(chunkSize);
+            List<String> fields;
+            while((fields = reader.readRecord()) != null) {
+                rows.add(new CsvRow(reader.getRecordLineNumber(), fields, columnIndexes));
+                rowsRead.incrementAndGet();
+                if(rows.size() == chunkSize) {
+                    submit(rows, parser, validators, chunks);
+                    rows = new ArrayList<>(chunkSize);
+                }
+            }
+            if(!rows.isEmpty()) {
+                submit(rows, parser, validators, chunks);
+            }
+        } finally {
+            try {
+                chunks.put(endOfFile);
+                writerThread.join();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            validators.shutdown();
+        }
+
+        List<ImportReport.RowError> sortedErrors = new ArrayList<>(errors);
+        sortedErrors.sort((a, b) -> Integer.compare(a.getLineNumber(), b.getLineNumber()));
+        ImportReport report = new ImportReport(rowsRead.get(), rowsImported.get(), sortedErrors,
+                System.currentTimeMillis() - startMillis);
+        return report;
+    }
+
+    /**
+     * Hands a chunk of rows to the validators, waiting if too many chunks are already in flight.  If validating the
+     * chunk fails unexpectedly, every row of it is reported as rejected, so the report still accounts for each row.
+     */
+    private <T> void submit(List<CsvRow> rows, RowParser<T> parser, ExecutorService validators,
+                            BlockingQueue<CompletableFuture<ParsedChunk<T>>> chunks) throws IOException {
+        try {
+            chunks.put(CompletableFuture.supplyAsync(() -> parseChunk(rows, parser), validators)
+                    .exceptionally(e -> failedChunk(rows, e)));
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        }
+    }
+
+    private static <T> ParsedChunk<T> parseChunk(List<CsvRow> rows, RowParser<T> parser) {
+        ParsedChunk<T> chunk = new ParsedChunk<>();
+        for(CsvRow row : rows) {
+            try {
+                chunk.rows.add(new ParsedRow<>(row.lineNumber, parser.parse(row)));
+            } catch(RowException e) {
+                chunk.errors.add(new ImportReport.RowError(row.lineNumber, e.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    private static <T> ParsedChunk<T> failedChunk(List<CsvRow> rows, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        ParsedChunk<T> chunk = new ParsedChunk<>();
+        for(CsvRow row : rows) {
+            chunk.errors.add(new ImportReport.RowError(row.lineNumber, "Row could not be validated: " + cause));
+        }
+        return chunk;
+    }
+
+    private static Map<String, Integer> readHeader(CsvReader reader, List<String> requiredColumns)
+            throws IOException {
+        List<String> header = reader.readRecord();
+        if(header == null) {
+            throw new IOException("The file is empty");
+        }
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for(int i = 0; i < header.size(); i++) {
+            columnIndexes.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for(String column : requiredColumns) {
+            if(!columnIndexes.containsKey(column.toLowerCase(Locale.ROOT))) {
+                throw new IOException("Missing column: " + column);
+            }
+        }
+        return columnIndexes;
+    }
+
+    private Appointment parseAppointment(CsvRow row, Set<Integer> customerIds, Timestamp created)
+            throws RowException {
+        String title = row.require("Title");
+        String description = row.require("Description");
+        String location = row.require("Location");
+        String type = row.require("Type");
+        Timestamp start = parseTimestamp(row, "Start");
+        Timestamp end = parseTimestamp(row, "End");
+        int customerId = parseInt(row, "Customer_ID");
+
+        int contactId = ReferenceDataCache.getContactId(row.require("Contact"));
+        if(contactId == -1) {
+            throw new RowException("Unknown contact: " + row.get("Contact"));
+        }
+        int userId = ReferenceDataCache.getUserId(row.require("User"));
+        if(userId == -1) {
+            throw new RowException("Unknown user: " + row.get("User"));
+        }
+        if(!customerIds.contains(customerId)) {
+            throw new RowException("Unknown customer ID: " + customerId);
+        }
+
+        long minutes = (end.getTime() - start.getTime()) / 60_000;
+        if(minutes <= 0) {
+            throw new RowException("End must be after Start");
+        }
+        if(minutes > TimeUtils.maxAppointmentMinutes) {
+            throw new RowException("Appointment is longer than " + TimeUtils.maxAppointmentMinutes + " minutes");
+        }
+        if(!TimeUtils.isWithinBusinessHours(start, end)) {
+            throw new RowException("Outside business hours (8:00 AM-10:00 PM EST)");
+        }
+        if(start.before(created)) {
+            throw new RowException("Start is in the past");
+        }
+
+        Appointment appointment = new Appointment(title, description, location, type, start, end, created,
+                importedBy, created, importedBy, customerId, userId, contactId);
+        appointment.setContactName(row.get("Contact"));
+        return appointment;
+    }
+
+    private Customer parseCustomer(CsvRow row, Timestamp created) throws RowException {
+        String name = row.require("Customer_Name");
+        String address = row.require("Address");
+        String postalCode = row.require("Postal_Code");
+        String phone = row.require("Phone");
+        String country = row.require("Country");
+        String division = row.require("Division");
+
+        int countryId = ReferenceDataCache.getCountryId(country);
+        if(countryId == -1) {
+            throw new RowException("Unknown country: " + country);
+        }
+        if(!ReferenceDataCache.getDivisionNames(countryId).contains(division)) {
+            throw new RowException("Unknown division for " + country + ": " + division);
+        }
+        return new Customer(name, address, postalCode, phone, created, importedBy, created, importedBy,
+                ReferenceDataCache.getDivisionId(division));
+    }
+
+    /**
+     * Rejects rows that overlap an existing appointment or an earlier row of the same chunk, then inserts the rest.
+     * Rows of earlier chunks are already in the overlap index once inserted.
+     */
+    private int writeAppointments(List<ParsedRow<Appointment>> chunk, List<ImportReport.RowError> errors) {
+        AppointmentIntervalTree pending = new AppointmentIntervalTree();
+        Map<Integer, Integer> pendingLineNumbers = new HashMap<>();
+        List<ParsedRow<Appointment>> accepted = new ArrayList<>(chunk.size());
+        int temporaryId = 0;
+
+        for(ParsedRow<Appointment> row : chunk) {
+            Appointment appointment = row.value;
+            Appointment overlapping = AppointmentOverlapIndex.findFirstOverlapping(appointment.getStartTimestamp(),
+                    appointment.getEndTimestamp(), 0);
+            if(overlapping != null) {
+                errors.add(new ImportReport.RowError(row.lineNumber,
+                        "Overlaps appointment #" + overlapping.getId()));
+                continue;
+            }
+            overlapping = pending.findFirstOverlapping(appointment.getStartTimestamp().getTime(),
+                    appointment.getEndTimestamp().getTime(), 0);
+            if(overlapping != null) {
+                errors.add(new ImportReport.RowError(row.lineNumber,
+                        "Overlaps the appointment on line " + pendingLineNumbers.get(overlapping.getId())));
+                continue;
+            }
+
+//          Negative IDs keep pending rows distinct until the database assigns the real ones
+            appointment.setId(--temporaryId);
+            pending.put(appointment);
+            pendingLineNumbers.put(temporaryId, row.lineNumber);
+            accepted.add(row);
+        }
+
+        List<Appointment> appointments = new ArrayList<>(accepted.size());
+        accepted.forEach(row -> appointments.add(row.value));
+        return reportUnsaved(accepted, JDBCQuery.addAppointments(appointments), errors);
+    }
+
+    /**
+     * Reports the rows of a chunk after the first saved ones as errors.  The batch methods stop at the first failed
+     * chunk, so the saved rows are always a prefix.
+     */
+    private static <T> int reportUnsaved(List<ParsedRow<T>> rows, int saved, List<ImportReport.RowError> errors) {
+        for(int i = saved; i < rows.size(); i++) {
+            errors.add(new ImportReport.RowError(rows.get(i).lineNumber, "Not saved: database error"));
+        }
+        return saved;
+    }
+
+    private static Timestamp parseTimestamp(CsvRow row, String column) throws RowException {
+        String value = row.require(column);
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(value, dateTimeFormatter);
+            return TimeUtils.convertToUtcTimestamp(dateTime.toLocalDate(), dateTime.toLocalTime());
+        } catch(DateTimeParseException e) {
+            throw new RowException(column + " is not a yyyy-MM-dd HH:mm date and time: " + value);
+        }
+    }
+
+    private static int parseInt(CsvRow row, String column) throws RowException {
+        String value = row.require(column);
+        try {
+            return Integer.parseInt(value);
+        } catch(NumberFormatException e) {
+            throw new RowException(column + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Validates one CSV row and builds the object to insert.
+     */
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(CsvRow row) throws RowException;
+    }
+
+    /**
+     * Inserts one chunk of valid rows, adding an error for each row that is not saved.
+     */
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        int write(List<ParsedRow<T>> rows, List<ImportReport.RowError> errors);
+    }
+
+    /**
+     * Thrown by a RowParser when a row breaks a rule; the message is reported for that row.
+     */
+    private static final class RowException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private RowException(String message) { super(message); }
+    }
+
+    /**
+     * One record of the file with its header-based column lookup.
+     */
+    private static final class CsvRow {
+        private final int lineNumber;
+        private final List<String> fields;
+        private final Map<String, Integer> columnIndexes;
+
+        private CsvRow(int lineNumber, List<String> fields, Map<String, Integer> columnIndexes) {
+            this.lineNumber = lineNumber;
+            this.fields = fields;
+            this.columnIndexes = columnIndexes;
+        }
+
+        private String get(String column) {
+            int index = columnIndexes.get(column.toLowerCase(Locale.ROOT));
+            return index < fields.size() ? fields.get(index).trim() : "";
+        }
+
+        private String require(String column) throws RowException {
+            String value = get(column);
+            if(value.isEmpty()) {
+                throw new RowException(column + " cannot be empty");
+            }
+            return value;
+        }
+    }
+
+    private static final class ParsedRow<T> {
+        private final int lineNumber;
+        private final T value;
+
+        private ParsedRow(int lineNumber, T value) {
+            this.lineNumber = lineNumber;
+            this.value = value;
+        }
+    }
+
+    private static final class ParsedChunk<T> {
+        private final List<ParsedRow<T>> rows = new ArrayList<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+    }
+}
@@ -0,0 +1,99 @@
+package com.mc.helper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams records from CSV text one at a time, so files of any size can be read in constant memory.
+ * Fields are separated by commas and may be enclosed in double quotes, in which case they may contain commas, line
+ * breaks and doubled quotes ("") standing for a single quote.  Blank lines are skipped.
+ * @author Michael Cassidy
+ */
+public class CsvReader implements Closeable {
+    private final BufferedReader reader;
+    private int lineNumber;
+    private int recordLineNumber;
+
+    /**
+     * Creates a reader over CSV text.
+     *
+     * @param reader The source of the text.  It is buffered if it is not already.
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The record's fields, or null at the end of the text.
+     * @throws IOException If the text cannot be read or a quoted field is never closed.
+     */
+    public List<String> readRecord() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if(line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while(line.isBlank());
+        recordLineNumber = lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while(true) {
+            if(i == line.length()) {
+                if(!quoted) {
+                    break;
+                }
+//              A quoted field continues onto the next line
+                line = reader.readLine();
+                if(line == null) {
+                    throw new IOException("Unclosed quoted field starting on line " + recordLineNumber);
+                }
+                lineNumber++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+
+            char c = line.charAt(i++);
+            if(quoted) {
+                if(c != '"') {
+                    field.append(c);
+                } else if(i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if(c == '"') {
+                quoted = true;
+            } else if(c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Returns the line number, starting at 1, on which the record last read began.
+     *
+     * @return The record's first line number.
+     */
+    public int getRecordLineNumber() { return recordLineNumber; }
+
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
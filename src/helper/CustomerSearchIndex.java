@@ -0,0 +1,210 @@
+package com.mc.helper;
+
+import com.mc.model.Customer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Read-only prefix index of customers by the words in their name, phone number, postal code and address, for
+ * type-ahead search.
+ * Words are normalised as AppointmentTextIndex does, and a phone number is also indexed as its digits alone so that
+ * it can be typed with or without separators.  The distinct words are held in one sorted array, and the customers
+ * containing each word in one shared array of row numbers, so a prefix query binary searches for the range of words
+ * starting with it and unions their rows in a BitSet.
+ * Results are views onto the index's customer array: only the rows a caller reads, such as those a table shows, are
+ * looked up.  Results in another order than ID are read from the row numbers sorted in that order, which are sorted
+ * once and kept for the most recent order, so typing does not re-sort the matches on every key.
+ * The customers are never modified once indexed, so the index can be searched from any thread.
+ * @author Michael Cassidy
+ */
+public class CustomerSearchIndex {
+    private final Customer[] customers;
+    private final String[] words;
+    private final int[] rowStarts;
+    private final int[] rows;
+    private volatile SortedRows sortedRows;
+
+    /**
+     * Builds the index.
+     *
+     * @param customers The customers to index.  Rows are numbered in order of customer ID.
+     */
+    public CustomerSearchIndex(Collection<Customer> customers) {
+        this.customers = customers.toArray(new Customer[0]);
+        Arrays.sort(this.customers, Comparator.comparingInt(Customer::getId));
+
+        Map<String, int[]> rowsByWord = new HashMap<>();
+        for(int row = 0; row < this.customers.length; row++) {
+            Customer customer = this.customers[row];
+            List<String> customerWords = AppointmentTextIndex.tokenize(String.join(" ",
+                    String.valueOf(customer.getName()), String.valueOf(customer.getPhone()),
+                    String.valueOf(customer.getPostalCode()), String.valueOf(customer.getAddress())));
+            String phoneDigits = digitsOf(customer.getPhone());
+            if(!phoneDigits.isEmpty()) {
+                customerWords.add(phoneDigits);
+            }
+            for(String word : customerWords) {
+                int[] wordRows = rowsByWord.computeIfAbsent(word, key -> new int[] {0, 0, 0, 0});
+//              wordRows[0] holds the count; skip repeats of a word within one customer
+                if(wordRows[0] > 0 && wordRows[wordRows[0]] == row) {
+                    continue;
+                }
+                if(wordRows[0] + 1 == wordRows.length) {
+                    wordRows = Arrays.copyOf(wordRows, wordRows.length * 2);
+                    rowsByWord.put(word, wordRows);
+                }
+                wordRows[++wordRows[0]] = row;
+            }
+        }
+
+        words = rowsByWord.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        rowStarts = new int[words.length + 1];
+        for(int i = 0; i < words.length; i++) {
+            rowStarts[i + 1] = rowStarts[i] + rowsByWord.get(words[i])[0];
+        }
+        rows = new int[rowStarts[words.length]];
+        for(int i = 0; i < words.length; i++) {
+            int[] wordRows = rowsByWord.get(words[i]);
+            System.arraycopy(wordRows, 1, rows, rowStarts[i], wordRows[0]);
+        }
+    }
+
+    /**
+     * Returns the number of customers indexed.
+     *
+     * @return The number of customers.
+     */
+    public int size() { return customers.length; }
+
+    /**
+     * Finds the customers with a word starting with each word of a query.
+     *
+     * @param query The query text; every word in it must match.
+     * @param order The order to return the customers in, or null for order of ID.  Pass the same comparator instance
+     *              while the order is unchanged, so that its sorted rows are reused.
+     * @return A read-only view of the matching customers, or of every customer if the query has no words.
+     */
+    public List<Customer> search(String query, Comparator<Customer> order) {
+        List<String> queryWords = AppointmentTextIndex.tokenize(query);
+        BitSet matching = null;
+        for(String queryWord : queryWords) {
+            BitSet wordMatches = prefixMatches(queryWord);
+            if(matching == null) {
+                matching = wordMatches;
+            } else {
+                matching.and(wordMatches);
+            }
+        }
+
+        int[] orderedRows = order == null ? null : getSortedRows(order);
+        if(orderedRows == null) {
+            if(matching == null) {
+                int[] allRows = new int[customers.length];
+                Arrays.setAll(allRows, row -> row);
+                return new Matches(allRows);
+            }
+            return new Matches(matching.stream().toArray());
+        }
+        if(matching == null) {
+            return new Matches(orderedRows);
+        }
+        int[] matches = new int[matching.cardinality()];
+        int size = 0;
+        for(int row : orderedRows) {
+            if(matching.get(row)) {
+                matches[size++] = row;
+            }
+        }
+        return new Matches(matches);
+    }
+
+    /**
+     * Returns every row number sorted in an order, sorting them if the order is not the one last used.
+     */
+    private int[] getSortedRows(Comparator<Customer> order) {
+        SortedRows cached = sortedRows;
+        if(cached != null && cached.order == order) {
+            return cached.rows;
+        }
+        Integer[] sorted = new Integer[customers.length];
+        Arrays.setAll(sorted, row -> row);
+        Arrays.sort(sorted, (a, b) -> order.compare(customers[a], customers[b]));
+        int[] orderedRows = new int[sorted.length];
+        Arrays.setAll(orderedRows, i -> sorted[i]);
+        sortedRows = new SortedRows(order, orderedRows);
+        return orderedRows;
+    }
+
+    /**
+     * Strips everything but digits from a phone number.
+     */
+    private static String digitsOf(String phone) {
+        if(phone == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for(int i = 0; i < phone.length(); i++) {
+            if(Character.isDigit(phone.charAt(i))) {
+                digits.append(phone.charAt(i));
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Unions the rows of every word starting with a prefix.
+     */
+    private BitSet prefixMatches(String prefix) {
+        BitSet matches = new BitSet(customers.length);
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        for(int i = rowStarts[from]; i < rowStarts[to]; i++) {
+            matches.set(rows[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the index of the first word not less than a key.
+     */
+    private int lowerBound(String key) {
+        int position = Arrays.binarySearch(words, key);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Every row number, sorted in an order.
+     */
+    private static final class SortedRows {
+        private final Comparator<Customer> order;
+        private final int[] rows;
+
+        private SortedRows(Comparator<Customer> order, int[] rows) {
+            this.order = order;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * The customers in the given rows, looked up as they are read.
+     */
+    private final class Matches extends AbstractList<Customer> implements RandomAccess {
+        private final int[] matchingRows;
+
+        private Matches(int[] matchingRows) { this.matchingRows = matchingRows; }
+
+        @Override
+        public Customer get(int index) { return customers[matchingRows[index]]; }
+
+        @Override
+        public int size() { return matchingRows.length; }
+    }
+}
@@ -0,0 +1,79 @@
+package com.mc.helper;
+
+import java.util.List;
+
+/**
+ * The outcome of a CSV import: how many rows were read and imported, how long it took, and why each rejected row was
+ * rejected.
+ * @author Michael Cassidy
+ */
+public class ImportReport {
+    private final int rowsRead;
+    private final int rowsImported;
+    private final List<RowError> errors;
+    private final long elapsedMillis;
+
+    /**
+     * A rejected row and the reason it was rejected.
+     */
+    public static final class RowError {
+        private final int lineNumber;
+        private final String message;
+
+        /**
+         * Creates a row error.
+         *
+         * @param lineNumber The line of the file on which the row starts.
+         * @param message Why the row was rejected.
+         */
+        public RowError(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public int getLineNumber() { return lineNumber; }
+
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() { return "Line " + lineNumber + ": " + message; }
+    }
+
+    /**
+     * Creates a report.
+     *
+     * @param rowsRead The number of data rows read from the file.
+     * @param rowsImported The number of rows saved to the database.
+     * @param errors The rejected rows, in file order.
+     * @param elapsedMillis How long the import took.
+     */
+    public ImportReport(int rowsRead, int rowsImported, List<RowError> errors, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.errors = List.copyOf(errors);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getRowsRead() { return rowsRead; }
+
+    public int getRowsImported() { return rowsImported; }
+
+    public List<RowError> getErrors() { return errors; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    /**
+     * Returns the import's throughput.
+     *
+     * @return The number of rows read per minute.
+     */
+    public double getRowsPerMinute() {
+        return rowsRead * 60_000.0 / Math.max(elapsedMillis, 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d of %d rows in %.3f s (%.0f rows/min), %d rejected", rowsImported, rowsRead,
+                elapsedMillis / 1000.0, getRowsPerMinute(), errors.size());
+    }
+}
@@ -1,10 +1,10 @@
 package com.mc.helper;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 
 /**
- * Abstract class that provides methods to establish and close connections with a MySQL database.
+ * Abstract class that provides methods to open and close the pool of connections to a MySQL database.
  * @author Michael Cassidy
  */
 public abstract class JDBCConnector {
@@ -12,21 +12,28 @@ public abstract class JDBCConnector {
     private static final String vendor = ":mysql:";
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
-    private static final String jbdcUrl = protocol + vendor + location + databaseName + "?serverTimeZone=UTC";
+    private static final String jbdcUrl = protocol + vendor + location + databaseName + "?serverTimeZone=UTC" +
+            "&rewriteBatchedStatements=true";
     private static final String driver = "com.mysql.cj.jdbc.Driver";
     private static final String userName = "sqlUser";
     private static final String password = "Passw0rd!";
-    public static Connection connection;
+    private static final int minPoolSize = 2;
+    private static final int maxPoolSize = 10;
+    private static final long borrowTimeoutMillis = 10_000;
+    private static final long idleTimeoutMillis = 300_000;
+    private static final long leakThresholdMillis = 60_000;
+    private static ConnectionPool pool;
 
     /**
-     * Opens a connection to the MySQL database.
-     * If successful, the connection is stored in the public static variable 'connection'.
+     * Opens the connection pool to the MySQL database.
+     * If successful, the pool is stored in the private static variable 'pool'.
      * In case of an error, the error message is printed to the console.
      */
     public static void openConnection() {
         try {
             Class.forName(driver);
-            connection = DriverManager.getConnection(jbdcUrl, userName, password);
+            pool = new ConnectionPool(jbdcUrl, userName, password, minPoolSize, maxPoolSize, borrowTimeoutMillis,
+                    idleTimeoutMillis, leakThresholdMillis);
             System.out.println("Database Connection Successful");
         } catch(Exception e) {
             System.out.println("Error: " + e.getMessage());
@@ -34,14 +41,34 @@ public abstract class JDBCConnector {
     }
 
     /**
-     * Closes the connection to the MySQL database.
-     * If successful, a message is printed to the console.
+     * Borrows a connection from the pool.  Closing the returned connection returns it to the pool.
+     *
+     * @return A pooled connection to the MySQL database.
+     * @throws SQLException If the pool has not been opened or no connection could be borrowed.
+     */
+    public static Connection getConnection() throws SQLException {
+        if(pool == null) {
+            throw new SQLException("Database connection has not been opened");
+        }
+        return pool.getConnection();
+    }
+
+    /**
+     * Returns the connection pool, e.g. to read its borrow metrics.
+     *
+     * @return The connection pool, or null if it has not been opened.
+     */
+    public static ConnectionPool getPool() { return pool; }
+
+    /**
+     * Closes the connection pool to the MySQL database.
+     * If successful, the pool statistics are printed to the console.
      * In case of an error, the error message is printed to the console.
      */
     public static void closeConnection() {
         try {
-            connection.close();
-            System.out.println("Database Connection Closed");
+            pool.close();
+            System.out.println("Database Connection Closed: " + pool);
         } catch(Exception e) {
             System.out.println("Error: " + e.getMessage());
         }
@@ -4,18 +4,124 @@ import com.mc.model.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import java.sql.*;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Abstract class that queries a connected MySQl Database and returns the specified data.  Extends JDBCConnector.
  * @author Michael Cassidy
  */
 public abstract class JDBCQuery extends JDBCConnector {
+    /**
+     * Select clause shared by the appointment queries.  Joins each appointment's contact so the contact name is
+     * loaded with the row instead of being looked up separately for every appointment displayed.  Also used by
+     * AppointmentPageQuery.
+     */
+    static final String appointmentSelect =
+            "SELECT appointments.*, contacts.Contact_Name FROM appointments\n" +
+            "JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID\n";
+
+    /**
+     * Select clause shared by the customer queries.  Joins each customer's division and country.
+     */
+    private static final String customerSelect =
+            "SELECT customers.*, first_level_divisions.Division, countries.Country FROM customers\n" +
+            "JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID\n" +
+            "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID";
+
+    /**
+     * Narrow select clause for the overlap queries, which only need each appointment's ID, times and customer.
+     * RowMapper leaves the columns that are not selected empty.
+     */
+    private static final String intervalSelect = "SELECT Appointment_ID, Start, End, Customer_ID FROM appointments\n";
+
+    /**
+     * Report queries, shared by the report screen and ReportExporter so that an export always matches what is shown.
+     */
+    static final String appointmentsByTypeAndMonthQuery = appointmentSelect +
+            "WHERE Type = ? AND Start >= ? AND Start < ?";
+    static final String appointmentsByContactIdQuery = appointmentSelect + "WHERE appointments.Contact_ID = ?";
+    static final String appointmentsByCountryQuery = appointmentSelect +
+            "JOIN customers ON appointments.Customer_ID = customers.Customer_ID\n" +
+            "JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID\n" +
+            "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID\n" +
+            "WHERE countries.Country = ?";
+
+    /**
+     * Write statements shared by the single-row and batch methods.  They have no trailing semicolon so that the
+     * driver can rewrite batched inserts into multi-row INSERTs (rewriteBatchedStatements).
+     */
+    private static final String insertAppointmentQuery = "INSERT INTO appointments" +
+            "(Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, " +
+            "Last_Updated_By, Customer_ID, User_ID, Contact_ID)\n" +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String updateAppointmentQuery = "UPDATE appointments\n" +
+            "SET Title = ?," +
+            "Description = ?," +
+            "Location = ?," +
+            "Type = ?," +
+            "Start = ?," +
+            "End = ?," +
+            "Last_Update = ?," +
+            "Last_Updated_By = ?," +
+            "Customer_ID = ?," +
+            "User_ID = ?," +
+            "Contact_ID = ?\n" +
+            "WHERE Appointment_ID = ?";
+    private static final String insertCustomerQuery = "INSERT INTO customers " +
+            "(Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By," +
+            "Division_ID)\n" +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String updateCustomerQuery = "UPDATE customers\n" +
+            "SET Customer_Name = ?," +
+            "Address = ?," +
+            "Postal_Code = ?," +
+            "Phone = ?," +
+            "Last_Update = ?," +
+            "Last_Updated_By = ?," +
+            "Division_ID = ?\n" +
+            "WHERE Customer_ID = ?";
+
+    /**
+     * Version-checked forms of the single-row updates, which only apply if Last_Update still holds the value the row
+     * was read with.
+     */
+    private static final String versionedUpdateAppointmentQuery = updateAppointmentQuery + " AND Last_Update <=> ?";
+    private static final String versionedUpdateCustomerQuery = updateCustomerQuery + " AND Last_Update <=> ?";
+
+    /**
+     * Number of rows the batch methods send and commit together when no chunk size is given.
+     */
+    private static int batchChunkSize = 500;
+
+    /**
+     * Hours appointment tombstones are kept for before pruneTombstones deletes them.
+     */
+    static final int tombstoneRetentionHours = 24;
+
+    /**
+     * Number of appointments deleteCustomer deletes per transaction.
+     */
+    private static final int deleteChunkSize = 1000;
+
+    /**
+     * Receives progress while deleteCustomer deletes a customer's appointments.  Called on the deleting thread.
+     */
+    @FunctionalInterface
+    public interface DeleteProgressListener {
+        void onProgress(int appointmentsDeleted, int appointmentsTotal);
+    }
+
     /**
      * Retrieves all appointments from the database and returns them as an ObservableList of Appointment objects.
      *
@@ -24,26 +130,37 @@ public abstract class JDBCQuery extends JDBCConnector {
     public static ObservableList<Appointment> getAllAppointmentList() {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
 
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT * FROM appointments;");
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
+        try(Connection connection = getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery(appointmentSelect + ";")) {
+            appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+
+        return appointmentList;
+    }
+
+    /**
+     * Retrieves appointments starting within fifteen minutes of now, before or after, from the database and returns
+     * them as an ObservableList of Appointment objects.
+     *
+     * @return an ObservableList of Appointment objects starting within fifteen minutes of now.
+     */
+    public static ObservableList<Appointment> getUpcomingAppointmentList() {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+
+        Timestamp now = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
+        Timestamp fifteenMinutesAgo = new Timestamp(now.getTime() - 15 * 60_000);
+        Timestamp fifteenMinutesFromNow = new Timestamp(now.getTime() + 15 * 60_000);
+        String query = appointmentSelect + "WHERE Start >= ? AND Start <= ?;";
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setTimestamp(1, fifteenMinutesAgo);
+            stmt.setTimestamp(2, fifteenMinutesFromNow);
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
             }
         } catch (SQLException e) {
             System.out.println(e);
@@ -53,35 +170,24 @@ public abstract class JDBCQuery extends JDBCConnector {
     }
 
     /**
-     * Retrieves appointments from the current week from the database and returns them as an ObservableList of
-     * Appointment objects.
+     * Retrieves appointments starting between now and six days from now from the database and returns them as an
+     * ObservableList of Appointment objects.
      *
      * @return an ObservableList of Appointment objects for the current week.
      */
     public static ObservableList<Appointment> getWeekAppointmentList() {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
 
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT * FROM client_schedule.appointments\n" +
-                                                        "WHERE Start >= NOW() AND Start <= (NOW() + INTERVAL 6 DAY);");
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
+        Timestamp now = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
+        Timestamp sixDaysFromNow = TimeUtils.convertToUtcTimestamp(LocalDate.now().plusDays(6), LocalTime.now());
+        String query = appointmentSelect + "WHERE Start >= ? AND Start < ?;";
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setTimestamp(1, now);
+            stmt.setTimestamp(2, sixDaysFromNow);
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
             }
         } catch (SQLException e) {
             System.out.println(e);
@@ -93,33 +199,23 @@ public abstract class JDBCQuery extends JDBCConnector {
     /**
      * Retrieves appointments from the current month from the database and returns them as an ObservableList of
      * Appointment objects.
+     * The month's bounds are computed in the user's time zone and compared against Start as a half-open UTC range
+     * so that the Start index can be used.
      *
      * @return an ObservableList of Appointment objects for the current month.
      */
     public static ObservableList<Appointment> getMonthAppointmentList() {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
 
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT * FROM appointments\n" +
-                                                        "WHERE MONTH(Start) = MONTH(NOW());");
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
+        YearMonth currentMonth = YearMonth.now();
+        String query = appointmentSelect + "WHERE Start >= ? AND Start < ?;";
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setTimestamp(1, TimeUtils.getStartOfMonthUtcTimestamp(currentMonth));
+            stmt.setTimestamp(2, TimeUtils.getStartOfMonthUtcTimestamp(currentMonth.plusMonths(1)));
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
             }
         } catch (SQLException e) {
             System.out.println(e);
@@ -130,24 +226,12 @@ public abstract class JDBCQuery extends JDBCConnector {
 
     /**
      * Retrieves all contact names from the database and returns them as an ObservableList of String objects.
+     * Served from ReferenceDataCache.
      *
      * @return an ObservableList of contact names.
      */
     public static ObservableList<String> getContactList() {
-        ObservableList<String> contactList = FXCollections.observableArrayList();
-
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT Contact_Name FROM contacts;");
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                String contact = rs.getString("Contact_Name");
-                contactList.add(contact);
-            }
-        } catch (SQLException e) {
-            System.out.println(e);
-        }
-
-        return contactList;
+        return FXCollections.observableArrayList(ReferenceDataCache.getContactNames());
     }
 
     /**
@@ -158,8 +242,9 @@ public abstract class JDBCQuery extends JDBCConnector {
     public static ObservableList<Integer> getCustomerIdList() {
         ObservableList<Integer> customerIdList = FXCollections.observableArrayList();
 
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT Customer_ID FROM customers ORDER BY Customer_ID ASC;");
+        try(Connection connection = getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery("SELECT Customer_ID FROM customers ORDER BY Customer_ID ASC;")) {
             // Loop through the ResultSet and add each row to the list
             while (rs.next()) {
                 int customerId = rs.getInt("Customer_ID");
@@ -174,168 +259,159 @@ public abstract class JDBCQuery extends JDBCConnector {
 
     /**
      * Retrieves the contact ID associated with the given contact name.
+     * Served from ReferenceDataCache.
      *
      * @param contactName the name of the contact for which to retrieve the ID.
      * @return the contact ID associated with the given contact name, or -1 if not found.
      */
     public static int getContactId(String contactName) {
-        String query = "SELECT Contact_ID FROM contacts WHERE Contact_Name = ?;";
-        try(PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, contactName);
-            ResultSet rs = stmt.executeQuery();
-            if(rs.next()) {
-                return rs.getInt("Contact_ID");
-            }
-        } catch(SQLException e) {
-            System.out.println(e);
-        }
-        return -1;
+        return ReferenceDataCache.getContactId(contactName);
     }
 
     /**
      * Retrieves the contact name associated with the given contact ID.
+     * Served from ReferenceDataCache.
      *
      * @param contactId the ID of the contact for which to retrieve the name.
      * @return the contact name associated with the given contact ID, or an empty string if not found.
      */
     public static String getContactName(int contactId) {
-        String query = "SELECT Contact_Name FROM contacts WHERE Contact_ID = ?;";
-        try(PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, contactId);
-            ResultSet rs = stmt.executeQuery();
-            if(rs.next()) {
-                return rs.getString("Contact_Name");
-            }
-        } catch(SQLException e) {
-            System.out.println(e);
-        }
-        return "";
+        return ReferenceDataCache.getContactName(contactId);
     }
 
     /**
      * Retrieves the user ID associated with the given user name.
+     * Served from ReferenceDataCache.
      *
      * @param userName the name of the user for which to retrieve the ID.
      * @return the user ID associated with the given user name, or -1 if not found.
      */
     public static int getUserId(String userName) {
-        String query = "SELECT User_ID FROM users WHERE User_Name = ?;";
-        try(PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, userName);
-            ResultSet rs = stmt.executeQuery();
-            if(rs.next()) {
-                return rs.getInt("User_ID");
-            }
-        } catch(SQLException e) {
-            System.out.println(e);
-        }
-        return -1;
+        return ReferenceDataCache.getUserId(userName);
     }
 
     /**
      * Retrieves the username associated with the given user ID.
+     * Served from ReferenceDataCache.
      *
      * @param userId the ID of the user for which to retrieve the name.
      * @return the username associated with the given user ID, or an empty string if not found.
      */
     public static String getUserName(int userId) {
-        String query = "SELECT User_Name FROM users WHERE User_ID = ?;";
-        try(PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if(rs.next()) {
-                return rs.getString("User_Name");
-            }
-        } catch(SQLException e) {
-            System.out.println(e);
-        }
-        return "";
+        return ReferenceDataCache.getUserName(userId);
     }
 
     /**
      * Adds a new appointment to the database.
      *
      * @param appointment the Appointment object to be added to the database.
+     * @return true if the appointment was saved.
      */
-    public static void addAppointment(Appointment appointment) {
-        String query = "INSERT INTO appointments" +
-                        "(Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, " +
-                        "Last_Updated_By, Customer_ID, User_ID, Contact_ID)\n" +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
-
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
-            stmt.setString(1, appointment.getTitle());
-            stmt.setString(2, appointment.getDescription());
-            stmt.setString(3, appointment.getLocation());
-            stmt.setString(4, appointment.getType());
-            stmt.setTimestamp(5, appointment.getStartTimestamp());
-            stmt.setTimestamp(6, appointment.getEndTimestamp());
-            stmt.setTimestamp(7, appointment.getCreatedTimestamp());
-            stmt.setString(8, appointment.getCreatedBy());
-            stmt.setTimestamp(9, appointment.getUpdatedTimestamp());
-            stmt.setString(10, appointment.getUpdatedBy());
-            stmt.setInt(11, appointment.getCustomerId());
-            stmt.setInt(12, appointment.getUserId());
-            stmt.setInt(13, appointment.getContactId());
+    public static boolean addAppointment(Appointment appointment) {
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(insertAppointmentQuery,
+                    Statement.RETURN_GENERATED_KEYS)) {
+            setInsertAppointmentParameters(stmt, appointment);
             stmt.executeUpdate();
+            try(ResultSet rs = stmt.getGeneratedKeys()) {
+                if(rs.next()) {
+                    appointment.setId(rs.getInt(1));
+                }
+            }
+            AppointmentOverlapIndex.put(appointment);
+            ReportCounters.put(appointment);
+            AppointmentSearch.put(appointment);
+            ReportCache.invalidate(appointment);
+            ReferenceDataCache.addType(appointment.getType());
+            return true;
         } catch (SQLException e) {
             System.out.println(e);
+            return false;
         }
     }
 
     /**
-     * Updates an existing appointment in the database.
-     *
-     * @param appointment the Appointment object containing the updated information.
-     */
-    public static void updateAppointment(Appointment appointment) {
-        String query = "UPDATE appointments\n" +
-                        "SET Title = ?," +
-                        "Description = ?," +
-                        "Location = ?," +
-                        "Type = ?," +
-                        "Start = ?," +
-                        "End = ?," +
-                        "Last_Update = ?," +
-                        "Last_Updated_By = ?," +
-                        "Customer_ID = ?," +
-                        "User_ID = ?," +
-                        "Contact_ID = ?\n" +
-                        "WHERE Appointment_ID = ?;";
-
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
-            stmt.setString(1, appointment.getTitle());
-            stmt.setString(2, appointment.getDescription());
-            stmt.setString(3, appointment.getLocation());
-            stmt.setString(4, appointment.getType());
-            stmt.setTimestamp(5, appointment.getStartTimestamp());
-            stmt.setTimestamp(6, appointment.getEndTimestamp());
-            stmt.setTimestamp(7, appointment.getUpdatedTimestamp());
-            stmt.setString(8, appointment.getUpdatedBy());
-            stmt.setInt(9, appointment.getCustomerId());
-            stmt.setInt(10, appointment.getUserId());
-            stmt.setInt(11, appointment.getContactId());
-            stmt.setInt(12, appointment.getId());
-            stmt.executeUpdate();
+     * Retrieves a single appointment by ID.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @return the appointment, or null if it does not exist or the query fails.
+     */
+    public static Appointment getAppointment(int appointmentId) {
+        String query = appointmentSelect + "WHERE appointments.Appointment_ID = ?;";
+        List<Appointment> appointmentList = new ArrayList<>();
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, appointmentId);
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
+            }
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+
+        return appointmentList.isEmpty() ? null : appointmentList.get(0);
+    }
+
+    /**
+     * Updates an existing appointment in the database, provided nobody else has updated it since it was read.
+     * The check is made by the UPDATE itself ({@code WHERE Appointment_ID = ? AND Last_Update <=> ?}), so no lock is
+     * held while the appointment is being edited.
+     *
+     * @param appointment the Appointment object containing the updated information.  Its updated timestamp is
+     *                    truncated to whole seconds, as Last_Update stores it, so it can be the expected version of a
+     *                    later update.
+     * @param expectedLastUpdate the Last_Update the appointment had when it was read.
+     * @return the number of rows updated: 1, or 0 if the update failed.
+     * @throws UpdateConflictException if the appointment has been updated or deleted since it was read.
+     */
+    public static int updateAppointment(Appointment appointment, Timestamp expectedLastUpdate) {
+        appointment.setUpdatedTimestamp(truncateToSeconds(appointment.getUpdatedTimestamp()));
+        int rowsUpdated = 0;
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(versionedUpdateAppointmentQuery)) {
+            setUpdateAppointmentParameters(stmt, appointment);
+            stmt.setTimestamp(13, expectedLastUpdate);
+            rowsUpdated = stmt.executeUpdate();
+            if(rowsUpdated == 0) {
+                throw getUpdateConflict(connection, "appointments", "Appointment_ID", appointment.getId());
+            }
+            AppointmentOverlapIndex.put(appointment);
+            ReportCounters.put(appointment);
+            AppointmentSearch.put(appointment);
+            ReportCache.invalidate(appointment);
+            ReferenceDataCache.addType(appointment.getType());
         } catch (SQLException e) {
             System.out.println(e);
         }
+
+        return rowsUpdated;
     }
 
     /**
      * Deletes an appointment from the database.
      *
      * @param appointment the Appointment object to be deleted from the database.
+     * @return true if the appointment was deleted, or was already gone.
      */
-    public static void deleteAppointment(Appointment appointment) {
+    public static boolean deleteAppointment(Appointment appointment) {
         String query = "DELETE FROM appointments " +
                 "WHERE Appointment_ID = ?";
 
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, appointment.getId());
             stmt.executeUpdate();
+            AppointmentOverlapIndex.remove(appointment.getId());
+            ReportCounters.remove(appointment.getId());
+            AppointmentSearch.remove(appointment.getId());
+            ReportCache.invalidateAppointment(appointment.getId());
+            ReferenceDataCache.invalidateTypes();
+            return true;
         } catch (SQLException e) {
             System.out.println(e);
+            return false;
         }
     }
 
@@ -348,27 +424,10 @@ public abstract class JDBCQuery extends JDBCConnector {
     public static ObservableList<Customer> getAllCustomerList() {
         ObservableList<Customer> customerList = FXCollections.observableArrayList();
 
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT customers.*, first_level_divisions.Division, countries.Country FROM customers\n" +
-                    "JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID\n" +
-                    "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID;");
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                Customer customer = new Customer(
-                        rs.getInt("Customer_ID"),
-                        rs.getString("Customer_Name"),
-                        rs.getString("Address"),
-                        rs.getString("Postal_Code"),
-                        rs.getString("Phone"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Division_ID"),
-                        rs.getString("Division"),
-                        rs.getString("Country"));
-                customerList.add(customer);
-            }
+        try(Connection connection = getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet rs = statement.executeQuery(customerSelect + ";")) {
+            customerList = RowMapper.CUSTOMER.mapAll(rs);
         } catch (SQLException e) {
             System.out.println(e);
         }
@@ -378,277 +437,311 @@ public abstract class JDBCQuery extends JDBCConnector {
 
     /**
      * Retrieves all country names from the database and returns them as an ObservableList of String objects.
+     * Served from ReferenceDataCache.
      *
      * @return an ObservableList of country names.
      */
     public static ObservableList<String> getCountryList() {
-        ObservableList<String> countryList = FXCollections.observableArrayList();
-
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT Country FROM countries;");
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                String country = rs.getString("country");
-                countryList.add(country);
-            }
-        } catch (SQLException e) {
-            System.out.println(e);
-        }
-
-        return countryList;
+        return FXCollections.observableArrayList(ReferenceDataCache.getCountryNames());
     }
 
     /**
      * Retrieves the country ID associated with the given country name.
+     * Served from ReferenceDataCache.
      *
      * @param countryName the name of the country for which to retrieve the ID.
      * @return the country ID associated with the given country name, or -1 if not found.
      */
     public static int getCountryId(String countryName) {
-        String query = "SELECT Country_ID FROM countries WHERE Country = ?;";
-        try(PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, countryName);
-            ResultSet rs = stmt.executeQuery();
-            if(rs.next()) {
-                return rs.getInt("Country_ID");
-            }
-        } catch(SQLException e) {
-            System.out.println(e);
-        }
-        return -1;
+        return ReferenceDataCache.getCountryId(countryName);
     }
 
     /**
      * Retrieves a list of division names based on the provided country ID.
+     * Served from ReferenceDataCache.
      *
      * @param countryId The ID of the country for which the divisions are to be retrieved.
      * @return An ObservableList of division names.
      */
     public static ObservableList<String> getDivisionList(int countryId) {
-        ObservableList<String> divisionList = FXCollections.observableArrayList();
-
-        String query = "SELECT Division FROM first_level_divisions WHERE Country_ID = ?;";
-        try(PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, countryId);
-            ResultSet rs = stmt.executeQuery();
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                String division = rs.getString("division");
-                divisionList.add(division);
-            }
-        } catch (SQLException e) {
-            System.out.println(e);
-        }
-
-        return divisionList;
+        return FXCollections.observableArrayList(ReferenceDataCache.getDivisionNames(countryId));
     }
 
     /**
      * Retrieves the ID of a division based on its name.
+     * Served from ReferenceDataCache.
      *
      * @param divisionName The name of the division.
      * @return The ID of the division or -1 if not found.
      */
     public static int getDivisionId(String divisionName) {
-        String query = "SELECT Division_ID FROM first_level_divisions WHERE Division = ?;";
-        try(PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, divisionName);
-            ResultSet rs = stmt.executeQuery();
-            if(rs.next()) {
-                return rs.getInt("Division_ID");
-            }
-        } catch(SQLException e) {
-            System.out.println(e);
-        }
-        return -1;
+        return ReferenceDataCache.getDivisionId(divisionName);
     }
 
     /**
      * Adds a new customer to the database.
      *
-     * @param customer The Customer object to be added.
+     * @param customer The Customer object to be added.  Its ID is set to the generated key once saved.
      */
     public static void addCustomer(Customer customer) {
-        String query = "INSERT INTO customers " +
-                "(Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By," +
-                    "Division_ID)\n" +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);";
-
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
-            stmt.setString(1, customer.getName());
-            stmt.setString(2, customer.getAddress());
-            stmt.setString(3, customer.getPostalCode());
-            stmt.setString(4, customer.getPhone());
-            stmt.setTimestamp(5, customer.getCreatedTimestamp());
-            stmt.setString(6, customer.getCreatedBy());
-            stmt.setTimestamp(7, customer.getCreatedTimestamp());
-            stmt.setString(8, customer.getCreatedBy());
-            stmt.setInt(9, customer.getDivisionId());
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(insertCustomerQuery,
+                    Statement.RETURN_GENERATED_KEYS)) {
+            setInsertCustomerParameters(stmt, customer);
             stmt.executeUpdate();
+            try(ResultSet rs = stmt.getGeneratedKeys()) {
+                if(rs.next()) {
+                    customer.setId(rs.getInt(1));
+                }
+            }
+            ReportCounters.putCustomer(customer);
         } catch (SQLException e) {
             System.out.println(e);
         }
     }
 
     /**
-     * Updates an existing customer in the database.
+     * Retrieves a single customer by ID.
      *
-     * @param customer The Customer object with updated information.
+     * @param customerId The ID of the customer.
+     * @return The customer, or null if they do not exist or the query fails.
      */
-    public static void updateCustomer(Customer customer) {
-        String query = "UPDATE customers\n" +
-                        "SET Customer_Name = ?," +
-                        "Address = ?," +
-                        "Postal_Code = ?," +
-                        "Phone = ?," +
-                        "Last_Update = ?," +
-                        "Last_Updated_By = ?," +
-                        "Division_ID = ?\n" +
-                        "WHERE Customer_ID = ?;";
+    public static Customer getCustomer(int customerId) {
+        String query = customerSelect + "\nWHERE customers.Customer_ID = ?;";
+        List<Customer> customerList = new ArrayList<>();
 
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
-            stmt.setString(1, customer.getName());
-            stmt.setString(2, customer.getAddress());
-            stmt.setString(3, customer.getPostalCode());
-            stmt.setString(4, customer.getPhone());
-            stmt.setTimestamp(5, customer.getUpdatedTimestamp());
-            stmt.setString(6, customer.getUpdatedBy());
-            stmt.setInt(7, customer.getDivisionId());
-            stmt.setInt(8, customer.getId());
-            stmt.executeUpdate();
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, customerId);
+            try(ResultSet rs = stmt.executeQuery()) {
+                customerList = RowMapper.CUSTOMER.mapAll(rs);
+            }
         } catch (SQLException e) {
             System.out.println(e);
         }
+
+        return customerList.isEmpty() ? null : customerList.get(0);
     }
 
     /**
-     * Deletes a customer and their related appointments from the database.
+     * Updates an existing customer in the database, provided nobody else has updated them since they were read.
      *
-     * @param customerId The ID of the customer to be deleted.
+     * @param customer The Customer object with updated information.  Its updated timestamp is truncated to whole
+     *                 seconds, as Last_Update stores it.
+     * @param expectedLastUpdate The Last_Update the customer had when they were read.
+     * @return The number of rows updated: 1, or 0 if the update failed.
+     * @throws UpdateConflictException If the customer has been updated or deleted since they were read.
      */
-    public static void deleteCustomer(int customerId) {
-        String appointmentsQuery = "DELETE FROM appointments WHERE Customer_ID = ?;";
-        String customersQuery = "DELETE FROM customers WHERE Customer_ID = ?;";
+    public static int updateCustomer(Customer customer, Timestamp expectedLastUpdate) {
+        customer.setUpdatedTimestamp(truncateToSeconds(customer.getUpdatedTimestamp()));
+        int rowsUpdated = 0;
 
-        try(PreparedStatement stmt = connection.prepareStatement(appointmentsQuery);) {
-            stmt.setInt(1, customerId);
-            stmt.executeUpdate();
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(versionedUpdateCustomerQuery)) {
+            setUpdateCustomerParameters(stmt, customer);
+            stmt.setTimestamp(9, expectedLastUpdate);
+            rowsUpdated = stmt.executeUpdate();
+            if(rowsUpdated == 0) {
+                throw getUpdateConflict(connection, "customers", "Customer_ID", customer.getId());
+            }
+            ReportCounters.putCustomer(customer);
+            ReportCache.invalidateCustomer(customer.getId(),
+                    ReferenceDataCache.getDivisionCountry(customer.getDivisionId()));
         } catch (SQLException e) {
             System.out.println(e);
         }
 
-        try(PreparedStatement stmt = connection.prepareStatement(customersQuery);) {
-            stmt.setInt(1, customerId);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            System.out.println(e);
+        return rowsUpdated;
+    }
+
+    /**
+     * Reads the current version of a row whose version-checked update matched nothing, to report who changed it.
+     *
+     * @param connection The connection the update ran on.
+     * @param table The table the row is in.
+     * @param idColumn The table's ID column.
+     * @param id The ID of the row.
+     * @return The exception to throw.
+     * @throws SQLException If the row cannot be read.
+     */
+    private static UpdateConflictException getUpdateConflict(Connection connection, String table, String idColumn,
+                                                             int id) throws SQLException {
+        String query = "SELECT Last_Update, Last_Updated_By FROM " + table + " WHERE " + idColumn + " = ?;";
+
+        try(PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            try(ResultSet rs = stmt.executeQuery()) {
+                if(rs.next()) {
+                    return new UpdateConflictException(table, id, rs.getTimestamp("Last_Update"),
+                            rs.getString("Last_Updated_By"), false);
+                }
+            }
+        }
+        return new UpdateConflictException(table, id, null, null, true);
+    }
+
+    private static Timestamp truncateToSeconds(Timestamp timestamp) {
+        if(timestamp == null || timestamp.getNanos() == 0) {
+            return timestamp;
         }
+        Timestamp truncated = new Timestamp(timestamp.getTime());
+        truncated.setNanos(0);
+        return truncated;
     }
 
     /**
-     * Retrieves a list of unique appointment types.
+     * Deletes a customer and their related appointments from the database.
      *
-     * @return An ObservableList of appointment types.
+     * @param customerId The ID of the customer to delete.
+     * @return true if the customer was deleted.
      */
-    public static ObservableList<String> getTypeList() {
-        ObservableList<String> typeList = FXCollections.observableArrayList();
+    public static boolean deleteCustomer(int customerId) {
+        return deleteCustomer(customerId, null);
+    }
 
-        try(Statement statement = connection.createStatement()) {
-            ResultSet rs = statement.executeQuery("SELECT DISTINCT Type FROM appointments;");
-            // Loop through the ResultSet and add each row to the list
-            while (rs.next()) {
-                String type = rs.getString("Type");
-                typeList.add(type);
+    /**
+     * Deletes a customer and all of their appointments as one logical operation.
+     * The appointments are deleted deleteChunkSize at a time, each chunk in its own transaction, so that a customer
+     * with many appointments never holds locks or undo log for the whole delete at once.  The customer row is deleted
+     * last, in one transaction with any appointments added for the customer in the meantime.  If a chunk fails, the
+     * deletion stops there: the customer and their remaining appointments are kept, and deleting again finishes the
+     * job.
+     *
+     * @param customerId The ID of the customer to delete.
+     * @param progressListener Receives progress after each chunk, or null for none.
+     * @return true if the customer was deleted.
+     */
+    public static boolean deleteCustomer(int customerId, DeleteProgressListener progressListener) {
+        String countQuery = "SELECT COUNT(*) FROM appointments WHERE Customer_ID = ?;";
+        String appointmentsChunkQuery = "DELETE FROM appointments WHERE Customer_ID = ? ORDER BY Appointment_ID " +
+                "LIMIT ?;";
+        String appointmentsQuery = "DELETE FROM appointments WHERE Customer_ID = ?;";
+        String customersQuery = "DELETE FROM customers WHERE Customer_ID = ?;";
+        int deleted = 0;
+        boolean customerDeleted = false;
+
+        try(Connection connection = getConnection()) {
+            int total = 0;
+            try(PreparedStatement stmt = connection.prepareStatement(countQuery)) {
+                stmt.setInt(1, customerId);
+                try(ResultSet rs = stmt.executeQuery()) {
+                    if(rs.next()) {
+                        total = rs.getInt(1);
+                    }
+                }
+            }
+            if(progressListener != null) {
+                progressListener.onProgress(0, total);
+            }
+
+            connection.setAutoCommit(false);
+            try {
+                try(PreparedStatement stmt = connection.prepareStatement(appointmentsChunkQuery)) {
+                    stmt.setInt(1, customerId);
+                    stmt.setInt(2, deleteChunkSize);
+                    int rows;
+                    do {
+                        rows = stmt.executeUpdate();
+                        connection.commit();
+                        deleted += rows;
+                        if(progressListener != null && rows > 0) {
+                            progressListener.onProgress(deleted, Math.max(total, deleted));
+                        }
+                    } while(rows == deleteChunkSize);
+                }
+
+                try(PreparedStatement appointmentsStmt = connection.prepareStatement(appointmentsQuery);
+                    PreparedStatement customersStmt = connection.prepareStatement(customersQuery)) {
+                    appointmentsStmt.setInt(1, customerId);
+                    int remaining = appointmentsStmt.executeUpdate();
+                    customersStmt.setInt(1, customerId);
+                    customerDeleted = customersStmt.executeUpdate() > 0;
+                    connection.commit();
+                    deleted += remaining;
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             System.out.println(e);
         }
 
-        return typeList;
+        if(customerDeleted) {
+            AppointmentOverlapIndex.removeByCustomerId(customerId);
+            ReportCounters.removeByCustomerId(customerId);
+            AppointmentSearch.removeByCustomerId(customerId);
+            ReportCache.invalidateCustomer(customerId, null);
+        } else if(deleted > 0) {
+//          Only some of the appointments are gone; rebuild the indexes and counters rather than guess which
+            AppointmentOverlapIndex.invalidate();
+            ReportCounters.invalidate();
+            AppointmentSearch.invalidate();
+            ReportCache.clear();
+        }
+        if(deleted > 0) {
+            ReferenceDataCache.invalidateTypes();
+        }
+        return customerDeleted;
     }
 
     /**
-     * Retrieves a list of appointments filtered by type and month.
+     * Retrieves a list of unique appointment types.
+     * Served from ReferenceDataCache.
+     *
+     * @return An ObservableList of appointment types.
+     */
+    public static ObservableList<String> getTypeList() {
+        return FXCollections.observableArrayList(ReferenceDataCache.getTypes());
+    }
+
+    /**
+     * Retrieves a list of appointments filtered by type and month of the current year.
+     * The month's bounds are computed in the user's time zone and compared against Start as a half-open UTC range
+     * so that the (Type, Start) index can be used.
+     * Results are cached by ReportCache.
      *
      * @param typeString The type of appointments to filter by.
-     * @param monthString The name of the month to filter by.
+     * @param monthString The localized name of the month to filter by.
      * @return An ObservableList of appointments matching the filters.
      */
     public static ObservableList<Appointment> getAppointmentListByTypeAndMonth(String typeString, String monthString) {
-        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-        Locale defaultLocale = Locale.getDefault();
-        DateFormat format = new SimpleDateFormat("MMMM", defaultLocale);
-        String query = "SELECT * FROM appointments WHERE Type = ? AND MONTH(Start) = ?;";
-
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
-            Date monthDate = format.parse(monthString);
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(monthDate);
-            int month = cal.get(Calendar.MONTH) + 1; // Add 1 to match SQL's 1-based month numbering
-            stmt.setString(1, typeString);
-            stmt.setInt(2, month);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
-            }
-        } catch (SQLException | ParseException e) {
-            System.out.println(e);
+        Month month = TimeUtils.parseMonth(monthString);
+        if(month == null) {
+            return FXCollections.observableArrayList();
         }
+        YearMonth yearMonth = Year.now().atMonth(month);
 
-        return appointmentList;
+        return ReportCache.get(ReportCache.Key.byTypeAndMonth(typeString, yearMonth), () -> {
+            try(Connection connection = getConnection();
+                PreparedStatement stmt = connection.prepareStatement(appointmentsByTypeAndMonthQuery)) {
+                stmt.setString(1, typeString);
+                stmt.setTimestamp(2, TimeUtils.getStartOfMonthUtcTimestamp(yearMonth));
+                stmt.setTimestamp(3, TimeUtils.getStartOfMonthUtcTimestamp(yearMonth.plusMonths(1)));
+                try(ResultSet rs = stmt.executeQuery()) {
+                    return RowMapper.APPOINTMENT.mapAll(rs);
+                }
+            }
+        });
     }
 
     /**
      * Retrieves a list of appointments associated with a specific contact ID.
+     * Results are cached by ReportCache.
      *
      * @param contactId The ID of the contact.
      * @return An ObservableList of appointments for the specified contact.
      */
     public static ObservableList<Appointment> getAppointmentListByContactId(int contactId) {
-        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-        String query = "SELECT * FROM appointments WHERE Contact_ID = ?;";
-
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
-            stmt.setInt(1, contactId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
+        return ReportCache.get(ReportCache.Key.byContactId(contactId), () -> {
+            try(Connection connection = getConnection();
+                PreparedStatement stmt = connection.prepareStatement(appointmentsByContactIdQuery)) {
+                stmt.setInt(1, contactId);
+                try(ResultSet rs = stmt.executeQuery()) {
+                    return RowMapper.APPOINTMENT.mapAll(rs);
+                }
             }
-        } catch (SQLException e) {
-            System.out.println(e);
-        }
-
-        return appointmentList;
+        });
     }
 
     /**
@@ -659,28 +752,13 @@ public abstract class JDBCQuery extends JDBCConnector {
      */
     public static ObservableList<Appointment> getAppointmentListByCustomerId(int customerId) {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-        String query = "SELECT * FROM appointments WHERE Customer_ID = ?;";
+        String query = appointmentSelect + "WHERE Customer_ID = ?;";
 
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
             }
         } catch (SQLException e) {
             System.out.println(e);
@@ -691,38 +769,88 @@ public abstract class JDBCQuery extends JDBCConnector {
 
     /**
      * Retrieves a list of appointments associated with a specific country name.
+     * Results are cached by ReportCache.
      *
      * @param countryName The name of the country.
      * @return An ObservableList of appointments for the specified country.
      */
     public static ObservableList<Appointment> getAppointmentListByCountry(String countryName) {
+        return ReportCache.get(ReportCache.Key.byCountry(countryName), () -> {
+            try(Connection connection = getConnection();
+                PreparedStatement stmt = connection.prepareStatement(appointmentsByCountryQuery)) {
+                stmt.setString(1, countryName);
+                try(ResultSet rs = stmt.executeQuery()) {
+                    return RowMapper.APPOINTMENT.mapAll(rs);
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieves the appointments with the given IDs.
+     *
+     * @param appointmentIds The IDs of the appointments.
+     * @return An ObservableList of the appointments that still exist, ordered by start time.
+     */
+    public static ObservableList<Appointment> getAppointmentListByIds(int[] appointmentIds) {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-        String query = "SELECT appointments.*, countries.Country FROM appointments\n" +
-                        "JOIN customers ON appointments.Customer_ID = customers.Customer_ID\n" +
-                        "JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID\n" +
-                        "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID\n" +
-                        "WHERE countries.Country = ?;";
-
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
-            stmt.setString(1, countryName);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
+        if(appointmentIds.length == 0) {
+            return appointmentList;
+        }
+        String query = appointmentSelect + "WHERE appointments.Appointment_ID IN (" +
+                String.join(", ", Collections.nCopies(appointmentIds.length, "?")) + ")\n" +
+                "ORDER BY appointments.Start;";
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            for(int i = 0; i < appointmentIds.length; i++) {
+                stmt.setInt(i + 1, appointmentIds[i]);
+            }
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
+            }
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+
+        return appointmentList;
+    }
+
+    /**
+     * Searches appointments' Title, Description and Location with LIKE, for use until AppointmentSearch's index has
+     * been built.  Every term is matched as a substring, so this can match more than the index would, and the query
+     * scans the whole table.
+     *
+     * @param clauses The query's OR clauses, each a list of terms that must all match.
+     * @param limit The most appointments to return.
+     * @return An ObservableList of the most recently added matching appointments, ordered by start time.
+     */
+    public static ObservableList<Appointment> searchAppointmentList(List<List<AppointmentTextIndex.Term>> clauses,
+                                                                    int limit) {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        List<String> patterns = new ArrayList<>();
+        List<String> clauseConditions = new ArrayList<>();
+        for(List<AppointmentTextIndex.Term> clause : clauses) {
+            List<String> termConditions = new ArrayList<>();
+            for(AppointmentTextIndex.Term term : clause) {
+                termConditions.add("(Title LIKE ? OR Description LIKE ? OR Location LIKE ?)");
+                patterns.addAll(Collections.nCopies(3, "%" + term.getWord() + "%"));
+            }
+            clauseConditions.add("(" + String.join(" AND ", termConditions) + ")");
+        }
+        String query = "SELECT * FROM (" + appointmentSelect +
+                "WHERE " + String.join(" OR ", clauseConditions) + "\n" +
+                "ORDER BY appointments.Appointment_ID DESC LIMIT ?) matches\n" +
+                "ORDER BY matches.Start;";
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            for(int i = 0; i < patterns.size(); i++) {
+                stmt.setString(i + 1, patterns.get(i));
+            }
+            stmt.setInt(patterns.size() + 1, limit);
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
             }
         } catch (SQLException e) {
             System.out.println(e);
@@ -738,38 +866,23 @@ public abstract class JDBCQuery extends JDBCConnector {
      * @param startTimestamp The start timestamp to compare.
      * @param endTimestamp The end timestamp to compare.
      * @param appointmentId The ID of the appointment to exclude from the search.
-     * @return An ObservableList of overlapping appointments.
+     * @return An ObservableList of overlapping appointments, with only their ID, times and customer ID loaded.
      */
     public static ObservableList<Appointment> getOverlappingAppointmentList(Timestamp startTimestamp, Timestamp endTimestamp,
                                                                             int appointmentId) {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-        String query = "SELECT * FROM appointments\n" +
+        String query = intervalSelect +
                         "WHERE Start < ?\n" +
                         "AND End > ?\n" +
                         "AND Appointment_ID != ?;";
 
-        try(PreparedStatement stmt = connection.prepareStatement(query);) {
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setTimestamp(1, endTimestamp);
             stmt.setTimestamp(2, startTimestamp);
             stmt.setInt(3, appointmentId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Appointment appointment = new Appointment(
-                        rs.getInt("Appointment_ID"),
-                        rs.getString("Title"),
-                        rs.getString("Description"),
-                        rs.getString("Location"),
-                        rs.getString("Type"),
-                        rs.getTimestamp("Start"),
-                        rs.getTimestamp("End"),
-                        rs.getTimestamp("Create_Date"),
-                        rs.getString("Created_By"),
-                        rs.getTimestamp("Last_Update"),
-                        rs.getString("Last_Updated_By"),
-                        rs.getInt("Customer_ID"),
-                        rs.getInt("User_ID"),
-                        rs.getInt("Contact_ID"));
-                appointmentList.add(appointment);
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
             }
         } catch (SQLException e) {
             System.out.println(e);
@@ -777,4 +890,398 @@ public abstract class JDBCQuery extends JDBCConnector {
 
         return appointmentList;
     }
+
+    /**
+     * Retrieves a list of appointments that end after the provided timestamp.
+     * Unlike the other queries, errors are thrown rather than printed so that AppointmentOverlapIndex can tell a
+     * failed load apart from an empty schedule.
+     *
+     * @param timestamp The timestamp appointments must end after.
+     * @return An ObservableList of current and upcoming appointments, with only their ID, times and customer ID
+     * loaded.
+     * @throws SQLException If the query fails.
+     */
+    public static ObservableList<Appointment> getAppointmentListEndingAfter(Timestamp timestamp) throws SQLException {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        String query = intervalSelect + "WHERE End > ?;";
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setTimestamp(1, timestamp);
+            try(ResultSet rs = stmt.executeQuery()) {
+                appointmentList = RowMapper.APPOINTMENT.mapAll(rs);
+            }
+        }
+
+        return appointmentList;
+    }
+
+    /**
+     * Retrieves the appointments added, updated or deleted after a pair of watermarks, so that a displayed list can
+     * be brought up to date without being reloaded.
+     * Errors are thrown rather than printed so that the caller can keep its watermarks and try again.
+     *
+     * @param updatedAfter Appointments with a Last_Update after this time are returned as updated.
+     * @param tombstoneAfter Deletions with a tombstone ID above this are returned as deleted.
+     * @param maxChanges The most updated appointments worth applying one by one.
+     * @return The changes, or null if more than maxChanges appointments were updated and the caller should reload
+     * instead.
+     * @throws SQLException If a query fails.
+     */
+    public static AppointmentChanges getAppointmentChanges(Timestamp updatedAfter, long tombstoneAfter,
+                                                           int maxChanges) throws SQLException {
+        String updatedQuery = appointmentSelect + "WHERE appointments.Last_Update > ?\nLIMIT ?;";
+        String deletedQuery = "SELECT Tombstone_ID, Appointment_ID FROM appointment_tombstones\n" +
+                "WHERE Tombstone_ID > ?\n" +
+                "ORDER BY Tombstone_ID;";
+        List<Appointment> updated;
+        List<Integer> deletedIds = new ArrayList<>();
+        Timestamp updateWatermark = updatedAfter;
+        long tombstoneWatermark = tombstoneAfter;
+
+        try(Connection connection = getConnection()) {
+            try(PreparedStatement stmt = connection.prepareStatement(updatedQuery)) {
+                stmt.setTimestamp(1, updatedAfter);
+                stmt.setInt(2, maxChanges + 1);
+                try(ResultSet rs = stmt.executeQuery()) {
+                    updated = RowMapper.APPOINTMENT.mapAll(rs);
+                }
+            }
+            if(updated.size() > maxChanges) {
+                return null;
+            }
+            for(Appointment appointment : updated) {
+                Timestamp updatedTimestamp = appointment.getUpdatedTimestamp();
+                if(updatedTimestamp != null && updatedTimestamp.after(updateWatermark)) {
+                    updateWatermark = updatedTimestamp;
+                }
+            }
+
+            try(PreparedStatement stmt = connection.prepareStatement(deletedQuery)) {
+                stmt.setLong(1, tombstoneAfter);
+                try(ResultSet rs = stmt.executeQuery()) {
+                    while(rs.next()) {
+                        tombstoneWatermark = rs.getLong("Tombstone_ID");
+                        deletedIds.add(rs.getInt("Appointment_ID"));
+                    }
+                }
+            }
+        }
+
+        return new AppointmentChanges(updated, deletedIds, updateWatermark, tombstoneWatermark);
+    }
+
+    /**
+     * Loads a columnar snapshot of every appointment for analytic scans.  Only the columns the snapshot holds are
+     * selected, and rows are streamed from the server in chunks rather than read into one result set.
+     *
+     * @return The snapshot, empty if the query fails.
+     */
+    public static AppointmentSnapshot getAppointmentSnapshot() {
+        String query = "SELECT Appointment_ID, Type, Location, Start, End, Customer_ID, User_ID, Contact_ID " +
+                "FROM appointments;";
+        AppointmentSnapshot.Builder builder = new AppointmentSnapshot.Builder(0);
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setFetchSize(1000);
+            try(ResultSet rs = stmt.executeQuery()) {
+                while(rs.next()) {
+                    builder.add(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4),
+                            rs.getTimestamp(5), rs.getInt(6), rs.getInt(7), rs.getInt(8));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e);
+            builder = new AppointmentSnapshot.Builder(0);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Retrieves the ID of the latest appointment tombstone, to start watching for deletions from.
+     *
+     * @return The highest tombstone ID, or 0 if there are none or the query fails.
+     */
+    public static long getLastTombstoneId() {
+        String query = "SELECT COALESCE(MAX(Tombstone_ID), 0) FROM appointment_tombstones;";
+        long tombstoneId = 0;
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query);
+            ResultSet rs = stmt.executeQuery()) {
+            if(rs.next()) {
+                tombstoneId = rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+
+        return tombstoneId;
+    }
+
+    /**
+     * Deletes appointment tombstones older than tombstoneRetentionHours.  Lists that have not been refreshed for
+     * that long reload instead of reading tombstones.
+     */
+    public static void pruneTombstones() {
+        String query = "DELETE FROM appointment_tombstones WHERE Deleted_At < UTC_TIMESTAMP() - INTERVAL ? HOUR;";
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, tombstoneRetentionHours);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Sets the number of rows the batch methods send and commit together when no chunk size is given.
+     *
+     * @param chunkSize The default chunk size; must be at least 1.
+     */
+    public static void setBatchChunkSize(int chunkSize) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+        }
+        batchChunkSize = chunkSize;
+    }
+
+    /**
+     * Adds appointments to the database in batches of the default chunk size.
+     *
+     * @param appointments The appointments to add.  Each one's ID is set to its generated key once saved.
+     * @return The number of appointments saved.
+     */
+    public static int addAppointments(Collection<Appointment> appointments) {
+        return addAppointments(appointments, batchChunkSize);
+    }
+
+    /**
+     * Adds appointments to the database in batches.  Each chunk is sent with one executeBatch call and committed
+     * in its own transaction; if a chunk fails it is rolled back and the remaining chunks are skipped.
+     *
+     * @param appointments The appointments to add.  Each one's ID is set to its generated key once saved.
+     * @param chunkSize The number of appointments per batch and transaction.
+     * @return The number of appointments saved.
+     */
+    public static int addAppointments(Collection<Appointment> appointments, int chunkSize) {
+        return executeBatch(insertAppointmentQuery, appointments, chunkSize,
+                JDBCQuery::setInsertAppointmentParameters, Appointment::setId, chunk -> chunk.forEach(appointment -> {
+                    AppointmentOverlapIndex.put(appointment);
+                    ReportCounters.put(appointment);
+                    AppointmentSearch.put(appointment);
+                    ReportCache.invalidate(appointment);
+                    ReferenceDataCache.addType(appointment.getType());
+                }));
+    }
+
+    /**
+     * Updates appointments in the database in batches of the default chunk size.
+     *
+     * @param appointments The appointments to update.
+     * @return The number of appointments saved.
+     */
+    public static int updateAppointments(Collection<Appointment> appointments) {
+        return updateAppointments(appointments, batchChunkSize);
+    }
+
+    /**
+     * Updates appointments in the database in batches, committing each chunk in its own transaction.
+     *
+     * @param appointments The appointments to update.
+     * @param chunkSize The number of appointments per batch and transaction.
+     * @return The number of appointments saved.
+     */
+    public static int updateAppointments(Collection<Appointment> appointments, int chunkSize) {
+        return executeBatch(updateAppointmentQuery, appointments, chunkSize,
+                JDBCQuery::setUpdateAppointmentParameters, null, chunk -> chunk.forEach(appointment -> {
+                    AppointmentOverlapIndex.put(appointment);
+                    ReportCounters.put(appointment);
+                    AppointmentSearch.put(appointment);
+                    ReportCache.invalidate(appointment);
+                    ReferenceDataCache.addType(appointment.getType());
+                }));
+    }
+
+    /**
+     * Adds customers to the database in batches of the default chunk size.
+     *
+     * @param customers The customers to add.  Each one's ID is set to its generated key once saved.
+     * @return The number of customers saved.
+     */
+    public static int addCustomers(Collection<Customer> customers) {
+        return addCustomers(customers, batchChunkSize);
+    }
+
+    /**
+     * Adds customers to the database in batches, committing each chunk in its own transaction.
+     *
+     * @param customers The customers to add.  Each one's ID is set to its generated key once saved.
+     * @param chunkSize The number of customers per batch and transaction.
+     * @return The number of customers saved.
+     */
+    public static int addCustomers(Collection<Customer> customers, int chunkSize) {
+        return executeBatch(insertCustomerQuery, customers, chunkSize,
+                JDBCQuery::setInsertCustomerParameters, Customer::setId,
+                chunk -> chunk.forEach(ReportCounters::putCustomer));
+    }
+
+    /**
+     * Updates customers in the database in batches of the default chunk size.
+     *
+     * @param customers The customers to update.
+     * @return The number of customers saved.
+     */
+    public static int updateCustomers(Collection<Customer> customers) {
+        return updateCustomers(customers, batchChunkSize);
+    }
+
+    /**
+     * Updates customers in the database in batches, committing each chunk in its own transaction.
+     *
+     * @param customers The customers to update.
+     * @param chunkSize The number of customers per batch and transaction.
+     * @return The number of customers saved.
+     */
+    public static int updateCustomers(Collection<Customer> customers, int chunkSize) {
+        return executeBatch(updateCustomerQuery, customers, chunkSize,
+                JDBCQuery::setUpdateCustomerParameters, null, chunk -> chunk.forEach(customer -> {
+                    ReportCounters.putCustomer(customer);
+                    ReportCache.invalidateCustomer(customer.getId(),
+                            ReferenceDataCache.getDivisionCountry(customer.getDivisionId()));
+                }));
+    }
+
+    /**
+     * Sends rows to the database with addBatch/executeBatch, one chunk per transaction.  If a chunk fails it
+     * is rolled back, the error is printed and the remaining chunks are skipped, so the rows saved are always the first
+     * chunks of the collection.
+     *
+     * @param query The statement to run for each row.
+     * @param rows The rows to write.
+     * @param chunkSize The number of rows per batch and transaction.
+     * @param parameterSetter Sets the statement's parameters for one row.
+     * @param keySetter Receives each row's generated key, or null if the statement generates none.
+     * @param onCommit Called with each chunk once it has been committed.
+     * @param <T> The type of row.
+     * @return The number of rows committed.
+     */
+    private static <T> int executeBatch(String query, Collection<T> rows, int chunkSize,
+                                        ParameterSetter<T> parameterSetter, ObjIntConsumer<T> keySetter,
+                                        Consumer<List<T>> onCommit) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+        }
+        int committed = 0;
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = keySetter != null ?
+                    connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS) :
+                    connection.prepareStatement(query)) {
+            connection.setAutoCommit(false);
+            List<T> chunk = new ArrayList<>(Math.min(chunkSize, rows.size()));
+            Iterator<T> iterator = rows.iterator();
+            while(iterator.hasNext()) {
+                T row = iterator.next();
+                parameterSetter.set(stmt, row);
+                stmt.addBatch();
+                chunk.add(row);
+
+                if(chunk.size() == chunkSize || !iterator.hasNext()) {
+                    try {
+                        stmt.executeBatch();
+                        if(keySetter != null) {
+                            try(ResultSet rs = stmt.getGeneratedKeys()) {
+                                for(T chunkRow : chunk) {
+                                    if(!rs.next()) {
+                                        break;
+                                    }
+                                    keySetter.accept(chunkRow, rs.getInt(1));
+                                }
+                            }
+                        }
+                        connection.commit();
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    }
+                    committed += chunk.size();
+                    onCommit.accept(chunk);
+                    chunk = new ArrayList<>(chunk.size());
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+        return committed;
+    }
+
+    private static void setInsertAppointmentParameters(PreparedStatement stmt, Appointment appointment)
+            throws SQLException {
+        stmt.setString(1, appointment.getTitle());
+        stmt.setString(2, appointment.getDescription());
+        stmt.setString(3, appointment.getLocation());
+        stmt.setString(4, appointment.getType());
+        stmt.setTimestamp(5, appointment.getStartTimestamp());
+        stmt.setTimestamp(6, appointment.getEndTimestamp());
+        stmt.setTimestamp(7, appointment.getCreatedTimestamp());
+        stmt.setString(8, appointment.getCreatedBy());
+        stmt.setTimestamp(9, appointment.getUpdatedTimestamp());
+        stmt.setString(10, appointment.getUpdatedBy());
+        stmt.setInt(11, appointment.getCustomerId());
+        stmt.setInt(12, appointment.getUserId());
+        stmt.setInt(13, appointment.getContactId());
+    }
+
+    private static void setUpdateAppointmentParameters(PreparedStatement stmt, Appointment appointment)
+            throws SQLException {
+        stmt.setString(1, appointment.getTitle());
+        stmt.setString(2, appointment.getDescription());
+        stmt.setString(3, appointment.getLocation());
+        stmt.setString(4, appointment.getType());
+        stmt.setTimestamp(5, appointment.getStartTimestamp());
+        stmt.setTimestamp(6, appointment.getEndTimestamp());
+        stmt.setTimestamp(7, appointment.getUpdatedTimestamp());
+        stmt.setString(8, appointment.getUpdatedBy());
+        stmt.setInt(9, appointment.getCustomerId());
+        stmt.setInt(10, appointment.getUserId());
+        stmt.setInt(11, appointment.getContactId());
+        stmt.setInt(12, appointment.getId());
+    }
+
+    private static void setInsertCustomerParameters(PreparedStatement stmt, Customer customer) throws SQLException {
+        stmt.setString(1, customer.getName());
+        stmt.setString(2, customer.getAddress());
+        stmt.setString(3, customer.getPostalCode());
+        stmt.setString(4, customer.getPhone());
+        stmt.setTimestamp(5, customer.getCreatedTimestamp());
+        stmt.setString(6, customer.getCreatedBy());
+        stmt.setTimestamp(7, customer.getCreatedTimestamp());
+        stmt.setString(8, customer.getCreatedBy());
+        stmt.setInt(9, customer.getDivisionId());
+    }
+
+    private static void setUpdateCustomerParameters(PreparedStatement stmt, Customer customer) throws SQLException {
+        stmt.setString(1, customer.getName());
+        stmt.setString(2, customer.getAddress());
+        stmt.setString(3, customer.getPostalCode());
+        stmt.setString(4, customer.getPhone());
+        stmt.setTimestamp(5, customer.getUpdatedTimestamp());
+        stmt.setString(6, customer.getUpdatedBy());
+        stmt.setInt(7, customer.getDivisionId());
+        stmt.setInt(8, customer.getId());
+    }
+
+    /**
+     * Sets a prepared statement's parameters from one row.
+     *
+     * @param <T> The type of row.
+     */
+    @FunctionalInterface
+    private interface ParameterSetter<T> {
+        void set(PreparedStatement stmt, T row) throws SQLException;
+    }
 }
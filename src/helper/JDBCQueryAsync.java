@@ -0,0 +1,339 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import com.mc.model.AppointmentSnapshot;
+import com.mc.model.Customer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Abstract class providing CompletableFuture-returning counterparts of the JDBCQuery methods.
+ * Queries run on a background executor so the JavaFX Application Thread never waits on the database; callers
+ * marshal results back to the UI with FX_THREAD, e.g. {@code getAllAppointmentList().thenAcceptAsync(list -> ...,
+ * JDBCQueryAsync.FX_THREAD)}.
+ * Virtual threads are used when the runtime supports them (Java 21+), otherwise a bounded pool of daemon threads
+ * sized to the connection pool is used.
+ * @author Michael Cassidy
+ */
+public abstract class JDBCQueryAsync {
+    private static final int platformThreadCount = 10;
+    private static final ExecutorService executor = createExecutor();
+
+    /**
+     * Executor that runs tasks on the JavaFX Application Thread via Platform.runLater.
+     */
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    /**
+     * Creates the executor used for database work.
+     *
+     * @return A virtual-thread-per-task executor if available, otherwise a fixed pool of daemon threads.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch(ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newFixedThreadPool(platformThreadCount, runnable -> {
+                Thread thread = new Thread(runnable, "jdbc-query-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs a query on the background executor.
+     *
+     * @param query The query to run.
+     * @param <T> The query's result type.
+     * @return A future completed with the query's result.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+
+    /**
+     * Runs a statement with no result on the background executor.
+     *
+     * @param statement The statement to run.
+     * @return A future completed once the statement has run.
+     */
+    public static CompletableFuture<Void> run(Runnable statement) {
+        return CompletableFuture.runAsync(statement, executor);
+    }
+
+    /**
+     * Stops accepting new work.  Queries already submitted are allowed to finish.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAllAppointmentList()}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAllAppointmentList() {
+        return supply(JDBCQuery::getAllAppointmentList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getUpcomingAppointmentList()}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getUpcomingAppointmentList() {
+        return supply(JDBCQuery::getUpcomingAppointmentList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getWeekAppointmentList()}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getWeekAppointmentList() {
+        return supply(JDBCQuery::getWeekAppointmentList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getMonthAppointmentList()}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getMonthAppointmentList() {
+        return supply(JDBCQuery::getMonthAppointmentList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getContactList()}.
+     */
+    public static CompletableFuture<ObservableList<String>> getContactList() {
+        return supply(JDBCQuery::getContactList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getCustomerIdList()}.
+     */
+    public static CompletableFuture<ObservableList<Integer>> getCustomerIdList() {
+        return supply(JDBCQuery::getCustomerIdList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getContactId(String)}.
+     */
+    public static CompletableFuture<Integer> getContactId(String contactName) {
+        return supply(() -> JDBCQuery.getContactId(contactName));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getContactName(int)}.
+     */
+    public static CompletableFuture<String> getContactName(int contactId) {
+        return supply(() -> JDBCQuery.getContactName(contactId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getUserId(String)}.
+     */
+    public static CompletableFuture<Integer> getUserId(String userName) {
+        return supply(() -> JDBCQuery.getUserId(userName));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getUserName(int)}.
+     */
+    public static CompletableFuture<String> getUserName(int userId) {
+        return supply(() -> JDBCQuery.getUserName(userId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAppointmentSnapshot()}.
+     */
+    public static CompletableFuture<AppointmentSnapshot> getAppointmentSnapshot() {
+        return supply(JDBCQuery::getAppointmentSnapshot);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#addAppointment(Appointment)}.
+     */
+    public static CompletableFuture<Boolean> addAppointment(Appointment appointment) {
+        return supply(() -> JDBCQuery.addAppointment(appointment));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAppointment(int)}.
+     */
+    public static CompletableFuture<Appointment> getAppointment(int appointmentId) {
+        return supply(() -> JDBCQuery.getAppointment(appointmentId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#updateAppointment(Appointment, Timestamp)}.  A conflicting update
+     * completes the future exceptionally with an UpdateConflictException.
+     */
+    public static CompletableFuture<Integer> updateAppointment(Appointment appointment, Timestamp expectedLastUpdate) {
+        return supply(() -> JDBCQuery.updateAppointment(appointment, expectedLastUpdate));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#deleteAppointment(Appointment)}.
+     */
+    public static CompletableFuture<Boolean> deleteAppointment(Appointment appointment) {
+        return supply(() -> JDBCQuery.deleteAppointment(appointment));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#addAppointments(Collection)}.
+     */
+    public static CompletableFuture<Integer> addAppointments(Collection<Appointment> appointments) {
+        return supply(() -> JDBCQuery.addAppointments(appointments));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#updateAppointments(Collection)}.
+     */
+    public static CompletableFuture<Integer> updateAppointments(Collection<Appointment> appointments) {
+        return supply(() -> JDBCQuery.updateAppointments(appointments));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAllCustomerList()}.
+     */
+    public static CompletableFuture<ObservableList<Customer>> getAllCustomerList() {
+        return supply(JDBCQuery::getAllCustomerList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getCountryList()}.
+     */
+    public static CompletableFuture<ObservableList<String>> getCountryList() {
+        return supply(JDBCQuery::getCountryList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getCountryId(String)}.
+     */
+    public static CompletableFuture<Integer> getCountryId(String countryName) {
+        return supply(() -> JDBCQuery.getCountryId(countryName));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getDivisionList(int)}.
+     */
+    public static CompletableFuture<ObservableList<String>> getDivisionList(int countryId) {
+        return supply(() -> JDBCQuery.getDivisionList(countryId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getDivisionId(String)}.
+     */
+    public static CompletableFuture<Integer> getDivisionId(String divisionName) {
+        return supply(() -> JDBCQuery.getDivisionId(divisionName));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#addCustomer(Customer)}.
+     */
+    public static CompletableFuture<Void> addCustomer(Customer customer) {
+        return run(() -> JDBCQuery.addCustomer(customer));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getCustomer(int)}.
+     */
+    public static CompletableFuture<Customer> getCustomer(int customerId) {
+        return supply(() -> JDBCQuery.getCustomer(customerId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#updateCustomer(Customer, Timestamp)}.  A conflicting update
+     * completes the future exceptionally with an UpdateConflictException.
+     */
+    public static CompletableFuture<Integer> updateCustomer(Customer customer, Timestamp expectedLastUpdate) {
+        return supply(() -> JDBCQuery.updateCustomer(customer, expectedLastUpdate));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#addCustomers(Collection)}.
+     */
+    public static CompletableFuture<Integer> addCustomers(Collection<Customer> customers) {
+        return supply(() -> JDBCQuery.addCustomers(customers));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#updateCustomers(Collection)}.
+     */
+    public static CompletableFuture<Integer> updateCustomers(Collection<Customer> customers) {
+        return supply(() -> JDBCQuery.updateCustomers(customers));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#deleteCustomer(int)}.
+     */
+    public static CompletableFuture<Boolean> deleteCustomer(int customerId) {
+        return supply(() -> JDBCQuery.deleteCustomer(customerId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#deleteCustomer(int, JDBCQuery.DeleteProgressListener)}.  The
+     * listener is called on the background thread.
+     */
+    public static CompletableFuture<Boolean> deleteCustomer(int customerId,
+                                                            JDBCQuery.DeleteProgressListener progressListener) {
+        return supply(() -> JDBCQuery.deleteCustomer(customerId, progressListener));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getTypeList()}.
+     */
+    public static CompletableFuture<ObservableList<String>> getTypeList() {
+        return supply(JDBCQuery::getTypeList);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAppointmentListByTypeAndMonth(String, String)}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentListByTypeAndMonth(String typeString,
+                                                                                                  String monthString) {
+        return supply(() -> JDBCQuery.getAppointmentListByTypeAndMonth(typeString, monthString));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAppointmentListByContactId(int)}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentListByContactId(int contactId) {
+        return supply(() -> JDBCQuery.getAppointmentListByContactId(contactId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAppointmentListByCustomerId(int)}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentListByCustomerId(int customerId) {
+        return supply(() -> JDBCQuery.getAppointmentListByCustomerId(customerId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getAppointmentListByCountry(String)}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentListByCountry(String countryName) {
+        return supply(() -> JDBCQuery.getAppointmentListByCountry(countryName));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link AppointmentSearch#search(String, int)}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> searchAppointments(String query, int limit) {
+        return supply(() -> AppointmentSearch.search(query, limit));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link JDBCQuery#getOverlappingAppointmentList(Timestamp, Timestamp, int)}.
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getOverlappingAppointmentList(Timestamp startTimestamp,
+                                                                                               Timestamp endTimestamp,
+                                                                                               int appointmentId) {
+        return supply(() -> JDBCQuery.getOverlappingAppointmentList(startTimestamp, endTimestamp, appointmentId));
+    }
+}
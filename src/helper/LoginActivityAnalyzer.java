@@ -0,0 +1,426 @@
+package com.mc.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Counts successful and failed logins per user, per time zone and per hour of the day from the login activity logs
+ * written by LoginActivityLog.
+ * Plain log files are memory-mapped and split into segments at line boundaries, and the segments are parsed in
+ * parallel.  Lines are parsed directly from the mapped bytes: a user name or time zone only becomes a String the
+ * first time a segment sees it, so the work per line is a scan and a hash-table update.  Rolled .gz files cannot be
+ * mapped and are decompressed as streams, one task per file.  The partial counts are merged at the end.
+ * Run from the command line with the log files or directories to read (default: the working directory).
+ * @author Michael Cassidy
+ */
+public class LoginActivityAnalyzer {
+    private static final long segmentBytes = 64L * 1024 * 1024;
+    private static final int maxLineBytes = 64 * 1024;
+    private static final int gzipChunkBytes = 8 * 1024 * 1024;
+
+    private final Map<String, long[]> userCounts;
+    private final Map<String, long[]> zoneCounts;
+    private final long[][] hourCounts;
+    private final long malformedLines;
+
+    private LoginActivityAnalyzer(Counts counts) {
+        this.userCounts = counts.users.toMap();
+        this.zoneCounts = counts.zones.toMap();
+        this.hourCounts = counts.hours;
+        this.malformedLines = counts.malformed;
+    }
+
+    /**
+     * Analyzes the login activity logs given on the command line and prints the histograms.
+     *
+     * @param args Log files or directories containing them.  Defaults to the working directory.
+     */
+    public static void main(String[] args) {
+        try {
+            List<Path> files = new ArrayList<>();
+            for(String arg : args.length == 0 ? new String[] {"."} : args) {
+                Path path = Path.of(arg);
+                if(Files.isDirectory(path)) {
+                    files.addAll(findLogFiles(path));
+                } else {
+                    files.add(path);
+                }
+            }
+            long startNanos = System.nanoTime();
+            LoginActivityAnalyzer analyzer = analyze(files);
+            System.out.println(analyzer);
+            System.out.printf("Analyzed %d files in %.3f s%n", files.size(), (System.nanoTime() - startNanos) / 1e9);
+        } catch(IOException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Finds the current and rolled login activity logs in a directory.
+     *
+     * @param directory The directory to search.
+     * @return login_activity.txt and every login_activity.*.txt and .txt.gz file, sorted by name.
+     * @throws IOException If the directory cannot be read.
+     */
+    public static List<Path> findLogFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                "login_activity{.txt,.*.txt,.*.txt.gz}")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Counts the logins in a set of log files.
+     *
+     * @param files The log files.  Names ending in .gz are read as gzip-compressed.
+     * @return The analyzer holding the merged counts.
+     * @throws IOException If a file cannot be read.
+     */
+    public static LoginActivityAnalyzer analyze(List<Path> files) throws IOException {
+        List<CompletableFuture<Counts>> tasks = new ArrayList<>();
+        for(Path file : files) {
+            if(file.getFileName().toString().endsWith(".gz")) {
+                tasks.add(CompletableFuture.supplyAsync(() -> countCompressed(file), ForkJoinPool.commonPool()));
+                continue;
+            }
+            long size = Files.size(file);
+            for(long start = 0; start < size; start += segmentBytes) {
+                long segmentStart = start;
+                long segmentEnd = Math.min(size, start + segmentBytes);
+                tasks.add(CompletableFuture.supplyAsync(() -> countSegment(file, segmentStart, segmentEnd, size),
+                        ForkJoinPool.commonPool()));
+            }
+        }
+
+        Counts total = new Counts();
+        try {
+            for(CompletableFuture<Counts> task : tasks) {
+                total.merge(task.join());
+            }
+        } catch(CompletionException e) {
+            if(e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        }
+        return new LoginActivityAnalyzer(total);
+    }
+
+    /**
+     * Returns the successful and failed logins of each user.
+     *
+     * @return A map from user name to {successes, failures}, sorted by user name.
+     */
+    public Map<String, long[]> getUserCounts() { return userCounts; }
+
+    /**
+     * Returns the successful and failed logins from each time zone.
+     *
+     * @return A map from time zone to {successes, failures}, sorted by time zone.
+     */
+    public Map<String, long[]> getZoneCounts() { return zoneCounts; }
+
+    /**
+     * Returns the successful and failed logins in each hour of the day, in the time zone of each attempt.
+     *
+     * @return 24 arrays of {successes, failures}, indexed by hour.
+     */
+    public long[][] getHourCounts() { return hourCounts; }
+
+    public long getMalformedLines() { return malformedLines; }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        appendTable(report, "User", userCounts);
+        appendTable(report, "Time zone", zoneCounts);
+        Map<String, long[]> hours = new TreeMap<>();
+        for(int hour = 0; hour < 24; hour++) {
+            hours.put(String.format("%02d:00", hour), hourCounts[hour]);
+        }
+        appendTable(report, "Hour", hours);
+        if(malformedLines > 0) {
+            report.append("Malformed lines: ").append(malformedLines).append('\n');
+        }
+        return report.toString();
+    }
+
+    private static void appendTable(StringBuilder report, String heading, Map<String, long[]> counts) {
+        int width = heading.length();
+        for(String key : counts.keySet()) {
+            width = Math.max(width, key.length());
+        }
+        String row = "%-" + width + "s %10s %10s%n";
+        report.append(String.format(row, heading, "Success", "Failure"));
+        counts.forEach((key, count) -> report.append(String.format(row, key, count[0], count[1])));
+        report.append('\n');
+    }
+
+    /**
+     * Counts the lines that start in [start, end) of a plain log file.  The mapping starts one byte early, to tell
+     * whether start is at the beginning of a line, and runs past end, to finish the last line.
+     */
+    private static Counts countSegment(Path file, long start, long end, long size) {
+        Counts counts = new Counts();
+        long mapStart = Math.max(0, start - 1);
+        long mapEnd = Math.min(size, end + maxLineBytes);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+            int position = 0;
+            if(start > 0) {
+//              Skip the line that began in the previous segment
+                while(position < buffer.limit() && buffer.get(position++) != '\n') { }
+            }
+            int limit = (int) (end - mapStart);
+            while(position < limit) {
+                int lineEnd = indexOf(buffer, '\n', position, buffer.limit());
+                if(lineEnd < 0) {
+                    if(mapEnd < size) {
+                        counts.malformed++;
+                        break;
+                    }
+                    lineEnd = buffer.limit();
+                }
+                counts.parseLine(buffer, position, lineEnd);
+                position = lineEnd + 1;
+            }
+        } catch(IOException e) {
+            throw new CompletionException(e);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the lines of a gzip-compressed log file, decompressing it a chunk at a time.
+     */
+    private static Counts countCompressed(Path file) {
+        Counts counts = new Counts();
+        byte[] chunk = new byte[gzipChunkBytes];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        try(InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024)) {
+            int length = 0;
+            int read;
+            while((read = in.read(chunk, length, chunk.length - length)) >= 0 || length > 0) {
+                boolean endOfFile = read < 0;
+                length += Math.max(read, 0);
+                if(!endOfFile && length < chunk.length) {
+                    continue;
+                }
+                int position = 0;
+                int lineEnd;
+                while((lineEnd = indexOf(buffer, '\n', position, length)) >= 0) {
+                    counts.parseLine(buffer, position, lineEnd);
+                    position = lineEnd + 1;
+                }
+                if(endOfFile) {
+                    if(position < length) {
+                        counts.parseLine(buffer, position, length);
+                    }
+                    break;
+                }
+                if(position == 0) {
+//                  A line longer than the whole chunk cannot be parsed; drop it
+                    counts.malformed++;
+                    length = 0;
+                    continue;
+                }
+                System.arraycopy(chunk, position, chunk, 0, length - position);
+                length -= position;
+            }
+        } catch(IOException e) {
+            throw new CompletionException(e);
+        }
+        return counts;
+    }
+
+    private static int indexOf(ByteBuffer buffer, char c, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Login counts for part of the logs.  Each task fills its own, so no locking is needed until they are merged.
+     */
+    private static final class Counts {
+        private final KeyCounts users = new KeyCounts();
+        private final KeyCounts zones = new KeyCounts();
+        private final long[][] hours = new long[24][2];
+        private long malformed;
+
+        /**
+         * Parses one {@code user, timestamp, zone, success} line.  The fields are found from the end of the line so
+         * that a comma in a user name does not shift them.
+         */
+        private void parseLine(ByteBuffer buffer, int start, int end) {
+            if(end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if(end == start) {
+                return;
+            }
+            int successStart = lastFieldStart(buffer, start, end);
+            int zoneEnd = successStart - 2;
+            int zoneStart = zoneEnd < start ? -1 : lastFieldStart(buffer, start, zoneEnd);
+            int timestampEnd = zoneStart - 2;
+            int timestampStart = timestampEnd < start ? -1 : lastFieldStart(buffer, start, timestampEnd);
+            int userEnd = timestampStart - 2;
+            if(successStart <= start || zoneStart <= start || timestampStart <= start || userEnd <= start ||
+                    timestampEnd - timestampStart < 13) {
+                malformed++;
+                return;
+            }
+
+            int hourTens = buffer.get(timestampStart + 11) - '0';
+            int hourUnits = buffer.get(timestampStart + 12) - '0';
+            int hour = hourTens * 10 + hourUnits;
+            if(hourTens < 0 || hourTens > 9 || hourUnits < 0 || hourUnits > 9 || hour > 23) {
+                malformed++;
+                return;
+            }
+
+            int outcome = buffer.get(successStart) == 't' ? 0 : 1;
+            users.increment(buffer, start, userEnd, outcome);
+            zones.increment(buffer, zoneStart, zoneEnd, outcome);
+            hours[hour][outcome]++;
+        }
+
+        /**
+         * Returns the start of the field ending at end, i.e. the position after the last ", " before it, or start
+         * if there is none.
+         */
+        private static int lastFieldStart(ByteBuffer buffer, int start, int end) {
+            for(int i = end - 1; i > start; i--) {
+                if(buffer.get(i) == ' ' && buffer.get(i - 1) == ',') {
+                    return i + 1;
+                }
+            }
+            return start;
+        }
+
+        private void merge(Counts other) {
+            users.merge(other.users);
+            zones.merge(other.zones);
+            for(int hour = 0; hour < 24; hour++) {
+                hours[hour][0] += other.hours[hour][0];
+                hours[hour][1] += other.hours[hour][1];
+            }
+            malformed += other.malformed;
+        }
+    }
+
+    /**
+     * An open-addressing hash table from a field's bytes to its success and failure counts.  Keys are looked up
+     * straight from the buffer and only copied the first time they are seen.
+     */
+    private static final class KeyCounts {
+        private byte[][] keys = new byte[64][];
+        private int[] hashes = new int[64];
+        private long[][] counts = new long[64][];
+        private int size;
+
+        private void increment(ByteBuffer buffer, int start, int end, int outcome) {
+            int hash = 1;
+            for(int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while(keys[slot] != null) {
+                if(hashes[slot] == hash && matches(keys[slot], buffer, start, end)) {
+                    counts[slot][outcome]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            byte[] key = new byte[end - start];
+            buffer.get(start, key);
+            insert(key, hash, new long[2]);
+            increment(buffer, start, end, outcome);
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+            if(key.length != end - start) {
+                return false;
+            }
+            for(int i = 0; i < key.length; i++) {
+                if(key[i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void insert(byte[] key, int hash, long[] count) {
+            if(2 * (size + 1) > keys.length) {
+                byte[][] oldKeys = keys;
+                int[] oldHashes = hashes;
+                long[][] oldCounts = counts;
+                keys = new byte[oldKeys.length * 2][];
+                hashes = new int[oldKeys.length * 2];
+                counts = new long[oldKeys.length * 2][];
+                size = 0;
+                for(int i = 0; i < oldKeys.length; i++) {
+                    if(oldKeys[i] != null) {
+                        insert(oldKeys[i], oldHashes[i], oldCounts[i]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while(keys[slot] != null) {
+                if(hashes[slot] == hash && Arrays.equals(keys[slot], key)) {
+                    counts[slot][0] += count[0];
+                    counts[slot][1] += count[1];
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            hashes[slot] = hash;
+            counts[slot] = count;
+            size++;
+        }
+
+        private void merge(KeyCounts other) {
+            for(int i = 0; i < other.keys.length; i++) {
+                if(other.keys[i] != null) {
+                    insert(other.keys[i], other.hashes[i], other.counts[i].clone());
+                }
+            }
+        }
+
+        private Map<String, long[]> toMap() {
+            Map<String, long[]> map = new TreeMap<>();
+            for(int i = 0; i < keys.length; i++) {
+                if(keys[i] != null) {
+                    map.put(new String(keys[i], StandardCharsets.UTF_8), counts[i]);
+                }
+            }
+            return map;
+        }
+    }
+}
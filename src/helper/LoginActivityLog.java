@@ -0,0 +1,216 @@
+package com.mc.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Abstract class that appends login attempts to login_activity.txt in the background.
+ * Callers only add a line to a lock-free queue, so logging never blocks the JavaFX Application Thread on file I/O.
+ * A single writer thread drains the queue into a buffer and writes it to a FileChannel once a batch has built up or
+ * the flush interval has passed, keeping the file open between writes.
+ * When the file grows past maxFileBytes, or the first write of a new day arrives, it is renamed to
+ * login_activity.yyyy-MM-dd.N.txt and compressed to a .gz file, and a new login_activity.txt is started.
+ * Lines keep the format {@code user, timestamp, zone, success}.  Call shutdown before exiting so queued lines are
+ * written.
+ * @author Michael Cassidy
+ */
+public abstract class LoginActivityLog {
+    private static final Path logPath = Path.of("login_activity.txt");
+    private static final ZoneId timeZone = ZoneId.systemDefault();
+    private static final long maxFileBytes = 10L * 1024 * 1024;
+    private static final int batchLines = 64;
+    private static final int bufferSize = 64 * 1024;
+    private static final long flushIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+    private static final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger queuedLines = new AtomicInteger();
+    private static final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+    private static final Thread writer = new Thread(LoginActivityLog::writeLoop, "login-activity-writer");
+    private static volatile boolean closed;
+    private static FileChannel channel;
+    private static LocalDate fileDate;
+
+    static {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a login attempt to be written to the log.  Returns immediately.
+     *
+     * @param userName The username of the user attempting to log in
+     * @param loginSuccessful A boolean indicating whether the login was successful
+     */
+    public static void append(String userName, boolean loginSuccessful) {
+        if(closed) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now());
+        queue.add(userName + ", " + timestamp + ", " + timeZone + ", " + loginSuccessful + "\n");
+        if(queuedLines.incrementAndGet() >= batchLines) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Stops accepting lines, writes everything still queued, and closes the log file.  Waits at most five seconds.
+     */
+    public static void shutdown() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs on the writer thread: drains the queue into the buffer, flushing when the buffer fills, a batch has been
+     * queued, the flush interval has passed or the log is shutting down.
+     */
+    private static void writeLoop() {
+        long lastFlushNanos = System.nanoTime();
+        int bufferedLines = 0;
+        while(true) {
+            boolean stopping = closed;
+            String line;
+            while((line = queue.poll()) != null) {
+                queuedLines.decrementAndGet();
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                if(bytes.length > buffer.remaining()) {
+                    flush(false);
+                    bufferedLines = 0;
+                }
+                if(bytes.length <= buffer.remaining()) {
+                    buffer.put(bytes);
+                    bufferedLines++;
+                }
+            }
+
+            long now = System.nanoTime();
+            if(buffer.position() > 0 && (stopping || now - lastFlushNanos >= flushIntervalNanos ||
+                    bufferedLines >= batchLines)) {
+                flush(stopping);
+                bufferedLines = 0;
+                lastFlushNanos = now;
+            }
+            if(stopping) {
+                closeChannel();
+                return;
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+    }
+
+    /**
+     * Writes the buffer to the log file, rolling the file first if it is full or from an earlier day.
+     *
+     * @param force true to also force the written bytes to disk.
+     */
+    private static void flush(boolean force) {
+        buffer.flip();
+        try {
+            if(channel == null) {
+                openChannel();
+            }
+            if(channel.size() + buffer.remaining() > maxFileBytes || !LocalDate.now().equals(fileDate)) {
+                roll();
+            }
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if(force) {
+                channel.force(false);
+            }
+        } catch(IOException e) {
+            System.err.println(e);
+            closeChannel();
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private static void openChannel() throws IOException {
+        channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileDate = channel.size() == 0 ? LocalDate.now() :
+                LocalDate.ofInstant(Files.getLastModifiedTime(logPath).toInstant(), timeZone);
+    }
+
+    /**
+     * Renames the current log file to a dated name, compresses it, and opens a new empty log file.
+     * An empty file is reused instead.
+     */
+    private static void roll() throws IOException {
+        if(channel.size() > 0) {
+            closeChannel();
+            Path rolledPath = nextRolledPath(fileDate);
+            Files.move(logPath, rolledPath);
+            compress(rolledPath);
+        }
+        if(channel == null || !channel.isOpen()) {
+            openChannel();
+        }
+        fileDate = LocalDate.now();
+    }
+
+    /**
+     * Finds the first unused name of the form login_activity.yyyy-MM-dd.N.txt for a day's rolled files.
+     */
+    private static Path nextRolledPath(LocalDate date) {
+        for(int i = 1; ; i++) {
+            Path path = logPath.resolveSibling("login_activity." + date + "." + i + ".txt");
+            Path compressedPath = path.resolveSibling(path.getFileName() + ".gz");
+            if(!Files.exists(path) && !Files.exists(compressedPath)) {
+                return path;
+            }
+        }
+    }
+
+    /**
+     * Replaces a rolled log file with a gzip-compressed copy.  If compression fails the uncompressed file is kept.
+     */
+    private static void compress(Path path) {
+        Path compressedPath = path.resolveSibling(path.getFileName() + ".gz");
+        try(InputStream in = Files.newInputStream(path);
+            OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressedPath), bufferSize)) {
+            in.transferTo(out);
+        } catch(IOException e) {
+            System.err.println(e);
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(compressedPath, Files.getLastModifiedTime(path));
+            Files.delete(path);
+        } catch(IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    private static void closeChannel() {
+        if(channel != null) {
+            try {
+                channel.close();
+            } catch(IOException e) {
+                System.err.println(e);
+            }
+            channel = null;
+        }
+    }
+}
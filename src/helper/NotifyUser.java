@@ -5,6 +5,11 @@ import com.mc.model.Customer;
 import javafx.collections.ObservableList;
 import javafx.scene.control.*;
 import javafx.scene.layout.Region;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -12,6 +17,7 @@ import java.time.ZoneId;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -116,6 +122,9 @@ public abstract class NotifyUser {
             warningPanel(messages.getString("notify.noApptSelected"), messages.getString("notify.pleaseSelectAppt"));
         } else if(type.equals("customer")) {
             warningPanel(messages.getString("notify.noCustSelected"), messages.getString("notify.pleaseSelectCust"));
+        } else if(type.equals("report")) {
+            warningPanel(messages.getString("notify.noReportSelected"),
+                    messages.getString("notify.pleaseSelectReport"));
         }
     }
 
@@ -131,9 +140,9 @@ public abstract class NotifyUser {
      */
     public static void upcomingAppointments(ObservableList<Appointment> appointmentList) {
         AtomicBoolean noUpcomingAppointments = new AtomicBoolean(true);
+        Timestamp currentTime = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
         appointmentList.forEach(appointment -> {
             Timestamp appointmentStart = appointment.getStartTimestamp();
-            Timestamp currentTime = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
             if(TimeUtils.isWithinFifteenMinutes(appointmentStart, currentTime)) {
                 noUpcomingAppointments.set(false);
                 String content = messages.getString("notify.upcomingAppt") + " #" + appointment.getId() + " " +
@@ -241,6 +250,59 @@ public abstract class NotifyUser {
         informationPanel(title.toString(), body.toString());
     }
 
+    /**
+     * Displays a warning panel, notifying the user that their changes were not saved because someone else updated or
+     * deleted the appointment or customer while it was being edited.
+     *
+     * @param conflict The conflict reported by the update.
+     */
+    public static void updateConflict(UpdateConflictException conflict) {
+        String object = messages.getString(conflict.getTable().equals("customers") ? "notify.customer" :
+                "notify.appointment");
+        String body = object + " " + conflict.getId() + " ";
+        if(conflict.isDeleted()) {
+            body += messages.getString("notify.deletedByAnotherUser");
+        } else {
+            body += messages.getString("notify.changedBy") + " " + conflict.getCurrentLastUpdatedBy() + " " +
+                    messages.getString("notify.changesReloaded");
+        }
+
+        warningPanel(messages.getString("notify.updateConflictTitle"), body);
+    }
+
+    /**
+     * Displays a warning panel, notifying the user that an appointment or customer could not be updated, for example
+     * because the database could not be reached.
+     *
+     * @param object The appointment or customer that was not updated.
+     */
+    public static void objectNotUpdated(Object object) {
+        String body = "";
+        if(object instanceof Appointment appointment) {
+            body = messages.getString("notify.appointment") + " " + appointment.getId() + " ";
+        } else if(object instanceof Customer customer) {
+            body = messages.getString("notify.customer") + " " + customer.getId() + " ";
+        }
+
+        warningPanel(messages.getString("notify.notSavedTitle"), body + messages.getString("notify.wasNotSaved"));
+    }
+
+    /**
+     * Displays a warning panel, notifying the user that a new appointment or customer could not be saved.
+     *
+     * @param objectClass The class of the appointment or customer that was not saved.
+     */
+    public static void objectNotSaved(Class<?> objectClass) {
+        String body = "";
+        if(objectClass == Appointment.class) {
+            body = messages.getString("notify.appointment") + " ";
+        } else if(objectClass == Customer.class) {
+            body = messages.getString("notify.customer") + " ";
+        }
+
+        warningPanel(messages.getString("notify.notSavedTitle"), body + messages.getString("notify.wasNotSaved"));
+    }
+
     /**
      * Displays an information panel, notifying the user that an object has been saved.
      *
@@ -324,4 +386,119 @@ public abstract class NotifyUser {
         }
     }
 
+    /**
+     * Displays a warning alert dialog when an appointment or customer could not be deleted.
+     *
+     * @param object The appointment or customer that was not deleted.
+     */
+    public static void objectNotDeleted(Object object) {
+        if(object instanceof Appointment appointment) {
+            String body = messages.getString("main.id") + " " + appointment.getId() + " - " + appointment.getType() +
+                    " " + messages.getString("notify.wasNotDeleted");
+
+            warningPanel(messages.getString("notify.appointmentNotDeletedTitle"), body);
+        } else if(object instanceof Customer customer) {
+            String body = messages.getString("main.customerId") + " " + customer.getId() + " - " + customer.getName() +
+                    " " + messages.getString("notify.wasNotDeleted");
+
+            warningPanel(messages.getString("notify.customerNotDeletedTitle"), body);
+        }
+    }
+
+    /**
+     * Displays an information alert dialog summarising a CSV import, listing the first rejected rows.
+     *
+     * @param report The import's report.
+     */
+    public static void importFinished(ImportReport report) {
+        StringBuilder body = new StringBuilder().append(report.getRowsImported()).append(' ')
+                .append(messages.getString("notify.importedRows")).append(' ').append(report.getRowsRead())
+                .append(".\n").append(report.getErrors().size()).append(' ')
+                .append(messages.getString("notify.rejectedRows"));
+        report.getErrors().stream().limit(10).forEach(error -> body.append('\n').append(error));
+        if(report.getErrors().size() > 10) {
+            body.append("\n...");
+        }
+
+        informationPanel(messages.getString("notify.importFinishedTitle"), body.toString());
+    }
+
+    /**
+     * Displays a warning alert dialog when a CSV file cannot be imported at all.
+     *
+     * @param e The error that stopped the import, possibly wrapped by the future that ran it.
+     */
+    public static void importFailed(Throwable e) {
+        warningPanel(messages.getString("notify.importFailedTitle"), getCauseMessage(e));
+    }
+
+    /**
+     * Displays an information alert dialog when a report has been exported.
+     *
+     * @param rows The number of appointments exported.
+     * @param path The file the report was exported to.
+     */
+    public static void exportFinished(long rows, Path path) {
+        informationPanel(messages.getString("notify.exportFinishedTitle"),
+                rows + " " + messages.getString("notify.exportedRows") + " " + path);
+    }
+
+    /**
+     * Displays a warning alert dialog when a report cannot be exported.
+     *
+     * @param e The error that stopped the export, possibly wrapped by the future that ran it.
+     */
+    public static void exportFailed(Throwable e) {
+        warningPanel(messages.getString("notify.exportFailedTitle"), getCauseMessage(e));
+    }
+
+    /**
+     * Returns the message of the error behind a failed background task, unwrapping the exceptions the future and the
+     * task wrapped it in.
+     *
+     * @param e The error the future completed with.
+     * @return The underlying error's message.
+     */
+    private static String getCauseMessage(Throwable e) {
+        while((e instanceof CompletionException || e instanceof UncheckedIOException) &&
+                e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    /**
+     * Displays a file chooser for picking a CSV file to import.
+     *
+     * @param owner The window the chooser belongs to.
+     * @return The chosen file, or null if the user cancelled.
+     */
+    public static Path chooseCsvFile(Window owner) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(messages.getString("notify.importChooseFile"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        File file = fileChooser.showOpenDialog(owner);
+        return file == null ? null : file.toPath();
+    }
+
+    /**
+     * Displays a file chooser for picking where to export a report.  The chosen extension selects the format: .csv
+     * or .ndjson, optionally followed by .gz to compress the file.
+     *
+     * @param owner The window the chooser belongs to.
+     * @return The chosen file, or null if the user cancelled.
+     */
+    public static Path chooseExportFile(Window owner) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(messages.getString("notify.exportChooseFile"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("NDJSON", "*.ndjson"),
+                new FileChooser.ExtensionFilter("CSV (gzip)", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("NDJSON (gzip)", "*.ndjson.gz"));
+        fileChooser.setInitialFileName("report.csv");
+        File file = fileChooser.showSaveDialog(owner);
+        return file == null ? null : file.toPath();
+    }
+
 }
@@ -0,0 +1,365 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A sliding window of appointment pages for a TableView, fetched on demand with an AppointmentPageQuery.
+ * At most maxPages pages are held at once: loading a page past either end of the window drops the page at the other
+ * end, so memory stays bounded however large the appointments table grows.
+ * Once loaded, the window can be refreshed: only appointments whose Last_Update is after the window's watermark, and
+ * deletions recorded in appointment_tombstones since it was loaded, are fetched and applied to the items in place.
+ * Pages are fetched in the background; every method must be called on the JavaFX Application Thread, and the
+ * returned futures complete on it.
+ * @author Michael Cassidy
+ */
+public class PagedAppointmentList {
+    private static final int maxChanges = 500;
+    private static final long lookbackMillis = TimeUnit.MINUTES.toMillis(5);
+    private static final long maxSyncAgeMillis = TimeUnit.HOURS.toMillis(JDBCQuery.tombstoneRetentionHours - 1);
+    private final int pageSize;
+    private final int maxPages;
+    private final ObservableList<Appointment> items = FXCollections.observableArrayList();
+    private final Deque<Integer> pageSizes = new ArrayDeque<>();
+    private AppointmentPageQuery query;
+    private CompletableFuture<Integer> pendingFetch = CompletableFuture.completedFuture(0);
+    private int generation;
+    private boolean atStart = true;
+    private boolean atEnd = true;
+    private Timestamp updateWatermark;
+    private long tombstoneWatermark;
+    private long syncedAtMillis;
+
+    /**
+     * Creates an empty list.
+     *
+     * @param pageSize The number of appointments fetched per page.
+     * @param maxPages The maximum number of pages held at once.
+     */
+    public PagedAppointmentList(int pageSize, int maxPages) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Returns the appointments currently in the window, for use as a TableView's items.
+     *
+     * @return The live list of loaded appointments.
+     */
+    public ObservableList<Appointment> getItems() { return items; }
+
+    public AppointmentPageQuery getQuery() { return query; }
+
+    public boolean isLoading() { return !pendingFetch.isDone(); }
+
+    /**
+     * Replaces the window with the first page of a new query.  Pages still being fetched for the previous query are
+     * discarded when they arrive.
+     * The watermarks for refresh are taken before the page is read, so no change made while it loads is missed.
+     *
+     * @param query The query to page through.
+     * @return A future completed with the number of appointments loaded.
+     */
+    public CompletableFuture<Integer> load(AppointmentPageQuery query) {
+        this.query = query;
+        int fetchGeneration = ++generation;
+        items.clear();
+        pageSizes.clear();
+        atStart = true;
+        atEnd = false;
+
+        Timestamp loadWatermark = TimeUtils.convertToUtcTimestamp(LocalDate.now(), LocalTime.now());
+        CompletableFuture<Long> tombstoneFetch = JDBCQueryAsync.supply(JDBCQuery::getLastTombstoneId);
+        pendingFetch = tombstoneFetch
+                .thenCompose(tombstoneId -> JDBCQueryAsync.supply(() -> query.fetchFirst(pageSize)))
+                .thenApplyAsync(page -> {
+                    if(fetchGeneration != generation) {
+                        return 0;
+                    }
+                    updateWatermark = loadWatermark;
+                    tombstoneWatermark = tombstoneFetch.join();
+                    syncedAtMillis = System.currentTimeMillis();
+                    addLast(page);
+                    return page.size();
+                }, JDBCQueryAsync.FX_THREAD);
+        return pendingFetch;
+    }
+
+    /**
+     * Fetches the page after the window, dropping the first page if the window is full.
+     *
+     * @return A future completed with the number of appointments removed from the start of the window, so the caller
+     * can keep the same rows in view; 0 if nothing was fetched.
+     */
+    public CompletableFuture<Integer> loadNext() {
+        if(atEnd || isLoading() || items.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        int fetchGeneration = generation;
+        Appointment last = items.get(items.size() - 1);
+        AppointmentPageQuery fetchQuery = query;
+
+        pendingFetch = JDBCQueryAsync.supply(() -> fetchQuery.fetchAfter(last, pageSize))
+                .thenApplyAsync(page -> {
+                    if(fetchGeneration != generation) {
+                        return 0;
+                    }
+                    addLast(page);
+                    if(pageSizes.size() > maxPages) {
+                        int removed = pageSizes.removeFirst();
+                        items.remove(0, removed);
+                        atStart = false;
+                        return removed;
+                    }
+                    return 0;
+                }, JDBCQueryAsync.FX_THREAD);
+        return pendingFetch;
+    }
+
+    /**
+     * Fetches the page before the window, dropping the last page if the window is full.
+     *
+     * @return A future completed with the number of appointments inserted at the start of the window, so the caller
+     * can keep the same rows in view; 0 if nothing was fetched.
+     */
+    public CompletableFuture<Integer> loadPrevious() {
+        if(atStart || isLoading() || items.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        int fetchGeneration = generation;
+        Appointment first = items.get(0);
+        AppointmentPageQuery fetchQuery = query;
+
+        pendingFetch = JDBCQueryAsync.supply(() -> fetchQuery.fetchBefore(first, pageSize))
+                .thenApplyAsync(page -> {
+                    if(fetchGeneration != generation) {
+                        return 0;
+                    }
+                    if(page.size() < pageSize) {
+                        atStart = true;
+                    }
+                    if(page.isEmpty()) {
+                        return 0;
+                    }
+                    items.addAll(0, page);
+                    pageSizes.addFirst(page.size());
+                    if(pageSizes.size() > maxPages) {
+                        int removed = pageSizes.removeLast();
+                        items.remove(items.size() - removed, items.size());
+                        atEnd = false;
+                    }
+                    return page.size();
+                }, JDBCQueryAsync.FX_THREAD);
+        return pendingFetch;
+    }
+
+    /**
+     * Brings the window up to date with the appointments added, updated and deleted since it was loaded or last
+     * refreshed, without refetching its pages.
+     * Updates are read from a few minutes before the watermark, so a change saved by a client whose clock is slightly
+     * behind is not missed; rows that have not changed since they were loaded are skipped.  An updated appointment is
+     * replaced where it is if it still sorts there, and otherwise moved, or dropped if it now falls outside the
+     * window.  If too many appointments have changed, or the window is older than the tombstones kept, the first
+     * page is reloaded instead.
+     *
+     * @return A future completed with the number of appointments added, replaced or removed, or with the number
+     * loaded if the window was reloaded; 0 if nothing changed or the refresh failed.
+     */
+    public CompletableFuture<Integer> refresh() {
+        if(query == null || isLoading()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        if(System.currentTimeMillis() - syncedAtMillis > maxSyncAgeMillis) {
+            return load(query);
+        }
+        int fetchGeneration = generation;
+        AppointmentPageQuery refreshQuery = query;
+        Timestamp updatedAfter = new Timestamp(updateWatermark.getTime() - lookbackMillis);
+        long tombstoneAfter = tombstoneWatermark;
+
+        pendingFetch = JDBCQueryAsync.supply(() -> {
+                    try {
+                        return JDBCQuery.getAppointmentChanges(updatedAfter, tombstoneAfter, maxChanges);
+                    } catch(SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .handleAsync((changes, e) -> {
+                    if(e != null) {
+                        System.out.println(e);
+                        return CompletableFuture.completedFuture(0);
+                    }
+                    if(fetchGeneration != generation) {
+                        return CompletableFuture.completedFuture(0);
+                    }
+                    if(changes == null) {
+                        return load(refreshQuery);
+                    }
+                    return CompletableFuture.completedFuture(applyChanges(changes));
+                }, JDBCQueryAsync.FX_THREAD)
+                .thenCompose(Function.identity());
+        return pendingFetch;
+    }
+
+    /**
+     * Removes an appointment that has been deleted from the database without refetching the window.
+     *
+     * @param appointment The deleted appointment.
+     */
+    public void remove(Appointment appointment) {
+        int index = items.indexOf(appointment);
+        if(index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Applies a set of changes to the items and advances the watermarks.  Updates are applied before deletions, so an
+     * appointment deleted after it was read as updated is still removed.
+     *
+     * @param changes The changes since the watermarks.
+     * @return The number of appointments added, replaced or removed.
+     */
+    private int applyChanges(AppointmentChanges changes) {
+        int applied = 0;
+        for(Appointment appointment : changes.getUpdatedAppointments()) {
+            int index = indexOfId(appointment.getId());
+            if(index >= 0) {
+                if(Objects.equals(items.get(index).getUpdatedTimestamp(), appointment.getUpdatedTimestamp())) {
+                    continue;
+                }
+                if(fitsAt(index, appointment)) {
+                    items.set(index, appointment);
+                    applied++;
+                    continue;
+                }
+                removeAt(index);
+                applied++;
+            }
+            if(fitsWindow(appointment)) {
+                insertSorted(appointment);
+                applied++;
+            }
+        }
+        for(int appointmentId : changes.getDeletedAppointmentIds()) {
+            int index = indexOfId(appointmentId);
+            if(index >= 0) {
+                removeAt(index);
+                applied++;
+            }
+        }
+
+        if(changes.getUpdateWatermark().after(updateWatermark)) {
+            updateWatermark = changes.getUpdateWatermark();
+        }
+        tombstoneWatermark = Math.max(tombstoneWatermark, changes.getTombstoneWatermark());
+        syncedAtMillis = System.currentTimeMillis();
+        return applied;
+    }
+
+    private int indexOfId(int appointmentId) {
+        for(int i = 0; i < items.size(); i++) {
+            if(items.get(i).getId() == appointmentId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether an updated appointment still sorts at the index of its previous version.  At either edge of a
+     * window that does not reach the end of the results, it must not move past the edge.
+     */
+    private boolean fitsAt(int index, Appointment appointment) {
+        if(!query.includes(appointment)) {
+            return false;
+        }
+        Appointment current = items.get(index);
+        boolean fitsBefore = index == 0 ? atStart || query.compare(current, appointment) <= 0 :
+                query.compare(items.get(index - 1), appointment) < 0;
+        boolean fitsAfter = index == items.size() - 1 ? atEnd || query.compare(appointment, current) <= 0 :
+                query.compare(appointment, items.get(index + 1)) < 0;
+        return fitsBefore && fitsAfter;
+    }
+
+    /**
+     * Checks whether an appointment sorts between the first and last items, or past an edge that is the end of the
+     * results.
+     */
+    private boolean fitsWindow(Appointment appointment) {
+        if(!query.includes(appointment)) {
+            return false;
+        }
+        if(items.isEmpty()) {
+            return atStart && atEnd;
+        }
+        return (atStart || query.compare(items.get(0), appointment) < 0) &&
+                (atEnd || query.compare(appointment, items.get(items.size() - 1)) < 0);
+    }
+
+    private void insertSorted(Appointment appointment) {
+        int index = Collections.binarySearch(items, appointment, query::compare);
+        if(index < 0) {
+            index = -index - 1;
+        }
+        resizePageAt(index, 1);
+        items.add(index, appointment);
+    }
+
+    private void removeAt(int index) {
+        resizePageAt(index, -1);
+        items.remove(index);
+    }
+
+    /**
+     * Grows or shrinks the page holding an index so page boundaries stay aligned with the items.  An index just past
+     * the last item belongs to the last page.
+     *
+     * @param index The index of the item being added or removed.
+     * @param change 1 for an added item, -1 for a removed one.
+     */
+    private void resizePageAt(int index, int change) {
+        Deque<Integer> resizedPageSizes = new ArrayDeque<>();
+        int pageStart = 0;
+        int pagesLeft = pageSizes.size();
+        boolean resized = false;
+        for(int size : pageSizes) {
+            pagesLeft--;
+            boolean containsIndex = !resized && (index < pageStart + size || pagesLeft == 0);
+            pageStart += size;
+            int resizedSize = containsIndex ? size + change : size;
+            resized |= containsIndex;
+            if(resizedSize > 0) {
+                resizedPageSizes.addLast(resizedSize);
+            }
+        }
+        if(!resized && change > 0) {
+            resizedPageSizes.addLast(change);
+        }
+        pageSizes.clear();
+        pageSizes.addAll(resizedPageSizes);
+    }
+
+    private void addLast(ObservableList<Appointment> page) {
+        if(page.size() < pageSize) {
+            atEnd = true;
+        }
+        if(!page.isEmpty()) {
+            items.addAll(page);
+            pageSizes.addLast(page.size());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mc.helper;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Abstract class containing static methods for hashing and verifying passwords.
+ * Passwords are hashed with PBKDF2-HMAC-SHA256 and a random salt per password, and stored as
+ * {@code pbkdf2$<iterations>$<salt>$<hash>} with the salt and hash in Base64, so the iteration count can be raised
+ * later without invalidating stored passwords.  Hashing is deliberately slow; call it off the JavaFX Application
+ * Thread.
+ * @author Michael Cassidy
+ */
+public abstract class PasswordHasher {
+    private static final String algorithm = "PBKDF2WithHmacSHA256";
+    private static final String prefix = "pbkdf2$";
+    private static final int iterations = 120_000;
+    private static final int saltBytes = 16;
+    private static final int hashBits = 256;
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password The password to hash.
+     * @return The encoded hash, including the algorithm parameters and salt.
+     */
+    public static String hash(char[] password) {
+        byte[] salt = new byte[saltBytes];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return prefix + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value.  Values that are not PBKDF2 hashes are treated as legacy plaintext
+     * passwords, so accounts created before hashing was introduced can still log in and be upgraded.
+     * The comparison takes the same time however many characters match.
+     *
+     * @param password The password entered.
+     * @param stored The stored hash or legacy plaintext password.
+     * @return true if the password matches.
+     */
+    public static boolean verify(char[] password, String stored) {
+        if(stored == null) {
+            return false;
+        }
+        if(!isHashed(stored)) {
+            return MessageDigest.isEqual(new String(password).getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.split("\\$");
+        if(parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(pbkdf2(password, salt, storedIterations), expected);
+        } catch(IllegalArgumentException e) {
+            System.out.println(e);
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a stored value should be replaced with a fresh hash after a successful login, because it is a
+     * legacy plaintext password or was hashed with fewer iterations than are used now.
+     *
+     * @param stored The stored hash or legacy plaintext password.
+     * @return true if the password should be hashed again.
+     */
+    public static boolean needsRehash(String stored) {
+        if(stored == null || !isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch(NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean isHashed(String stored) { return stored.startsWith(prefix); }
+
+    private static byte[] pbkdf2(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, hashBits);
+        try {
+            return SecretKeyFactory.getInstance(algorithm).generateSecret(spec).getEncoded();
+        } catch(GeneralSecurityException e) {
+            throw new IllegalStateException(algorithm + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.mc.helper;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import static com.mc.helper.JDBCConnector.getConnection;
+
+/**
+ * Abstract class that keeps the small reference tables (contacts, countries, first-level divisions, users and the
+ * distinct appointment types) in memory so that name/ID lookups do not each need a database round-trip.
+ * Each table is loaded in one query the first time it is used and reloaded once it is older than the time-to-live,
+ * so changes made outside the application are picked up.  Tables can also be invalidated explicitly.
+ * JDBCQuery's lookup methods read from this cache, so their callers do not need to change.
+ * @author Michael Cassidy
+ */
+public abstract class ReferenceDataCache {
+    private static final long ttlMillis = 600_000;
+    private static final LongAdder hitCount = new LongAdder();
+    private static final LongAdder missCount = new LongAdder();
+
+    private static final CachedTable<IdNameMap> contacts = new CachedTable<>(
+            "SELECT Contact_ID, Contact_Name FROM contacts ORDER BY Contact_ID;", ReferenceDataCache::loadIdNameMap,
+            new IdNameMap());
+    private static final CachedTable<IdNameMap> countries = new CachedTable<>(
+            "SELECT Country_ID, Country FROM countries ORDER BY Country_ID;", ReferenceDataCache::loadIdNameMap,
+            new IdNameMap());
+    private static final CachedTable<DivisionMap> divisions = new CachedTable<>(
+            "SELECT Division_ID, Division, Country_ID FROM first_level_divisions ORDER BY Division_ID;",
+            ReferenceDataCache::loadDivisionMap, new DivisionMap());
+    private static final CachedTable<IdNameMap> users = new CachedTable<>(
+            "SELECT User_ID, User_Name FROM users ORDER BY User_ID;", ReferenceDataCache::loadIdNameMap,
+            new IdNameMap());
+    private static final CachedTable<List<String>> types = new CachedTable<>(
+            "SELECT DISTINCT Type FROM appointments;", ReferenceDataCache::loadTypeList, Collections.emptyList());
+
+    /**
+     * Retrieves the contact ID associated with the given contact name.
+     *
+     * @param contactName the name of the contact.
+     * @return the contact ID, or -1 if not found.
+     */
+    public static int getContactId(String contactName) { return contacts.get().getId(contactName); }
+
+    /**
+     * Retrieves the contact name associated with the given contact ID.
+     *
+     * @param contactId the ID of the contact.
+     * @return the contact name, or an empty string if not found.
+     */
+    public static String getContactName(int contactId) { return contacts.get().getName(contactId); }
+
+    /**
+     * Retrieves every contact name in contact ID order.
+     *
+     * @return an unmodifiable list of contact names.
+     */
+    public static List<String> getContactNames() { return contacts.get().getNames(); }
+
+    /**
+     * Retrieves the country ID associated with the given country name.
+     *
+     * @param countryName the name of the country.
+     * @return the country ID, or -1 if not found.
+     */
+    public static int getCountryId(String countryName) { return countries.get().getId(countryName); }
+
+    /**
+     * Retrieves every country name in country ID order.
+     *
+     * @return an unmodifiable list of country names.
+     */
+    public static List<String> getCountryNames() { return countries.get().getNames(); }
+
+    /**
+     * Retrieves the division ID associated with the given division name.
+     *
+     * @param divisionName the name of the division.
+     * @return the division ID, or -1 if not found.
+     */
+    public static int getDivisionId(String divisionName) { return divisions.get().getId(divisionName); }
+
+    /**
+     * Retrieves the names of the divisions in the given country, in division ID order.
+     *
+     * @param countryId the ID of the country.
+     * @return an unmodifiable list of division names, empty if the country has none.
+     */
+    public static List<String> getDivisionNames(int countryId) { return divisions.get().getNames(countryId); }
+
+    /**
+     * Retrieves the name of the country a division is in.
+     *
+     * @param divisionId the ID of the division.
+     * @return the country name, or an empty string if not found.
+     */
+    public static String getDivisionCountry(int divisionId) {
+        return countries.get().getName(divisions.get().getCountryId(divisionId));
+    }
+
+    /**
+     * Retrieves the user ID associated with the given user name.
+     *
+     * @param userName the name of the user.
+     * @return the user ID, or -1 if not found.
+     */
+    public static int getUserId(String userName) { return users.get().getId(userName); }
+
+    /**
+     * Retrieves the user name associated with the given user ID.
+     *
+     * @param userId the ID of the user.
+     * @return the user name, or an empty string if not found.
+     */
+    public static String getUserName(int userId) { return users.get().getName(userId); }
+
+    /**
+     * Retrieves the distinct appointment types.
+     *
+     * @return an unmodifiable list of appointment types.
+     */
+    public static List<String> getTypes() { return types.get(); }
+
+    /**
+     * Records an appointment type that has just been saved, so a new type appears without reloading the list.
+     * Does nothing if the types have not been loaded yet.
+     *
+     * @param type The saved appointment's type.
+     */
+    public static void addType(String type) {
+        types.update(typeList -> {
+            if(typeList.contains(type)) {
+                return typeList;
+            }
+            List<String> newTypeList = new ArrayList<>(typeList);
+            newTypeList.add(type);
+            return Collections.unmodifiableList(newTypeList);
+        });
+    }
+
+    /**
+     * Discards the cached appointment types, e.g. after appointments have been deleted, so they are reloaded on
+     * next use.
+     */
+    public static void invalidateTypes() { types.invalidate(); }
+
+    /**
+     * Discards every cached table so each is reloaded on next use.
+     */
+    public static void invalidate() {
+        contacts.invalidate();
+        countries.invalidate();
+        divisions.invalidate();
+        users.invalidate();
+        types.invalidate();
+    }
+
+    /**
+     * Returns the number of lookups answered from memory.
+     *
+     * @return The hit count.
+     */
+    public static long getHitCount() { return hitCount.sum(); }
+
+    /**
+     * Returns the number of lookups that had to load a table from the database first.
+     *
+     * @return The miss count.
+     */
+    public static long getMissCount() { return missCount.sum(); }
+
+    /**
+     * Returns a one-line summary of the cache's hit and miss counts.
+     *
+     * @return The cache statistics.
+     */
+    public static String getStatistics() {
+        long hits = getHitCount();
+        long misses = getMissCount();
+        double hitRate = hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses);
+        return String.format("ReferenceDataCache[hits=%d, misses=%d, hitRate=%.1f%%]", hits, misses, hitRate);
+    }
+
+    private static IdNameMap loadIdNameMap(ResultSet rs) throws SQLException {
+        IdNameMap idNameMap = new IdNameMap();
+        while(rs.next()) {
+            idNameMap.put(rs.getInt(1), rs.getString(2));
+        }
+        return idNameMap;
+    }
+
+    private static DivisionMap loadDivisionMap(ResultSet rs) throws SQLException {
+        DivisionMap divisionMap = new DivisionMap();
+        while(rs.next()) {
+            divisionMap.put(rs.getInt(1), rs.getString(2), rs.getInt(3));
+        }
+        return divisionMap;
+    }
+
+    private static List<String> loadTypeList(ResultSet rs) throws SQLException {
+        Set<String> typeSet = new LinkedHashSet<>();
+        while(rs.next()) {
+            typeSet.add(rs.getString(1));
+        }
+//      Type is nullable, which List.copyOf does not allow
+        return Collections.unmodifiableList(new ArrayList<>(typeSet));
+    }
+
+    /**
+     * Reads a loaded table from a query's result set.
+     *
+     * @param <T> The type of the loaded table.
+     */
+    @FunctionalInterface
+    private interface TableReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * One cached table: its current value, when it was loaded and how to reload it.
+     * Values are never modified once published, so readers need no locking.
+     *
+     * @param <T> The type of the loaded table.
+     */
+    private static final class CachedTable<T> {
+        private final String query;
+        private final TableReader<T> reader;
+        private final T emptyValue;
+        private volatile T value;
+        private volatile long loadedAt;
+
+        private CachedTable(String query, TableReader<T> reader, T emptyValue) {
+            this.query = query;
+            this.reader = reader;
+            this.emptyValue = emptyValue;
+        }
+
+        /**
+         * Returns the cached table, loading it first if it has not been loaded or has expired.
+         * If loading fails the error is printed and the previous value (or an empty table) is returned without
+         * being cached, so the next call tries again.
+         *
+         * @return The table.
+         */
+        private T get() {
+            T current = value;
+            if(current != null && System.currentTimeMillis() - loadedAt < ttlMillis) {
+                hitCount.increment();
+                return current;
+            }
+            return load();
+        }
+
+        private synchronized T load() {
+//          Another thread may have loaded the table while this one waited for the lock
+            T current = value;
+            if(current != null && System.currentTimeMillis() - loadedAt < ttlMillis) {
+                hitCount.increment();
+                return current;
+            }
+
+            missCount.increment();
+            try(Connection connection = getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(query)) {
+                current = reader.read(rs);
+                value = current;
+                loadedAt = System.currentTimeMillis();
+                return current;
+            } catch(SQLException e) {
+                System.out.println(e);
+                return current != null ? current : emptyValue;
+            }
+        }
+
+        /**
+         * Replaces the cached value with an updated copy, if the table is loaded.
+         *
+         * @param updater Function returning the updated value; it must not modify its argument.
+         */
+        private synchronized void update(UnaryOperator<T> updater) {
+            if(value != null) {
+                value = updater.apply(value);
+            }
+        }
+
+        private synchronized void invalidate() { value = null; }
+    }
+
+    /**
+     * Bidirectional map between IDs and names, in load order.
+     */
+    private static class IdNameMap {
+        private final Map<Integer, String> namesById = new LinkedHashMap<>();
+        private final Map<String, Integer> idsByName = new HashMap<>();
+        private List<String> names = List.of();
+
+        void put(int id, String name) {
+            namesById.put(id, name);
+            idsByName.put(name, id);
+            names = null;
+        }
+
+        int getId(String name) {
+            Integer id = name == null ? null : idsByName.get(name);
+            return id != null ? id : -1;
+        }
+
+        String getName(int id) { return namesById.getOrDefault(id, ""); }
+
+        List<String> getNames() {
+            List<String> nameList = names;
+            if(nameList == null) {
+                nameList = Collections.unmodifiableList(new ArrayList<>(namesById.values()));
+                names = nameList;
+            }
+            return nameList;
+        }
+    }
+
+    /**
+     * ID/name map of divisions that also groups division names by country.
+     */
+    private static final class DivisionMap extends IdNameMap {
+        private final Map<Integer, List<String>> namesByCountryId = new HashMap<>();
+        private final Map<Integer, Integer> countryIdsById = new HashMap<>();
+
+        void put(int id, String name, int countryId) {
+            put(id, name);
+            namesByCountryId.computeIfAbsent(countryId, key -> new ArrayList<>()).add(name);
+            countryIdsById.put(id, countryId);
+        }
+
+        int getCountryId(int id) { return countryIdsById.getOrDefault(id, -1); }
+
+        List<String> getNames(int countryId) {
+            return Collections.unmodifiableList(namesByCountryId.getOrDefault(countryId, List.of()));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.mc.helper;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.mc.helper.JDBCConnector.getConnection;
+
+/**
+ * Abstract class containing static methods for the report summary tables.
+ * Each summary is a single GROUP BY query, so MySQL returns one small row per group instead of every appointment
+ * being transferred and counted here.
+ * The counts by type and month, contact and country are served from ReportCounters once it has been built, and only
+ * queried here until then.
+ * Months and weeks are counted in the user's time zone: their bounds are converted to UTC here and passed to the
+ * query as a derived table of periods, which each appointment is joined to by its start time.
+ * @author Michael Cassidy
+ */
+public abstract class ReportAggregates {
+    private static final Locale userLocale = Locale.getDefault();
+
+    /**
+     * Counts the appointments of each type starting in each month of a year.
+     *
+     * @param year The year to count.
+     * @return One row per type and month with appointments, by type and then month; the period is the month's name.
+     */
+    public static ObservableList<SummaryRow> countByTypeAndMonth(Year year) {
+        ObservableList<SummaryRow> counted = ReportCounters.countByTypeAndMonth(year);
+        if(counted != null) {
+            return counted;
+        }
+        List<LocalDate> bounds = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for(Month month : Month.values()) {
+            bounds.add(year.atMonth(month).atDay(1));
+            labels.add(month.getDisplayName(TextStyle.FULL, userLocale));
+        }
+        bounds.add(year.plusYears(1).atDay(1));
+
+        return groupByPeriod("appointments.Type", "COUNT(*)", "", bounds, labels);
+    }
+
+    /**
+     * Counts the appointments of each contact, including contacts with none.
+     *
+     * @return One row per contact, by name.
+     */
+    public static ObservableList<SummaryRow> countByContact() {
+        ObservableList<SummaryRow> counted = ReportCounters.countByContact();
+        if(counted != null) {
+            return counted;
+        }
+        String query = "SELECT contacts.Contact_Name AS Group_Name, COUNT(appointments.Appointment_ID) AS Total\n" +
+                "FROM contacts\n" +
+                "LEFT JOIN appointments ON appointments.Contact_ID = contacts.Contact_ID\n" +
+                "GROUP BY contacts.Contact_ID, contacts.Contact_Name\n" +
+                "ORDER BY contacts.Contact_Name;";
+
+        return getSummary(query, List.of(), null);
+    }
+
+    /**
+     * Counts the appointments of customers in each country, including countries with none.
+     *
+     * @return One row per country, by name.
+     */
+    public static ObservableList<SummaryRow> countByCountry() {
+        ObservableList<SummaryRow> counted = ReportCounters.countByCountry();
+        if(counted != null) {
+            return counted;
+        }
+        String query = "SELECT countries.Country AS Group_Name, COUNT(appointments.Appointment_ID) AS Total\n" +
+                "FROM countries\n" +
+                "LEFT JOIN first_level_divisions ON first_level_divisions.Country_ID = countries.Country_ID\n" +
+                "LEFT JOIN customers ON customers.Division_ID = first_level_divisions.Division_ID\n" +
+                "LEFT JOIN appointments ON appointments.Customer_ID = customers.Customer_ID\n" +
+                "GROUP BY countries.Country_ID, countries.Country\n" +
+                "ORDER BY countries.Country;";
+
+        return getSummary(query, List.of(), null);
+    }
+
+    /**
+     * Totals the minutes booked with each contact in each week of a year.  Weeks start on Monday, and an appointment
+     * counts towards the week it starts in.
+     *
+     * @param year The year to total.
+     * @return One row per contact and week with appointments, by contact and then week; the period is the date of
+     * the week's Monday.
+     */
+    public static ObservableList<SummaryRow> minutesByContactAndWeek(Year year) {
+        List<LocalDate> bounds = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        LocalDate weekStart = year.atDay(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate end = year.plusYears(1).atDay(1);
+        for(; weekStart.isBefore(end); weekStart = weekStart.plusWeeks(1)) {
+            bounds.add(weekStart);
+            labels.add(weekStart.toString());
+        }
+        bounds.add(weekStart);
+
+        String join = "JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID\n";
+        return groupByPeriod("contacts.Contact_Name",
+                "SUM(TIMESTAMPDIFF(MINUTE, appointments.Start, appointments.End))", join, bounds, labels);
+    }
+
+    /**
+     * Aggregates appointments by a group and the period their start falls in.
+     *
+     * @param groupExpression The SQL expression to group by.
+     * @param valueExpression The SQL aggregate to compute.
+     * @param join Any joins the expressions need, each ending in a newline.
+     * @param bounds The local dates the periods start on, followed by the date the last one ends on.
+     * @param labels The label of each period.
+     * @return One row per group and period with appointments.
+     */
+    private static ObservableList<SummaryRow> groupByPeriod(String groupExpression, String valueExpression,
+                                                            String join, List<LocalDate> bounds, List<String> labels) {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder periods = new StringBuilder();
+        for(int i = 0; i < labels.size(); i++) {
+            periods.append(i == 0 ? "SELECT ? AS Period, ? AS Period_Start, ? AS Period_End" :
+                    " UNION ALL SELECT ?, ?, ?");
+            parameters.add(i);
+            parameters.add(TimeUtils.convertToUtcTimestamp(bounds.get(i), LocalTime.MIDNIGHT));
+            parameters.add(TimeUtils.convertToUtcTimestamp(bounds.get(i + 1), LocalTime.MIDNIGHT));
+        }
+        parameters.add(TimeUtils.convertToUtcTimestamp(bounds.get(0), LocalTime.MIDNIGHT));
+        parameters.add(TimeUtils.convertToUtcTimestamp(bounds.get(bounds.size() - 1), LocalTime.MIDNIGHT));
+
+        String query = "SELECT " + groupExpression + " AS Group_Name, periods.Period, " + valueExpression +
+                " AS Total\n" +
+                "FROM appointments\n" +
+                join +
+                "JOIN (" + periods + ") periods\n" +
+                "ON appointments.Start >= periods.Period_Start AND appointments.Start < periods.Period_End\n" +
+                "WHERE appointments.Start >= ? AND appointments.Start < ?\n" +
+                "GROUP BY Group_Name, periods.Period\n" +
+                "ORDER BY Group_Name, periods.Period;";
+
+        return getSummary(query, parameters, labels);
+    }
+
+    /**
+     * Runs a summary query whose rows have a Group_Name, a Total and, if labels are given, a Period index.
+     *
+     * @param query The query.
+     * @param parameters The query's parameters, in order.
+     * @param labels The label of each period index, or null if the query has no periods.
+     * @return The summary rows, or an empty list if the query fails.
+     */
+    private static ObservableList<SummaryRow> getSummary(String query, List<Object> parameters, List<String> labels) {
+        ObservableList<SummaryRow> summary = FXCollections.observableArrayList();
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query)) {
+            for(int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            try(ResultSet rs = stmt.executeQuery()) {
+                while(rs.next()) {
+                    String period = labels == null ? null : labels.get(rs.getInt("Period"));
+                    summary.add(new SummaryRow(rs.getString("Group_Name"), period, rs.getLong("Total")));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e);
+        }
+
+        return summary;
+    }
+}
@@ -0,0 +1,307 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Abstract class that caches the appointments returned by the report queries, so switching back and forth between
+ * contacts, countries or months does not re-run the same query.
+ * The cache is a least-recently-used map bounded by its number of entries and the total rows they hold, and entries
+ * expire after ttlMillis so that changes made by other schedulers are picked up.  JDBCQuery's add, update and delete
+ * methods invalidate exactly the entries a change affects: those whose contact, type and month, or country match the
+ * saved appointment, and those that held its previous version.
+ * Callers receive a copy of the cached list, but its Appointment objects are shared with the cache and other callers,
+ * so they must be treated as read-only.
+ * @author Michael Cassidy
+ */
+public abstract class ReportCache {
+    private static final int maxEntries = 64;
+    private static final int maxRows = 50_000;
+    private static final long ttlMillis = 300_000;
+    private static final int estimatedRowBytes = 480;
+    private static final Object lock = new Object();
+    private static final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static final LongAdder hitCount = new LongAdder();
+    private static final LongAdder missCount = new LongAdder();
+    private static final LongAdder evictionCount = new LongAdder();
+    private static final LongAdder invalidationCount = new LongAdder();
+    private static long modificationCount;
+    private static int cachedRows;
+
+    /**
+     * Runs a report query.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<Appointment> load() throws SQLException;
+    }
+
+    /**
+     * Identifies a report by its type and filter values.
+     */
+    public static final class Key {
+        private final String report;
+        private final Object filter;
+        private final YearMonth month;
+
+        private Key(String report, Object filter, YearMonth month) {
+            this.report = report;
+            this.filter = filter;
+            this.month = month;
+        }
+
+        /**
+         * Creates the key of the appointments by type and month report.
+         *
+         * @param type The appointment type.
+         * @param month The month, in the user's time zone.
+         * @return The key.
+         */
+        public static Key byTypeAndMonth(String type, YearMonth month) {
+            return new Key("typeAndMonth", type.toLowerCase(), month);
+        }
+
+        /**
+         * Creates the key of the appointments by contact report.
+         *
+         * @param contactId The contact's ID.
+         * @return The key.
+         */
+        public static Key byContactId(int contactId) { return new Key("contact", contactId, null); }
+
+        /**
+         * Creates the key of the appointments by country report.
+         *
+         * @param country The country's name.
+         * @return The key.
+         */
+        public static Key byCountry(String country) { return new Key("country", country.toLowerCase(), null); }
+
+        /**
+         * Checks whether a saved appointment belongs in this report.
+         *
+         * @param appointment The appointment.
+         * @param country The country of the appointment's customer, or null if it is not known.
+         * @return true if the report's results may include the appointment.
+         */
+        private boolean matches(Appointment appointment, String country) {
+            return switch(report) {
+                case "typeAndMonth" -> filter.equals(String.valueOf(appointment.getType()).toLowerCase()) &&
+                        month.equals(YearMonth.from(TimeUtils.getLocalDateTime(
+                                appointment.getStartTimestamp())));
+                case "contact" -> filter.equals(appointment.getContactId());
+                default -> country == null || filter.equals(country.toLowerCase());
+            };
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Key other)) {
+                return false;
+            }
+            return report.equals(other.report) && filter.equals(other.filter) && Objects.equals(month, other.month);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(report, filter, month); }
+
+        @Override
+        public String toString() { return report + "[" + filter + (month == null ? "" : ", " + month) + "]"; }
+    }
+
+    /**
+     * Returns a report's appointments from the cache, or runs its query and caches the result.  A result whose query
+     * ran while an appointment was being saved may be out of date, and is returned without being cached.
+     *
+     * @param key The report and filter values.
+     * @param loader Runs the report's query on a miss.
+     * @return A copy of the report's appointments, or an empty list if the query fails.  The list can be changed, but
+     *         the appointments in it are shared and must not be.
+     */
+    public static ObservableList<Appointment> get(Key key, Loader loader) {
+        long startModificationCount;
+        synchronized(lock) {
+            Entry entry = entries.get(key);
+            if(entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMillis) {
+                hitCount.increment();
+                return FXCollections.observableArrayList(entry.appointments);
+            }
+            if(entry != null) {
+                removeEntry(key);
+            }
+            missCount.increment();
+            startModificationCount = modificationCount;
+        }
+
+        List<Appointment> appointments;
+        try {
+            appointments = List.copyOf(loader.load());
+        } catch(SQLException e) {
+            System.out.println(e);
+            return FXCollections.observableArrayList();
+        }
+
+        synchronized(lock) {
+            if(modificationCount == startModificationCount && appointments.size() <= maxRows) {
+                removeEntry(key);
+                entries.put(key, new Entry(appointments));
+                cachedRows += appointments.size();
+                evict();
+            }
+        }
+        return FXCollections.observableArrayList(appointments);
+    }
+
+    /**
+     * Invalidates the reports affected by an appointment that has been added or updated: those it now belongs in,
+     * and those that held its previous version.
+     *
+     * @param appointment The saved appointment.
+     */
+    public static void invalidate(Appointment appointment) {
+        String country = ReportCounters.getCustomerCountry(appointment.getCustomerId());
+        synchronized(lock) {
+            modificationCount++;
+            removeIf(entry -> entry.getKey().matches(appointment, country) ||
+                    entry.getValue().contains(appointment.getId()));
+        }
+    }
+
+    /**
+     * Invalidates the reports that held an appointment that has been deleted.
+     *
+     * @param appointmentId The ID of the deleted appointment.
+     */
+    public static void invalidateAppointment(int appointmentId) {
+        synchronized(lock) {
+            modificationCount++;
+            removeIf(entry -> entry.getValue().contains(appointmentId));
+        }
+    }
+
+    /**
+     * Invalidates the reports that held a customer's appointments, and the report of the country the customer is now
+     * in, after the customer has been updated or deleted.
+     *
+     * @param customerId The ID of the customer.
+     * @param country The customer's country now, or null if the customer has been deleted.
+     */
+    public static void invalidateCustomer(int customerId, String country) {
+        synchronized(lock) {
+            modificationCount++;
+            removeIf(entry -> entry.getValue().containsCustomer(customerId) ||
+                    (country != null && entry.getKey().equals(Key.byCountry(country))));
+        }
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public static void clear() {
+        synchronized(lock) {
+            modificationCount++;
+            invalidationCount.add(entries.size());
+            entries.clear();
+            cachedRows = 0;
+        }
+    }
+
+    /**
+     * Returns the fraction of lookups answered from the cache since the application started.
+     *
+     * @return The hit ratio, from 0 to 1, or 0 if there have been no lookups.
+     */
+    public static double getHitRatio() {
+        long hits = hitCount.sum();
+        long lookups = hits + missCount.sum();
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    /**
+     * Estimates the memory held by the cached appointments.
+     *
+     * @return The estimated size in bytes.
+     */
+    public static long getEstimatedBytes() {
+        synchronized(lock) {
+            return (long) cachedRows * estimatedRowBytes;
+        }
+    }
+
+    /**
+     * Summarises the cache metrics for logging.
+     *
+     * @return A one-line summary of entries, rows, memory, hits, misses, evictions and invalidations.
+     */
+    public static String getStatistics() {
+        synchronized(lock) {
+            return String.format("ReportCache[entries=%d, rows=%d, estimatedMemory=%d KiB, hits=%d, misses=%d, " +
+                    "hitRatio=%.2f, evictions=%d, invalidations=%d]", entries.size(), cachedRows,
+                    getEstimatedBytes() / 1024, hitCount.sum(), missCount.sum(), getHitRatio(), evictionCount.sum(),
+                    invalidationCount.sum());
+        }
+    }
+
+    /**
+     * Removes least recently used entries until the cache is within its entry and row limits.  Must be called holding
+     * the lock.
+     */
+    private static void evict() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while((entries.size() > maxEntries || cachedRows > maxRows) && iterator.hasNext()) {
+            cachedRows -= iterator.next().getValue().appointments.size();
+            iterator.remove();
+            evictionCount.increment();
+        }
+    }
+
+    private static void removeIf(Predicate<Map.Entry<Key, Entry>> predicate) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while(iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if(predicate.test(entry)) {
+                cachedRows -= entry.getValue().appointments.size();
+                iterator.remove();
+                invalidationCount.increment();
+            }
+        }
+    }
+
+    private static void removeEntry(Key key) {
+        Entry removed = entries.remove(key);
+        if(removed != null) {
+            cachedRows -= removed.appointments.size();
+        }
+    }
+
+    /**
+     * A cached report, with its appointment and customer IDs sorted for finding the entries a change affects.
+     */
+    private static final class Entry {
+        private final List<Appointment> appointments;
+        private final int[] appointmentIds;
+        private final int[] customerIds;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Entry(List<Appointment> appointments) {
+            this.appointments = appointments;
+            appointmentIds = appointments.stream().mapToInt(Appointment::getId).sorted().toArray();
+            customerIds = appointments.stream().mapToInt(Appointment::getCustomerId).sorted().distinct().toArray();
+        }
+
+        boolean contains(int appointmentId) { return Arrays.binarySearch(appointmentIds, appointmentId) >= 0; }
+
+        boolean containsCustomer(int customerId) { return Arrays.binarySearch(customerIds, customerId) >= 0; }
+    }
+}
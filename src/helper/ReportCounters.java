@@ -0,0 +1,412 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import com.mc.model.Customer;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.mc.helper.JDBCConnector.getConnection;
+
+/**
+ * Abstract class that keeps appointment counts by type and month, by contact and by country in memory, so the report
+ * summaries are looked up instead of re-counted by the database each time.
+ * The counters are built in the background from one pass over the appointments, then kept up to date by JDBCQuery's
+ * add, update and delete methods.  Changes made by other schedulers are not seen by those methods, so once the
+ * counters are older than reconcileIntervalMillis they are rebuilt in the background while the current counts keep
+ * being served, and any groups that had drifted are reported.  Until the counters are first built, lookups return
+ * null and the caller falls back to its SQL query.
+ * Months are the user's local months, as in the reports.
+ * @author Michael Cassidy
+ */
+public abstract class ReportCounters {
+    private static final long reconcileIntervalMillis = 600_000;
+    private static final int fetchSize = 1000;
+    private static final String appointmentQuery = "SELECT Appointment_ID, Type, Start, Contact_ID, Customer_ID " +
+            "FROM appointments;";
+    private static final String customerQuery = "SELECT customers.Customer_ID, countries.Country FROM customers\n" +
+            "JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID\n" +
+            "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID;";
+    private static final Locale userLocale = Locale.getDefault();
+    private static final Object lock = new Object();
+    private static Counts counts;
+    private static long loadedAt;
+    private static long modificationCount;
+    private static boolean loading;
+
+    /**
+     * Counts the appointments of each type starting in each month of a year.  Types that differ only in case are
+     * counted together, as the database's GROUP BY does, and appointments with no type come first.
+     *
+     * @param year The year to count.
+     * @return One row per type and month with appointments, by type and then month, or null if the counters have not
+     * been built yet.
+     */
+    public static ObservableList<SummaryRow> countByTypeAndMonth(Year year) {
+        ObservableList<SummaryRow> summary = FXCollections.observableArrayList();
+        synchronized(lock) {
+            if(!isLoaded()) {
+                return null;
+            }
+            Map<YearMonth, Integer> untypedCounts = new TreeMap<>();
+            Map<String, Map<YearMonth, Integer>> sortedCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            counts.byTypeAndMonth.forEach((type, monthCounts) -> {
+                Map<YearMonth, Integer> merged = type == null ? untypedCounts :
+                        sortedCounts.computeIfAbsent(type, key -> new TreeMap<>());
+                monthCounts.forEach((month, count) -> merged.merge(month, count, Integer::sum));
+            });
+            addMonthRows(summary, null, untypedCounts, year);
+            sortedCounts.forEach((type, monthCounts) -> addMonthRows(summary, type, monthCounts, year));
+        }
+        return summary;
+    }
+
+    /**
+     * Adds a summary row for each month of a year that a type has appointments in.
+     */
+    private static void addMonthRows(List<SummaryRow> summary, String type, Map<YearMonth, Integer> monthCounts,
+                                     Year year) {
+        monthCounts.forEach((month, count) -> {
+            if(month.getYear() == year.getValue()) {
+                summary.add(new SummaryRow(type, month.getMonth().getDisplayName(TextStyle.FULL, userLocale), count));
+            }
+        });
+    }
+
+    /**
+     * Counts the appointments of each contact, including contacts with none.
+     *
+     * @return One row per contact, by name, or null if the counters have not been built yet.
+     */
+    public static ObservableList<SummaryRow> countByContact() {
+        List<String> contactNames = new ArrayList<>(ReferenceDataCache.getContactNames());
+        contactNames.sort(String.CASE_INSENSITIVE_ORDER);
+        ObservableList<SummaryRow> summary = FXCollections.observableArrayList();
+        synchronized(lock) {
+            if(!isLoaded()) {
+                return null;
+            }
+            for(String contactName : contactNames) {
+                int contactId = ReferenceDataCache.getContactId(contactName);
+                summary.add(new SummaryRow(contactName, null, counts.byContactId.getOrDefault(contactId, 0)));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Counts the appointments of customers in each country, including countries with none.
+     *
+     * @return One row per country, by name, or null if the counters have not been built yet.
+     */
+    public static ObservableList<SummaryRow> countByCountry() {
+        List<String> countryNames = new ArrayList<>(ReferenceDataCache.getCountryNames());
+        countryNames.sort(String.CASE_INSENSITIVE_ORDER);
+        ObservableList<SummaryRow> summary = FXCollections.observableArrayList();
+        synchronized(lock) {
+            if(!isLoaded()) {
+                return null;
+            }
+            for(String country : countryNames) {
+                summary.add(new SummaryRow(country, null, counts.byCountry.getOrDefault(country, 0)));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Looks up the country a customer is in.
+     *
+     * @param customerId The customer's ID.
+     * @return The customer's country, or null if the counters have not been built yet or the customer is not known.
+     */
+    public static String getCustomerCountry(int customerId) {
+        synchronized(lock) {
+            return counts == null ? null : counts.customerCountries.get(customerId);
+        }
+    }
+
+    /**
+     * Starts building the counters in the background unless they are already being built, or were built or
+     * reconciled less than reconcileIntervalMillis ago.
+     */
+    public static void warmUp() {
+        synchronized(lock) {
+            if(loading || (counts != null && System.currentTimeMillis() - loadedAt < reconcileIntervalMillis)) {
+                return;
+            }
+            loading = true;
+        }
+        JDBCQueryAsync.run(ReportCounters::load);
+    }
+
+    /**
+     * Counts an appointment after it has been added or updated in the database, uncounting its previous version.
+     *
+     * @param appointment The saved appointment.
+     */
+    public static void put(Appointment appointment) {
+        synchronized(lock) {
+            modificationCount++;
+            if(counts != null) {
+                counts.remove(appointment.getId());
+                if(!counts.add(appointment.getId(), appointment.getType(), appointment.getStartTimestamp(),
+                        appointment.getContactId(), appointment.getCustomerId())) {
+//                  The customer was added after the counters were built; rebuild rather than guess their country
+                    counts = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Uncounts an appointment after it has been deleted from the database.
+     *
+     * @param appointmentId The ID of the deleted appointment.
+     */
+    public static void remove(int appointmentId) {
+        synchronized(lock) {
+            modificationCount++;
+            if(counts != null) {
+                counts.remove(appointmentId);
+            }
+        }
+    }
+
+    /**
+     * Uncounts a customer's appointments after they have been deleted from the database.
+     *
+     * @param customerId The ID of the deleted customer.
+     */
+    public static void removeByCustomerId(int customerId) {
+        synchronized(lock) {
+            modificationCount++;
+            if(counts != null) {
+                counts.removeByCustomerId(customerId);
+            }
+        }
+    }
+
+    /**
+     * Records a customer's country after they have been added or updated, moving their appointments' country counts
+     * if it has changed.
+     *
+     * @param customer The saved customer.
+     */
+    public static void putCustomer(Customer customer) {
+        String country = ReferenceDataCache.getDivisionCountry(customer.getDivisionId());
+        synchronized(lock) {
+            modificationCount++;
+            if(counts != null) {
+                counts.putCustomer(customer.getId(), country);
+            }
+        }
+    }
+
+    /**
+     * Discards the counters so that lookups fall back to the database until they have been rebuilt.
+     */
+    public static void invalidate() {
+        synchronized(lock) {
+            modificationCount++;
+            counts = null;
+        }
+        warmUp();
+    }
+
+    /**
+     * Checks whether the counters can be used, starting a background reconciliation if they are due one.
+     * Must be called holding the lock.
+     */
+    private static boolean isLoaded() {
+        if(counts == null || System.currentTimeMillis() - loadedAt >= reconcileIntervalMillis) {
+            if(!loading) {
+                loading = true;
+                JDBCQueryAsync.run(ReportCounters::load);
+            }
+        }
+        return counts != null;
+    }
+
+    /**
+     * Builds new counters from the database.  If the counters were modified while building, the new ones may have
+     * missed that change and are discarded; the next lookup tries again.  Otherwise they replace the current
+     * counters, and any groups whose counts differ are reported as drift.
+     */
+    private static void load() {
+        long startModificationCount;
+        synchronized(lock) {
+            startModificationCount = modificationCount;
+        }
+
+        Counts newCounts = new Counts();
+        boolean loaded = false;
+        try(Connection connection = getConnection()) {
+            try(PreparedStatement stmt = connection.prepareStatement(customerQuery);
+                ResultSet rs = stmt.executeQuery()) {
+                while(rs.next()) {
+                    newCounts.customerCountries.put(rs.getInt("Customer_ID"), rs.getString("Country"));
+                }
+            }
+            try(PreparedStatement stmt = connection.prepareStatement(appointmentQuery)) {
+                stmt.setFetchSize(fetchSize);
+                try(ResultSet rs = stmt.executeQuery()) {
+                    while(rs.next()) {
+                        newCounts.add(rs.getInt("Appointment_ID"), rs.getString("Type"), rs.getTimestamp("Start"),
+                                rs.getInt("Contact_ID"), rs.getInt("Customer_ID"));
+                    }
+                }
+            }
+            loaded = true;
+        } catch(SQLException e) {
+            System.out.println(e);
+        }
+
+        synchronized(lock) {
+            if(loaded && modificationCount == startModificationCount) {
+                if(counts != null) {
+                    int drifted = counts.countDifferences(newCounts);
+                    if(drifted > 0) {
+                        System.out.println("ReportCounters reconciled " + drifted + " drifted groups");
+                    }
+                }
+                counts = newCounts;
+                loadedAt = System.currentTimeMillis();
+            }
+            loading = false;
+        }
+    }
+
+    /**
+     * One set of counters, with what was counted for each appointment so that it can be uncounted when it changes.
+     */
+    private static final class Counts {
+        private final Map<Integer, Counted> appointments = new HashMap<>();
+        private final Map<Integer, String> customerCountries = new HashMap<>();
+        private final Map<Integer, Integer> customerAppointmentCounts = new HashMap<>();
+        private final Map<String, Map<YearMonth, Integer>> byTypeAndMonth = new HashMap<>();
+        private final Map<Integer, Integer> byContactId = new HashMap<>();
+        private final Map<String, Integer> byCountry = new HashMap<>();
+
+        /**
+         * Counts an appointment.
+         *
+         * @return false if the appointment's customer is unknown, in which case it is not counted.
+         */
+        boolean add(int appointmentId, String type, Timestamp start, int contactId, int customerId) {
+            String country = customerCountries.get(customerId);
+            if(country == null) {
+                return false;
+            }
+            YearMonth month = YearMonth.from(TimeUtils.getLocalDateTime(start));
+            appointments.put(appointmentId, new Counted(type, month, contactId, customerId));
+            addCount(byTypeAndMonth.computeIfAbsent(type, key -> new HashMap<>()), month, 1);
+            addCount(byContactId, contactId, 1);
+            addCount(customerAppointmentCounts, customerId, 1);
+            addCount(byCountry, country, 1);
+            return true;
+        }
+
+        void remove(int appointmentId) {
+            Counted counted = appointments.remove(appointmentId);
+            if(counted == null) {
+                return;
+            }
+            Map<YearMonth, Integer> monthCounts = byTypeAndMonth.get(counted.type);
+            addCount(monthCounts, counted.month, -1);
+            if(monthCounts.isEmpty()) {
+                byTypeAndMonth.remove(counted.type);
+            }
+            addCount(byContactId, counted.contactId, -1);
+            addCount(customerAppointmentCounts, counted.customerId, -1);
+            addCount(byCountry, customerCountries.get(counted.customerId), -1);
+        }
+
+        void removeByCustomerId(int customerId) {
+            List<Integer> appointmentIds = new ArrayList<>();
+            appointments.forEach((appointmentId, counted) -> {
+                if(counted.customerId == customerId) {
+                    appointmentIds.add(appointmentId);
+                }
+            });
+            appointmentIds.forEach(this::remove);
+            customerCountries.remove(customerId);
+        }
+
+        void putCustomer(int customerId, String country) {
+            String previousCountry = customerCountries.put(customerId, country);
+            int appointmentCount = customerAppointmentCounts.getOrDefault(customerId, 0);
+            if(previousCountry != null && !previousCountry.equals(country) && appointmentCount > 0) {
+                addCount(byCountry, previousCountry, -appointmentCount);
+                addCount(byCountry, country, appointmentCount);
+            }
+        }
+
+        /**
+         * Counts the groups whose counts differ between these counters and another set.
+         */
+        int countDifferences(Counts other) {
+            int differences = countDifferences(byContactId, other.byContactId) +
+                    countDifferences(byCountry, other.byCountry);
+            Map<String, Map<YearMonth, Integer>> types = new HashMap<>(byTypeAndMonth);
+            other.byTypeAndMonth.forEach(types::putIfAbsent);
+            for(String type : types.keySet()) {
+                differences += countDifferences(byTypeAndMonth.getOrDefault(type, Map.of()),
+                        other.byTypeAndMonth.getOrDefault(type, Map.of()));
+            }
+            return differences;
+        }
+
+        private static <K> int countDifferences(Map<K, Integer> counts, Map<K, Integer> otherCounts) {
+            int differences = 0;
+            for(Map.Entry<K, Integer> entry : counts.entrySet()) {
+                if(!entry.getValue().equals(otherCounts.get(entry.getKey()))) {
+                    differences++;
+                }
+            }
+            for(K key : otherCounts.keySet()) {
+                if(!counts.containsKey(key)) {
+                    differences++;
+                }
+            }
+            return differences;
+        }
+
+        /**
+         * Adds to a count, removing it when it reaches zero so that the maps only hold groups with appointments.
+         */
+        private static <K> void addCount(Map<K, Integer> counts, K key, int change) {
+            counts.merge(key, change, (count, added) -> count + added == 0 ? null : count + added);
+        }
+    }
+
+    /**
+     * What an appointment was counted under.
+     */
+    private static final class Counted {
+        private final String type;
+        private final YearMonth month;
+        private final int contactId;
+        private final int customerId;
+
+        private Counted(String type, YearMonth month, int contactId, int customerId) {
+            this.type = type;
+            this.month = month;
+            this.contactId = contactId;
+            this.customerId = customerId;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.mc.helper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import static com.mc.helper.JDBCConnector.getConnection;
+
+/**
+ * Exports a report's appointments to a CSV or NDJSON (one JSON object per line) file.
+ * Rows are streamed straight from the ResultSet to the file: the driver reads them from the connection one at a time
+ * (a fetch size of Integer.MIN_VALUE, Connector/J's streaming mode), and each row is written to a buffered
+ * FileChannel, optionally gzipped, before the next is read.  No list of appointments is built, so memory use does not grow with the size of
+ * the report.  Exports block, so run them off the JavaFX Application Thread.
+ * @author Michael Cassidy
+ */
+public class ReportExporter {
+    private static final int streamingFetchSize = Integer.MIN_VALUE;
+    private static final int bufferSize = 64 * 1024;
+    private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    private static final Column[] columns = Column.values();
+
+    private final String query;
+    private final Object[] parameters;
+
+    /**
+     * File formats an export can be written in.
+     */
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Picks the format from a file name: names ending in .ndjson or .json (optionally followed by .gz) are
+         * NDJSON, everything else is CSV.
+         *
+         * @param path The file being exported to.
+         * @return The format for the file.
+         */
+        public static Format forPath(Path path) {
+            String name = stripGzip(path.getFileName().toString().toLowerCase(Locale.ROOT));
+            return name.endsWith(".ndjson") || name.endsWith(".json") ? NDJSON : CSV;
+        }
+    }
+
+    /**
+     * The exported columns, in file order, with their labels in the result set and how each is read.
+     */
+    private enum Column {
+        APPOINTMENT_ID("Appointment_ID", ColumnType.NUMBER),
+        TITLE("Title", ColumnType.TEXT),
+        DESCRIPTION("Description", ColumnType.TEXT),
+        LOCATION("Location", ColumnType.TEXT),
+        CONTACT_NAME("Contact_Name", ColumnType.TEXT),
+        TYPE("Type", ColumnType.TEXT),
+        START("Start", ColumnType.TIMESTAMP),
+        END("End", ColumnType.TIMESTAMP),
+        CUSTOMER_ID("Customer_ID", ColumnType.NUMBER),
+        USER_ID("User_ID", ColumnType.NUMBER),
+        CONTACT_ID("Contact_ID", ColumnType.NUMBER);
+
+        private final String label;
+        private final ColumnType type;
+
+        Column(String label, ColumnType type) {
+            this.label = label;
+            this.type = type;
+        }
+    }
+
+    private enum ColumnType { NUMBER, TEXT, TIMESTAMP }
+
+    private ReportExporter(String query, Object... parameters) {
+        this.query = query;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Creates an export of the appointments of one type in one month of the current year.
+     *
+     * @param typeString The type of appointments to export.
+     * @param monthString The localized name of the month to export.
+     * @return The export.
+     * @throws IllegalArgumentException If the month name is not recognised.
+     */
+    public static ReportExporter byTypeAndMonth(String typeString, String monthString) {
+        Month month = TimeUtils.parseMonth(monthString);
+        if(month == null) {
+            throw new IllegalArgumentException("Unknown month: " + monthString);
+        }
+        YearMonth yearMonth = Year.now().atMonth(month);
+        return new ReportExporter(JDBCQuery.appointmentsByTypeAndMonthQuery, typeString,
+                TimeUtils.getStartOfMonthUtcTimestamp(yearMonth),
+                TimeUtils.getStartOfMonthUtcTimestamp(yearMonth.plusMonths(1)));
+    }
+
+    /**
+     * Creates an export of the appointments with one contact.
+     *
+     * @param contactId The ID of the contact.
+     * @return The export.
+     */
+    public static ReportExporter byContactId(int contactId) {
+        return new ReportExporter(JDBCQuery.appointmentsByContactIdQuery, contactId);
+    }
+
+    /**
+     * Creates an export of the appointments with customers in one country.
+     *
+     * @param countryName The name of the country.
+     * @return The export.
+     */
+    public static ReportExporter byCountry(String countryName) {
+        return new ReportExporter(JDBCQuery.appointmentsByCountryQuery, countryName);
+    }
+
+    /**
+     * Writes the report to a file, choosing the format from the file name and gzipping it if the name ends in .gz.
+     *
+     * @param path The file to write.  It is replaced if it exists.
+     * @return The number of appointments written.
+     * @throws IOException If the file cannot be written.
+     * @throws SQLException If the report cannot be read.
+     */
+    public long export(Path path) throws IOException, SQLException {
+        return export(path, Format.forPath(path), path.getFileName().toString().toLowerCase(Locale.ROOT)
+                .endsWith(".gz"));
+    }
+
+    /**
+     * Writes the report to a file.  The rows are written to a temporary file next to it, which replaces the file
+     * only once the export is complete, so a failed export never leaves a truncated report behind.
+     *
+     * @param path The file to write.  It is replaced if it exists.
+     * @param format The format to write.
+     * @param gzip true to gzip the file.
+     * @return The number of appointments written.
+     * @throws IOException If the file cannot be written.
+     * @throws SQLException If the report cannot be read.
+     */
+    public long export(Path path, Format format, boolean gzip) throws IOException, SQLException {
+        long rows = 0;
+        Path partPath = path.resolveSibling(path.getFileName() + ".part");
+
+        try(Connection connection = getConnection();
+            PreparedStatement stmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(streamingFetchSize);
+            for(int i = 0; i < parameters.length; i++) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+
+            try(ResultSet rs = stmt.executeQuery();
+                Writer writer = openWriter(partPath, gzip)) {
+                int[] columnIndexes = new int[columns.length];
+                for(int i = 0; i < columnIndexes.length; i++) {
+                    columnIndexes[i] = rs.findColumn(columns[i].label);
+                }
+
+                if(format == Format.CSV) {
+                    writeCsvHeader(writer);
+                }
+                while(rs.next()) {
+                    if(format == Format.CSV) {
+                        writeCsvRow(writer, rs, columnIndexes);
+                    } else {
+                        writeJsonRow(writer, rs, columnIndexes);
+                    }
+                    rows++;
+                }
+            }
+            Files.move(partPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partPath);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer over a FileChannel, optionally gzipping what is written.
+     */
+    private static Writer openWriter(Path path, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), bufferSize);
+        if(gzip) {
+            out = new GZIPOutputStream(out, bufferSize);
+        }
+        return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    private static void writeCsvHeader(Writer writer) throws IOException {
+        for(int i = 0; i < columns.length; i++) {
+            if(i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns[i].label);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvRow(Writer writer, ResultSet rs, int[] columnIndexes)
+            throws IOException, SQLException {
+        for(int i = 0; i < columnIndexes.length; i++) {
+            if(i > 0) {
+                writer.write(',');
+            }
+            String value = readValue(rs, columns[i], columnIndexes[i]);
+            if(value == null) {
+                continue;
+            }
+            if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 &&
+                    value.indexOf('\r') < 0) {
+                writer.write(value);
+            } else {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeJsonRow(Writer writer, ResultSet rs, int[] columnIndexes)
+            throws IOException, SQLException {
+        writer.write('{');
+        for(int i = 0; i < columnIndexes.length; i++) {
+            Column column = columns[i];
+            if(i > 0) {
+                writer.write(',');
+            }
+            writer.write('"');
+            writer.write(column.label);
+            writer.write("\":");
+            String value = readValue(rs, column, columnIndexes[i]);
+            if(value == null) {
+                writer.write("null");
+            } else if(column.type == ColumnType.NUMBER) {
+                writer.write(value);
+            } else {
+                writeJsonString(writer, value);
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if(c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Reads a column as text.  Start and End are converted from UTC to the user's time zone, with the offset, to
+     * match the times shown on screen.
+     */
+    private static String readValue(ResultSet rs, Column column, int columnIndex) throws SQLException {
+        if(column.type == ColumnType.TIMESTAMP) {
+            Timestamp timestamp = rs.getTimestamp(columnIndex);
+            return timestamp == null ? null : dateTimeFormatter.format(TimeUtils.convertToLocalDateTime(timestamp));
+        }
+        return rs.getString(columnIndex);
+    }
+
+    private static String stripGzip(String name) {
+        return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    }
+}
@@ -0,0 +1,135 @@
+package com.mc.helper;
+
+import com.mc.model.Appointment;
+import com.mc.model.Customer;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Maps the rows of a ResultSet to model objects.
+ * A mapper is a list of column labels and a function that builds an object from a Row.  The labels are resolved to
+ * column indexes once per ResultSet, from its metadata, and every row is then read by index instead of by name.
+ * Columns missing from the result set read as 0 or null, so a query may select only the columns it needs.
+ * Mappers are immutable and may be shared between threads.
+ *
+ * @param <T> The type of object built from each row.
+ * @author Michael Cassidy
+ */
+public class RowMapper<T> {
+    /**
+     * Maps appointments rows, optionally joined with the contact's name.
+     */
+    public static final RowMapper<Appointment> APPOINTMENT = new RowMapper<>(row -> {
+        Appointment appointment = new Appointment(row.getInt(0), row.getString(1), row.getString(2),
+                row.getString(3), row.getString(4), row.getTimestamp(5), row.getTimestamp(6), row.getTimestamp(7),
+                row.getString(8), row.getTimestamp(9), row.getString(10), row.getInt(11), row.getInt(12),
+                row.getInt(13));
+        if(row.hasColumn(14)) {
+            appointment.setContactName(row.getString(14));
+        }
+        return appointment;
+    }, "Appointment_ID", "Title", "Description", "Location", "Type", "Start", "End", "Create_Date", "Created_By",
+            "Last_Update", "Last_Updated_By", "Customer_ID", "User_ID", "Contact_ID", "Contact_Name");
+
+    /**
+     * Maps customers rows joined with the division and country names.
+     */
+    public static final RowMapper<Customer> CUSTOMER = new RowMapper<>(row -> new Customer(row.getInt(0),
+            row.getString(1), row.getString(2), row.getString(3), row.getString(4), row.getTimestamp(5),
+            row.getString(6), row.getTimestamp(7), row.getString(8), row.getInt(9), row.getString(10),
+            row.getString(11)),
+            "Customer_ID", "Customer_Name", "Address", "Postal_Code", "Phone", "Create_Date", "Created_By",
+            "Last_Update", "Last_Updated_By", "Division_ID", "Division", "Country");
+
+    private final RowReader<T> reader;
+    private final String[] columnLabels;
+
+    /**
+     * Creates a mapper.
+     *
+     * @param reader Builds an object from a row.  Row column numbers are positions in columnLabels.
+     * @param columnLabels The labels of the columns the reader uses.
+     */
+    public RowMapper(RowReader<T> reader, String... columnLabels) {
+        this.reader = reader;
+        this.columnLabels = columnLabels.clone();
+    }
+
+    /**
+     * Reads every remaining row of a result set.
+     *
+     * @param rs The result set, positioned before its first unread row.
+     * @return An ObservableList with one object per row.
+     * @throws SQLException If reading the result set fails.
+     */
+    public ObservableList<T> mapAll(ResultSet rs) throws SQLException {
+        ObservableList<T> list = FXCollections.observableArrayList();
+        Row row = new Row(rs, resolveColumnIndexes(rs.getMetaData()));
+        while(rs.next()) {
+            list.add(reader.read(row));
+        }
+        return list;
+    }
+
+    /**
+     * Finds the index of each of the mapper's column labels in a result set.
+     *
+     * @param metaData The result set's metadata.
+     * @return The 1-based JDBC index of each label, or 0 where the result set has no such column.
+     * @throws SQLException If the metadata cannot be read.
+     */
+    private int[] resolveColumnIndexes(ResultSetMetaData metaData) throws SQLException {
+        int[] columnIndexes = new int[columnLabels.length];
+        int columnCount = metaData.getColumnCount();
+        for(int i = 0; i < columnLabels.length; i++) {
+            for(int column = 1; column <= columnCount; column++) {
+                if(columnLabels[i].equalsIgnoreCase(metaData.getColumnLabel(column))) {
+                    columnIndexes[i] = column;
+                    break;
+                }
+            }
+        }
+        return columnIndexes;
+    }
+
+    /**
+     * Builds an object from the current row of a result set.
+     *
+     * @param <T> The type of object built.
+     */
+    @FunctionalInterface
+    public interface RowReader<T> {
+        T read(Row row) throws SQLException;
+    }
+
+    /**
+     * The current row of a result set, read by the position of each column in the mapper's column labels.
+     */
+    public static final class Row {
+        private final ResultSet rs;
+        private final int[] columnIndexes;
+
+        private Row(ResultSet rs, int[] columnIndexes) {
+            this.rs = rs;
+            this.columnIndexes = columnIndexes;
+        }
+
+        public boolean hasColumn(int column) { return columnIndexes[column] != 0; }
+
+        public int getInt(int column) throws SQLException {
+            return hasColumn(column) ? rs.getInt(columnIndexes[column]) : 0;
+        }
+
+        public String getString(int column) throws SQLException {
+            return hasColumn(column) ? rs.getString(columnIndexes[column]) : null;
+        }
+
+        public Timestamp getTimestamp(int column) throws SQLException {
+            return hasColumn(column) ? rs.getTimestamp(columnIndexes[column]) : null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.mc.helper;
+
+/**
+ * One row of a report summary table: a group, such as an appointment type or contact, an optional period within it,
+ * and the aggregated value for that group and period.
+ * @author Michael Cassidy
+ */
+public class SummaryRow {
+    private final String group;
+    private final String period;
+    private final long value;
+
+    /**
+     * Creates a summary row.
+     *
+     * @param group The group the value was aggregated over.
+     * @param period The period within the group, or null if the summary is not broken down by period.
+     * @param value The aggregated value, such as a count of appointments or a number of minutes.
+     */
+    public SummaryRow(String group, String period, long value) {
+        this.group = group;
+        this.period = period;
+        this.value = value;
+    }
+
+    public String getGroup() { return group; }
+
+    public String getPeriod() { return period; }
+
+    public long getValue() { return value; }
+
+    @Override
+    public String toString() { return group + (period == null ? "" : ", " + period) + ": " + value; }
+}
@@ -0,0 +1,81 @@
+package com.mc.helper;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.util.Callback;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Abstract class containing static factories for table cell value and cell callbacks.
+ * Unlike PropertyValueFactory, the value callbacks call a getter directly instead of looking it up by reflection, and
+ * wrap its result in a constant value with no listener bookkeeping, since the rows shown are replaced rather than
+ * modified in place.  The text cells show text the row's item has already formatted instead of formatting the cell
+ * value on every update.
+ * @author Michael Cassidy
+ */
+public abstract class TableCells {
+
+    /**
+     * Creates a cell value callback that reads a column's value with a getter.
+     *
+     * @param getter Reads the value from a row's item.
+     * @param <S> The table's item type.
+     * @param <T> The column's value type.
+     * @return The callback.
+     */
+    public static <S, T> Callback<TableColumn.CellDataFeatures<S, T>, ObservableValue<T>> value(
+            Function<S, T> getter) {
+        return features -> new ConstantValue<>(getter.apply(features.getValue()));
+    }
+
+    /**
+     * Creates a cell callback whose cells show text read from the row's item rather than the cell value's toString.
+     * The column's values are still used for sorting.  The item is looked up by the cell's index, since a reused
+     * cell's row may not have been given its new item yet when the cell is updated.
+     *
+     * @param text Reads the text from a row's item.
+     * @param <S> The table's item type.
+     * @param <T> The column's value type.
+     * @return The callback.
+     */
+    public static <S, T> Callback<TableColumn<S, T>, TableCell<S, T>> text(Function<S, String> text) {
+        return column -> new TableCell<>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                List<S> items = getTableView() == null ? null : getTableView().getItems();
+                int index = getIndex();
+                S rowItem = empty || items == null || index < 0 || index >= items.size() ? null : items.get(index);
+                setText(rowItem == null || item == null ? null : text.apply(rowItem));
+            }
+        };
+    }
+
+    /**
+     * A value that never changes, so listeners are never notified and need not be kept.
+     */
+    private static final class ConstantValue<T> implements ObservableValue<T> {
+        private final T value;
+
+        private ConstantValue(T value) { this.value = value; }
+
+        @Override
+        public T getValue() { return value; }
+
+        @Override
+        public void addListener(ChangeListener<? super T> listener) { }
+
+        @Override
+        public void removeListener(ChangeListener<? super T> listener) { }
+
+        @Override
+        public void addListener(InvalidationListener listener) { }
+
+        @Override
+        public void removeListener(InvalidationListener listener) { }
+    }
+}
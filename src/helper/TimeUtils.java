@@ -2,16 +2,120 @@ package com.mc.helper;
 
 import java.sql.Timestamp;
 import java.time.*;
+import java.time.format.TextStyle;
+import java.util.Locale;
 
 /**
  * Utility class for converting and working with timestamps and time zones.
  * Provides methods to convert between UTC, EST, and the system's local time zone.
  * Also includes functionality to calculate durations and compare time differences.
+ * Conversions work on primitive epoch and wall-clock seconds, looking offsets up in a ZoneOffsetTable precomputed for
+ * the user's time zone and for EST, so converting an appointment's times creates no objects beyond the result.
  * @author Michael Cassidy
  */
 public abstract class TimeUtils {
     private static final ZoneId userTimeZone = ZoneId.systemDefault();
     private static final ZoneId estTimeZone = ZoneId.of("America/New_York");
+    private static final ZoneOffsetTable userOffsets = new ZoneOffsetTable(userTimeZone);
+    private static final ZoneOffsetTable estOffsets = new ZoneOffsetTable(estTimeZone);
+    private static final long secondsPerDay = 86_400;
+    private static final long fifteenMinutesMillis = 900_000;
+    private static final int businessStartSecond = LocalTime.of(8, 0).toSecondOfDay();
+    private static final int businessEndSecond = LocalTime.of(22, 0).toSecondOfDay();
+
+    /**
+     * The longest an appointment may last, in minutes.
+     */
+    public static final long maxAppointmentMinutes = 120;
+
+    /**
+     * Gets the offset table of a time zone, reusing the one kept for the user's time zone or EST.
+     *
+     * @param zone The time zone.
+     * @return The zone's offset table.
+     */
+    public static ZoneOffsetTable getOffsetTable(ZoneId zone) {
+        if(zone.equals(userTimeZone)) {
+            return userOffsets;
+        }
+        return zone.equals(estTimeZone) ? estOffsets : new ZoneOffsetTable(zone);
+    }
+
+    /**
+     * Gets the instant a UTC Timestamp, as read from the database, represents.  The Timestamp's date and time fields
+     * hold the UTC wall-clock time, so its getTime() is off by the user's offset from UTC.
+     *
+     * @param utcTimestamp The UTC Timestamp.
+     * @return The instant, in seconds since the epoch.  Fractions of a second are dropped.
+     */
+    public static long getEpochSecond(Timestamp utcTimestamp) {
+        long shiftedSecond = Math.floorDiv(utcTimestamp.getTime(), 1000);
+        return shiftedSecond + userOffsets.getOffsetSeconds(shiftedSecond);
+    }
+
+    /**
+     * Creates the UTC Timestamp of an instant, as written to the database.
+     *
+     * @param epochSecond The instant, in seconds since the epoch.
+     * @param nanos The fraction of a second, in nanoseconds.
+     * @return The Timestamp whose date and time fields hold the UTC wall-clock time of the instant.
+     */
+    public static Timestamp toUtcTimestamp(long epochSecond, int nanos) {
+        Timestamp timestamp = new Timestamp(userOffsets.toEpochSecond(epochSecond) * 1000);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    /**
+     * Converts an instant to the user's local wall-clock time.
+     *
+     * @param epochSecond The instant, in seconds since the epoch.
+     * @return The local time, in wall-clock seconds since 1970-01-01T00:00.
+     */
+    public static long toUserLocalSecond(long epochSecond) { return userOffsets.toLocalSecond(epochSecond); }
+
+    /**
+     * Converts a local wall-clock time in the user's time zone to an instant.
+     *
+     * @param localSecond The local time, in wall-clock seconds since 1970-01-01T00:00.
+     * @return The instant, in seconds since the epoch.
+     */
+    public static long userLocalToEpochSecond(long localSecond) { return userOffsets.toEpochSecond(localSecond); }
+
+    /**
+     * Converts an instant to the wall-clock time in EST.
+     *
+     * @param epochSecond The instant, in seconds since the epoch.
+     * @return The EST time, in wall-clock seconds since 1970-01-01T00:00.
+     */
+    public static long toEstLocalSecond(long epochSecond) { return estOffsets.toLocalSecond(epochSecond); }
+
+    /**
+     * Converts a wall-clock time in EST to an instant.
+     *
+     * @param localSecond The EST time, in wall-clock seconds since 1970-01-01T00:00.
+     * @return The instant, in seconds since the epoch.
+     */
+    public static long estLocalToEpochSecond(long localSecond) { return estOffsets.toEpochSecond(localSecond); }
+
+    /**
+     * Converts a date and time to wall-clock seconds, in no particular time zone.
+     *
+     * @param date The date.
+     * @param time The time.  Fractions of a second are dropped.
+     * @return The wall-clock seconds since 1970-01-01T00:00.
+     */
+    public static long getLocalSecond(LocalDate date, LocalTime time) {
+        return date.toEpochDay() * secondsPerDay + time.toSecondOfDay();
+    }
+
+    /**
+     * Gets the time of day of a wall-clock time.
+     *
+     * @param localSecond The wall-clock seconds since 1970-01-01T00:00.
+     * @return The seconds since midnight.
+     */
+    public static int getSecondOfDay(long localSecond) { return (int) Math.floorMod(localSecond, secondsPerDay); }
 
     /**
      * Converts a Timestamp object to a LocalTime object in the user's time zone.
@@ -20,9 +124,18 @@ public abstract class TimeUtils {
      * @return The LocalTime object representing the time in the user's time zone.
      */
     public static LocalTime getTimeFromTimestamp(Timestamp timestamp) {
-        LocalDateTime localDateTime = timestamp.toLocalDateTime();
-        ZonedDateTime zonedDateTime = localDateTime.atZone(ZoneId.of("UTC")).withZoneSameInstant(userTimeZone);
-        return zonedDateTime.toLocalTime();
+        return toLocalTime(toUserLocalSecond(getEpochSecond(timestamp)), timestamp.getNanos());
+    }
+
+    /**
+     * Converts a Timestamp object to a LocalDateTime object in the user's time zone.
+     *
+     * @param timestamp The Timestamp object to be converted.
+     * @return The LocalDateTime object representing the date and time in the user's time zone.
+     */
+    public static LocalDateTime getLocalDateTime(Timestamp timestamp) {
+        return LocalDateTime.ofEpochSecond(toUserLocalSecond(getEpochSecond(timestamp)), timestamp.getNanos(),
+                ZoneOffset.UTC);
     }
 
     /**
@@ -32,8 +145,10 @@ public abstract class TimeUtils {
      * @return The ZonedDateTime object representing the date and time in the user's time zone.
      */
     public static ZonedDateTime convertToLocalDateTime(Timestamp timestamp) {
-        LocalDateTime localDateTime = timestamp.toLocalDateTime();
-        return localDateTime.atZone(ZoneId.of("UTC")).withZoneSameInstant(userTimeZone);
+        long epochSecond = getEpochSecond(timestamp);
+        int offset = userOffsets.getOffsetSeconds(epochSecond);
+        return ZonedDateTime.ofLocal(LocalDateTime.ofEpochSecond(epochSecond + offset, timestamp.getNanos(),
+                ZoneOffset.UTC), userTimeZone, ZoneOffset.ofTotalSeconds(offset));
     }
 
     /**
@@ -44,11 +159,34 @@ public abstract class TimeUtils {
      * @return The Timestamp object representing the date and time in UTC.
      */
     public static Timestamp convertToUtcTimestamp(LocalDate date, LocalTime time) {
-        LocalDateTime localDateTime = LocalDateTime.of(date, time);
-        ZonedDateTime userDateTime = localDateTime.atZone(userTimeZone);
-        ZoneOffset offset = userDateTime.getOffset();
-        Instant instant = userDateTime.toInstant().minusSeconds(offset.getTotalSeconds());
-        return Timestamp.from(instant);
+        return toUtcTimestamp(userLocalToEpochSecond(getLocalSecond(date, time)), time.getNano());
+    }
+
+    /**
+     * Gets the UTC Timestamp of midnight on the first day of a month in the user's time zone.
+     * Used as a bound of half-open [from, to) range queries on Start.
+     *
+     * @param yearMonth The month whose start is required.
+     * @return The Timestamp object representing the start of the month in UTC.
+     */
+    public static Timestamp getStartOfMonthUtcTimestamp(YearMonth yearMonth) {
+        return convertToUtcTimestamp(yearMonth.atDay(1), LocalTime.MIDNIGHT);
+    }
+
+    /**
+     * Converts a month name in the user's locale, as displayed in the reports menu, to a Month.
+     *
+     * @param monthName The full, localized name of the month.
+     * @return The matching Month, or null if the name does not match any month.
+     */
+    public static Month parseMonth(String monthName) {
+        Locale userLocale = Locale.getDefault();
+        for (Month month : Month.values()) {
+            if (month.getDisplayName(TextStyle.FULL, userLocale).equalsIgnoreCase(monthName)) {
+                return month;
+            }
+        }
+        return null;
     }
 
     /**
@@ -59,10 +197,7 @@ public abstract class TimeUtils {
      * @return true if the difference between the two timestamps is within 15 minutes, false otherwise.
      */
     public static boolean isWithinFifteenMinutes(Timestamp appointmentTimestamp, Timestamp currentTimestamp) {
-        long diffInMillis = Math.abs(currentTimestamp.getTime() - appointmentTimestamp.getTime());
-        Duration duration = Duration.ofMillis(diffInMillis);
-        Duration fifteenMinutes = Duration.ofMinutes(15);
-        return duration.compareTo(fifteenMinutes) <= 0;
+        return Math.abs(currentTimestamp.getTime() - appointmentTimestamp.getTime()) <= fifteenMinutesMillis;
     }
 
     /**
@@ -73,19 +208,9 @@ public abstract class TimeUtils {
      * @return The LocalTime object representing the local time equivalent to the specified EST time.
      */
     public static LocalTime getEstTimeInLocalTime(int hour, int minute) {
-        // Create a LocalDateTime object with the local hour and minute
-        LocalDateTime localDateTime = LocalDateTime.of(LocalDate.now(), LocalTime.of(hour, minute));
-
-        // Convert the local LocalDateTime to a ZonedDateTime in the local time zone
-        ZoneId localZone = ZoneId.systemDefault();
-        ZonedDateTime localZonedDateTime = localDateTime.atZone(localZone);
-
-        // Convert the local ZonedDateTime to EST
-        ZoneId estZone = ZoneId.of("America/New_York");
-        ZonedDateTime estZonedDateTime = localZonedDateTime.withZoneSameInstant(estZone);
-
-        // Extract the EST LocalTime component from the ZonedDateTime and return it
-        return estZonedDateTime.toLocalTime();
+        // Take the hour and minute as a local time today, and find the EST time at that instant
+        long localSecond = getLocalToday() + hour * 3600L + minute * 60L;
+        return toLocalTime(toEstLocalSecond(userLocalToEpochSecond(localSecond)), 0);
     }
 
 
@@ -96,15 +221,9 @@ public abstract class TimeUtils {
      * @return The LocalTime object representing the time in the user's time zone.
      */
     public static LocalTime convertEstToLocalTime(LocalTime estTime) {
-        // Create a ZonedDateTime object for the specified EST time on a specific date
-        LocalDateTime localDateTime = LocalDateTime.of(LocalDate.now(), estTime);
-        ZonedDateTime estDateTime = ZonedDateTime.of(localDateTime, estTimeZone);
-
-        // Convert the EST time to your system's time zone and extract the LocalTime component
-        ZonedDateTime localDateTimeZone = estDateTime.withZoneSameInstant(ZoneId.systemDefault());
-        LocalTime localTime = localDateTimeZone.toLocalTime();
-
-        return localTime;
+        // Take the EST time as falling on today's date, and find the local time at that instant
+        long estSecond = getLocalToday() + estTime.toSecondOfDay();
+        return toLocalTime(toUserLocalSecond(estLocalToEpochSecond(estSecond)), estTime.getNano());
     }
 
     /**
@@ -114,14 +233,42 @@ public abstract class TimeUtils {
      * @return The LocalTime object representing the time in EST.
      */
     public static LocalTime convertUtcToEst(Timestamp utcTimestamp) {
-        LocalDateTime utcLocalDateTime = utcTimestamp.toLocalDateTime();
-        ZonedDateTime utcZonedDateTime = utcLocalDateTime.atZone(ZoneId.of("UTC"));
+        return toLocalTime(toEstLocalSecond(getEpochSecond(utcTimestamp)), utcTimestamp.getNanos());
+    }
 
-        // Convert the UTC ZonedDateTime to EST
-        ZoneId estZone = ZoneId.of("America/New_York");
-        ZonedDateTime estZonedDateTime = utcZonedDateTime.withZoneSameInstant(estZone);
+    /**
+     * Determines if the appointment start and end times fall within business hours.
+     * Business hours are defined as 8:00 AM to 10:00 PM EST.
+     *
+     * @param startTimestamp the appointment start time as a UTC Timestamp
+     * @param endTimestamp the appointment end time as a UTC Timestamp
+     * @return true if the appointment times fall within business hours, false otherwise
+     */
+    public static boolean isWithinBusinessHours(Timestamp startTimestamp, Timestamp endTimestamp) {
+        return isWithinBusinessHours(startTimestamp) && isWithinBusinessHours(endTimestamp);
+    }
 
-        // Extract the EST LocalTime component from the ZonedDateTime and return it
-        return estZonedDateTime.toLocalTime();
+    /**
+     * Determines if a time falls within business hours, counting the end of business hours as within them.
+     */
+    private static boolean isWithinBusinessHours(Timestamp utcTimestamp) {
+        int estSecondOfDay = getSecondOfDay(toEstLocalSecond(getEpochSecond(utcTimestamp)));
+        return estSecondOfDay >= businessStartSecond && (estSecondOfDay < businessEndSecond ||
+                (estSecondOfDay == businessEndSecond && utcTimestamp.getNanos() == 0));
+    }
+
+    /**
+     * Gets midnight today in the user's time zone, in wall-clock seconds since 1970-01-01T00:00.
+     */
+    private static long getLocalToday() {
+        long localNow = toUserLocalSecond(Math.floorDiv(System.currentTimeMillis(), 1000));
+        return localNow - getSecondOfDay(localNow);
+    }
+
+    /**
+     * Creates the LocalTime of a wall-clock time's time of day.
+     */
+    private static LocalTime toLocalTime(long localSecond, int nanos) {
+        return LocalTime.ofNanoOfDay(getSecondOfDay(localSecond) * 1_000_000_000L + nanos);
     }
 }
@@ -0,0 +1,48 @@
+package com.mc.helper;
+
+import java.sql.Timestamp;
+
+/**
+ * Thrown when a version-checked update finds that the row was changed or deleted by someone else since it was read.
+ * The row's Last_Update acts as its version: the update only applies if Last_Update still holds the value it was
+ * read with, so concurrent edits are detected without locking the row while it is being edited.
+ * @author Michael Cassidy
+ */
+public class UpdateConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final String table;
+    private final int id;
+    private final Timestamp currentLastUpdate;
+    private final String currentLastUpdatedBy;
+    private final boolean deleted;
+
+    /**
+     * Creates an exception for a conflicting update.
+     *
+     * @param table The table the row is in.
+     * @param id The ID of the row.
+     * @param currentLastUpdate The row's Last_Update now, or null if it has been deleted or has none.
+     * @param currentLastUpdatedBy The user who last updated the row, or null if it has been deleted or has none.
+     * @param deleted true if the row has been deleted.
+     */
+    public UpdateConflictException(String table, int id, Timestamp currentLastUpdate, String currentLastUpdatedBy,
+                                   boolean deleted) {
+        super(table + " row " + id + (deleted ? " was deleted" :
+                " was updated by " + currentLastUpdatedBy + " at " + currentLastUpdate) + " since it was read");
+        this.table = table;
+        this.id = id;
+        this.currentLastUpdate = currentLastUpdate;
+        this.currentLastUpdatedBy = currentLastUpdatedBy;
+        this.deleted = deleted;
+    }
+
+    public String getTable() { return table; }
+
+    public int getId() { return id; }
+
+    public Timestamp getCurrentLastUpdate() { return currentLastUpdate; }
+
+    public String getCurrentLastUpdatedBy() { return currentLastUpdatedBy; }
+
+    public boolean isDeleted() { return deleted; }
+}
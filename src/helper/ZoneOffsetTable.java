@@ -0,0 +1,139 @@
+package com.mc.helper;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A time zone's UTC offsets, precomputed as a table of its offset transitions so that converting between epoch
+ * seconds and local wall-clock seconds is a binary search over primitive arrays, with no objects created.
+ * The table covers the years tableStartYear to tableEndYear; times outside it are converted with the zone's rules.
+ * Local seconds count wall-clock seconds since 1970-01-01T00:00 in the zone, as LocalDateTime.toEpochSecond(UTC)
+ * would.  A local time skipped by a transition is moved later by the length of the gap, and a local time repeated
+ * by a transition takes the earlier offset, as ZonedDateTime does.
+ * The table is never modified once built, so it can be used from any thread.
+ * @author Michael Cassidy
+ */
+public class ZoneOffsetTable {
+    private static final int tableStartYear = 1900;
+    private static final int tableEndYear = 2100;
+    private static final long secondsPerDay = 86_400;
+    private static final long tableStart = LocalDate.of(tableStartYear, 1, 1).toEpochDay() * secondsPerDay;
+    private static final long tableEnd = LocalDate.of(tableEndYear + 1, 1, 1).toEpochDay() * secondsPerDay;
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final long[] transitions;
+    private final long[] localTransitions;
+    private final int[] offsets;
+
+    /**
+     * Builds the table of a time zone.
+     *
+     * @param zone The time zone.
+     */
+    public ZoneOffsetTable(ZoneId zone) {
+        this.zone = zone;
+        rules = zone.getRules();
+        List<ZoneOffsetTransition> found = new ArrayList<>();
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(tableStart - 1));
+        while(transition != null && transition.toEpochSecond() < tableEnd) {
+            found.add(transition);
+            transition = rules.nextTransition(transition.getInstant());
+        }
+
+        transitions = new long[found.size()];
+        localTransitions = new long[found.size()];
+        offsets = new int[found.size() + 1];
+        offsets[0] = found.isEmpty() ? rules.getOffset(Instant.ofEpochSecond(tableStart)).getTotalSeconds() :
+                found.get(0).getOffsetBefore().getTotalSeconds();
+        for(int i = 0; i < found.size(); i++) {
+//          offsets[i] is in effect before transitions[i], and offsets[i + 1] from it on
+            transitions[i] = found.get(i).toEpochSecond();
+            localTransitions[i] = transitions[i] + offsets[i];
+            offsets[i + 1] = found.get(i).getOffsetAfter().getTotalSeconds();
+        }
+    }
+
+    /**
+     * Returns the time zone.
+     *
+     * @return The time zone.
+     */
+    public ZoneId getZone() { return zone; }
+
+    /**
+     * Gets the zone's offset from UTC at an instant.
+     *
+     * @param epochSecond The instant, in seconds since the epoch.
+     * @return The offset, in seconds.
+     */
+    public int getOffsetSeconds(long epochSecond) {
+        if(epochSecond < tableStart || epochSecond >= tableEnd) {
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        return offsets[countNotAfter(transitions, epochSecond)];
+    }
+
+    /**
+     * Gets the offset from UTC that a local wall-clock time is converted to an instant with.
+     *
+     * @param localSecond The local time, in wall-clock seconds since 1970-01-01T00:00.
+     * @return The offset, in seconds: the earlier one if the local time is repeated, and the one before the gap if it
+     *         is skipped.
+     */
+    public int getLocalOffsetSeconds(long localSecond) {
+        if(localSecond < tableStart + secondsPerDay || localSecond >= tableEnd - secondsPerDay) {
+            LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+            List<ZoneOffset> validOffsets = rules.getValidOffsets(localDateTime);
+            return (validOffsets.isEmpty() ? rules.getTransition(localDateTime).getOffsetBefore() :
+                    validOffsets.get(0)).getTotalSeconds();
+        }
+        int count = countNotAfter(localTransitions, localSecond);
+        if(count == 0) {
+            return offsets[0];
+        }
+//      Past the last transition in the old offset; within a gap the local time does not exist in the new one
+        int before = offsets[count - 1];
+        int after = offsets[count];
+        return localSecond < transitions[count - 1] + after ? before : after;
+    }
+
+    /**
+     * Converts an instant to the zone's local wall-clock time.
+     *
+     * @param epochSecond The instant, in seconds since the epoch.
+     * @return The local time, in wall-clock seconds since 1970-01-01T00:00.
+     */
+    public long toLocalSecond(long epochSecond) { return epochSecond + getOffsetSeconds(epochSecond); }
+
+    /**
+     * Converts a local wall-clock time in the zone to an instant.
+     *
+     * @param localSecond The local time, in wall-clock seconds since 1970-01-01T00:00.
+     * @return The instant, in seconds since the epoch.
+     */
+    public long toEpochSecond(long localSecond) { return localSecond - getLocalOffsetSeconds(localSecond); }
+
+    /**
+     * Counts the values of a sorted array that are not greater than a key.
+     */
+    private static int countNotAfter(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(values[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
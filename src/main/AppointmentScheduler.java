@@ -4,7 +4,15 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import com.mc.helper.AppointmentSearch;
+import com.mc.helper.Authenticator;
 import com.mc.helper.JDBCConnector;
+import com.mc.helper.JDBCQuery;
+import com.mc.helper.JDBCQueryAsync;
+import com.mc.helper.LoginActivityLog;
+import com.mc.helper.ReferenceDataCache;
+import com.mc.helper.ReportCache;
+import com.mc.helper.ReportCounters;
 
 import java.io.IOException;
 
@@ -31,13 +39,24 @@ public class AppointmentScheduler extends Application {
 
     /**
      * The main method serves as the entry point for the application.
-     * It opens the JDBC connection, launches the JavaFX application, and closes the JDBC connection.
+     * It opens the JDBC connection, prunes old appointment tombstones and builds the report counters and search
+     * index in the background, launches the JavaFX application, stops the background query executor, flushes the
+     * login activity log, prints the reference data cache, login and report cache statistics and closes the JDBC
+     * connection.
      *
      * @param args Command-line arguments (not used).
      */
     public static void main(String[] args) {
         JDBCConnector.openConnection();
+        JDBCQueryAsync.run(JDBCQuery::pruneTombstones);
+        ReportCounters.warmUp();
+        AppointmentSearch.warmUp();
         launch();
+        JDBCQueryAsync.shutdown();
+        LoginActivityLog.shutdown();
+        System.out.println(ReferenceDataCache.getStatistics());
+        System.out.println(Authenticator.getStatistics());
+        System.out.println(ReportCache.getStatistics());
         JDBCConnector.closeConnection();
     }
 }
\ No newline at end of file
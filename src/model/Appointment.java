@@ -1,14 +1,18 @@
 package com.mc.model;
 
-import com.mc.helper.JDBCQuery;
+import com.mc.helper.ReferenceDataCache;
 import com.mc.helper.TimeUtils;
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Objects;
 
 /**
  * Represents an appointment with its various attributes
+ * The start and end are stored as UTC Timestamps and converted to the user's time zone once, when they are set, so
+ * that tables can read the local dates and times of many appointments without converting them on every paint.  Their
+ * display text is formatted the first time it is read and kept.
  * @author Michael Cassidy
  */
 public class Appointment {
@@ -26,6 +30,13 @@ public class Appointment {
     private int customerId;
     private int userId;
     private int contactId;
+    private String contactName;
+    private LocalDateTime localStart;
+    private LocalDateTime localEnd;
+    private String startDateText;
+    private String startTimeText;
+    private String endDateText;
+    private String endTimeText;
 
     /**
      * Constructor to create an Appointment object with all attributes.
@@ -63,6 +74,7 @@ public class Appointment {
         this.customerId = customerId;
         this.userId = userId;
         this.contactId = contactId;
+        setLocalTimes();
     }
 
     /**
@@ -99,6 +111,7 @@ public class Appointment {
         this.customerId = customerId;
         this.userId = userId;
         this.contactId = contactId;
+        setLocalTimes();
     }
 
     /**
@@ -133,19 +146,59 @@ public class Appointment {
     }
 
     public LocalTime getStartTime() {
-        return TimeUtils.convertToLocalDateTime(startTimestamp).toLocalTime();
+        return localStart.toLocalTime();
     }
 
     public LocalTime getEndTime() {
-        return TimeUtils.convertToLocalDateTime(endTimestamp).toLocalTime();
+        return localEnd.toLocalTime();
     }
 
     public LocalDate getStartDate() {
-        return TimeUtils.convertToLocalDateTime(startTimestamp).toLocalDate();
+        return localStart.toLocalDate();
     }
 
     public LocalDate getEndDate() {
-        return TimeUtils.convertToLocalDateTime(endTimestamp).toLocalDate();
+        return localEnd.toLocalDate();
+    }
+
+    public String getStartTimeText() {
+        if(startTimeText == null) {
+            startTimeText = getStartTime().toString();
+        }
+        return startTimeText;
+    }
+
+    public String getEndTimeText() {
+        if(endTimeText == null) {
+            endTimeText = getEndTime().toString();
+        }
+        return endTimeText;
+    }
+
+    public String getStartDateText() {
+        if(startDateText == null) {
+            startDateText = getStartDate().toString();
+        }
+        return startDateText;
+    }
+
+    public String getEndDateText() {
+        if(endDateText == null) {
+            endDateText = getEndDate().toString();
+        }
+        return endDateText;
+    }
+
+    /**
+     * Converts the start and end to the user's time zone and discards their display text.
+     */
+    private void setLocalTimes() {
+        localStart = startTimestamp == null ? null : TimeUtils.getLocalDateTime(startTimestamp);
+        localEnd = endTimestamp == null ? null : TimeUtils.getLocalDateTime(endTimestamp);
+        startDateText = null;
+        startTimeText = null;
+        endDateText = null;
+        endTimeText = null;
     }
 
     public int getId() {
@@ -194,6 +247,7 @@ public class Appointment {
 
     public void setStartTimestamp(Timestamp startTimestamp) {
         this.startTimestamp = startTimestamp;
+        setLocalTimes();
     }
 
     public Timestamp getEndTimestamp() {
@@ -202,6 +256,7 @@ public class Appointment {
 
     public void setEndTimestamp(Timestamp endTimestamp) {
         this.endTimestamp = endTimestamp;
+        setLocalTimes();
     }
 
     public Timestamp getCreatedTimestamp() {
@@ -258,7 +313,24 @@ public class Appointment {
 
     public void setContactId(int contactId) {
         this.contactId = contactId;
+        this.contactName = null;
     }
 
-    public String getContactName() { return JDBCQuery.getContactName(contactId); }
+    /**
+     * Retrieves the name of the appointment's contact.
+     * Appointments loaded by JDBCQuery carry the name from the query; otherwise it is resolved from
+     * ReferenceDataCache, so displaying a list of appointments never queries the database once per row.
+     *
+     * @return The contact's name.
+     */
+    public String getContactName() {
+        if(contactName == null) {
+            contactName = ReferenceDataCache.getContactName(contactId);
+        }
+        return contactName;
+    }
+
+    public void setContactName(String contactName) {
+        this.contactName = contactName;
+    }
 }
@@ -0,0 +1,336 @@
+package com.mc.model;
+
+import com.mc.helper.TimeUtils;
+import com.mc.helper.ZoneOffsetTable;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only columnar snapshot of the appointments table, for analytic scans over many appointments.
+ * Each column is a primitive array indexed by row: start and end are epoch seconds, IDs are ints, and the type and
+ * location columns are dictionary-encoded as int codes into a table of their distinct values.  A row costs about
+ * 40 bytes, against several hundred for an Appointment with its Timestamps and Strings, and a scan reads only the
+ * columns it needs from contiguous memory.
+ * Scans run over the row indexes with parallel streams; the arrays are never modified once built, so scans need no
+ * locking.  Build snapshots with a Builder or from a list of appointments.
+ * @author Michael Cassidy
+ */
+public class AppointmentSnapshot {
+    private final int size;
+    private final int[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] customerIds;
+    private final int[] userIds;
+    private final int[] contactIds;
+    private final int[] typeCodes;
+    private final String[] types;
+    private final int[] locationCodes;
+    private final String[] locations;
+
+    private AppointmentSnapshot(Builder builder) {
+        size = builder.size;
+        ids = Arrays.copyOf(builder.ids, size);
+        starts = Arrays.copyOf(builder.starts, size);
+        ends = Arrays.copyOf(builder.ends, size);
+        customerIds = Arrays.copyOf(builder.customerIds, size);
+        userIds = Arrays.copyOf(builder.userIds, size);
+        contactIds = Arrays.copyOf(builder.contactIds, size);
+        typeCodes = Arrays.copyOf(builder.typeCodes, size);
+        types = builder.types.toArray();
+        locationCodes = Arrays.copyOf(builder.locationCodes, size);
+        locations = builder.locations.toArray();
+    }
+
+    /**
+     * Builds a snapshot of a list of appointments.
+     *
+     * @param appointments The appointments.
+     * @return The snapshot, with one row per appointment in iteration order.
+     */
+    public static AppointmentSnapshot of(Collection<Appointment> appointments) {
+        Builder builder = new Builder(appointments.size());
+        for(Appointment appointment : appointments) {
+            builder.add(appointment.getId(), appointment.getType(), appointment.getLocation(),
+                    appointment.getStartTimestamp(), appointment.getEndTimestamp(), appointment.getCustomerId(),
+                    appointment.getUserId(), appointment.getContactId());
+        }
+        return builder.build();
+    }
+
+    public int size() { return size; }
+
+    public int getId(int row) { return ids[row]; }
+
+    public long getStartEpochSecond(int row) { return starts[row]; }
+
+    public long getEndEpochSecond(int row) { return ends[row]; }
+
+    public int getCustomerId(int row) { return customerIds[row]; }
+
+    public int getUserId(int row) { return userIds[row]; }
+
+    public int getContactId(int row) { return contactIds[row]; }
+
+    public String getType(int row) { return types[typeCodes[row]]; }
+
+    public String getLocation(int row) { return locations[locationCodes[row]]; }
+
+    /**
+     * Returns the code a type is stored as, for building predicates that compare codes instead of Strings.
+     *
+     * @param type The type.
+     * @return The type's code, or -1 if no appointment in the snapshot has that type.
+     */
+    public int getTypeCode(String type) { return indexOf(types, type); }
+
+    /**
+     * Returns the code a location is stored as.
+     *
+     * @param location The location.
+     * @return The location's code, or -1 if no appointment in the snapshot has that location.
+     */
+    public int getLocationCode(String location) { return indexOf(locations, location); }
+
+    /**
+     * Finds the rows matching a predicate, scanning in parallel.
+     *
+     * @param predicate Tests a row index.
+     * @return The matching row indexes, in ascending order.
+     */
+    public int[] filter(IntPredicate predicate) {
+        return IntStream.range(0, size).parallel().filter(predicate).toArray();
+    }
+
+    /**
+     * Counts the rows matching a predicate, scanning in parallel.
+     *
+     * @param predicate Tests a row index.
+     * @return The number of matching rows.
+     */
+    public long count(IntPredicate predicate) {
+        return IntStream.range(0, size).parallel().filter(predicate).count();
+    }
+
+    /**
+     * Returns a predicate matching appointments starting in a half-open time range.
+     *
+     * @param from The earliest start to match, inclusive.
+     * @param to The start to stop before.
+     * @return The predicate.
+     */
+    public IntPredicate startsBetween(Instant from, Instant to) {
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+        return row -> starts[row] >= fromSecond && starts[row] < toSecond;
+    }
+
+    /**
+     * Returns a predicate matching appointments of a type.  The type is compared by its code.
+     *
+     * @param type The type.
+     * @return The predicate.
+     */
+    public IntPredicate hasType(String type) {
+        int code = getTypeCode(type);
+        return row -> typeCodes[row] == code;
+    }
+
+    /**
+     * Returns a predicate matching appointments with a contact.
+     *
+     * @param contactId The contact's ID.
+     * @return The predicate.
+     */
+    public IntPredicate hasContact(int contactId) {
+        return row -> contactIds[row] == contactId;
+    }
+
+    /**
+     * Averages the duration of the matching appointments of each type.
+     *
+     * @param predicate Tests a row index; use {@code row -> true} for every appointment.
+     * @return The average duration in minutes of each type with matching appointments.
+     */
+    public Map<String, Double> averageMinutesByType(IntPredicate predicate) {
+        long[][] totals = IntStream.range(0, size).parallel().filter(predicate).collect(
+                () -> new long[2][types.length],
+                (sums, row) -> {
+                    sums[0][typeCodes[row]] += ends[row] - starts[row];
+                    sums[1][typeCodes[row]]++;
+                },
+                (sums, other) -> {
+                    for(int code = 0; code < types.length; code++) {
+                        sums[0][code] += other[0][code];
+                        sums[1][code] += other[1][code];
+                    }
+                });
+
+        Map<String, Double> averages = new HashMap<>();
+        for(int code = 0; code < types.length; code++) {
+            if(totals[1][code] > 0) {
+                averages.put(types[code], totals[0][code] / 60.0 / totals[1][code]);
+            }
+        }
+        return averages;
+    }
+
+    /**
+     * Finds the hour of the day in which each contact's matching appointments most often start.
+     *
+     * @param predicate Tests a row index; use {@code row -> true} for every appointment.
+     * @param zone The time zone whose hours are counted.
+     * @return The busiest hour (0-23) of each contact with matching appointments; ties go to the earlier hour.
+     */
+    public Map<Integer, Integer> busiestHourByContact(IntPredicate predicate, ZoneId zone) {
+        ZoneOffsetTable offsets = TimeUtils.getOffsetTable(zone);
+        Map<Integer, long[]> hourCounts = IntStream.range(0, size).parallel().filter(predicate).collect(
+                HashMap::new,
+                (counts, row) -> {
+                    long localSecond = offsets.toLocalSecond(starts[row]);
+                    int hour = (int) Math.floorMod(localSecond, 86_400L) / 3_600;
+                    counts.computeIfAbsent(contactIds[row], key -> new long[24])[hour]++;
+                },
+                (counts, other) -> other.forEach((contactId, hours) -> {
+                    long[] merged = counts.computeIfAbsent(contactId, key -> new long[24]);
+                    for(int hour = 0; hour < 24; hour++) {
+                        merged[hour] += hours[hour];
+                    }
+                }));
+
+        Map<Integer, Integer> busiestHours = new HashMap<>();
+        hourCounts.forEach((contactId, hours) -> {
+            int busiest = 0;
+            for(int hour = 1; hour < 24; hour++) {
+                if(hours[hour] > hours[busiest]) {
+                    busiest = hour;
+                }
+            }
+            busiestHours.put(contactId, busiest);
+        });
+        return busiestHours;
+    }
+
+    private static int indexOf(String[] dictionary, String value) {
+        for(int code = 0; code < dictionary.length; code++) {
+            if(dictionary[code].equals(value)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Accumulates rows for a snapshot, growing its columns as needed.
+     */
+    public static class Builder {
+        private int size;
+        private int[] ids;
+        private long[] starts;
+        private long[] ends;
+        private int[] customerIds;
+        private int[] userIds;
+        private int[] contactIds;
+        private int[] typeCodes;
+        private int[] locationCodes;
+        private final Dictionary types = new Dictionary();
+        private final Dictionary locations = new Dictionary();
+
+        /**
+         * Creates an empty builder.
+         *
+         * @param expectedSize The number of rows expected, used as the initial column length.
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            ids = new int[capacity];
+            starts = new long[capacity];
+            ends = new long[capacity];
+            customerIds = new int[capacity];
+            userIds = new int[capacity];
+            contactIds = new int[capacity];
+            typeCodes = new int[capacity];
+            locationCodes = new int[capacity];
+        }
+
+        /**
+         * Adds a row.  Timestamps are read as the UTC times they are stored as.
+         *
+         * @param id The appointment's ID.
+         * @param type The appointment's type.
+         * @param location The appointment's location.
+         * @param start The appointment's start.
+         * @param end The appointment's end.
+         * @param customerId The appointment's customer ID.
+         * @param userId The appointment's user ID.
+         * @param contactId The appointment's contact ID.
+         * @return This builder.
+         */
+        public Builder add(int id, String type, String location, Timestamp start, Timestamp end, int customerId,
+                           int userId, int contactId) {
+            if(size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            starts[size] = TimeUtils.getEpochSecond(start);
+            ends[size] = TimeUtils.getEpochSecond(end);
+            customerIds[size] = customerId;
+            userIds[size] = userId;
+            contactIds[size] = contactId;
+            typeCodes[size] = types.encode(type);
+            locationCodes[size] = locations.encode(location);
+            size++;
+            return this;
+        }
+
+        /**
+         * Builds the snapshot.  The builder can keep being used afterwards.
+         *
+         * @return The snapshot.
+         */
+        public AppointmentSnapshot build() { return new AppointmentSnapshot(this); }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            contactIds = Arrays.copyOf(contactIds, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            locationCodes = Arrays.copyOf(locationCodes, capacity);
+        }
+    }
+
+    /**
+     * Assigns each distinct String a code, in order of first appearance.  Null is stored as an empty String.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+
+        int encode(String value) {
+            String key = value == null ? "" : value;
+            Integer code = codes.get(key);
+            if(code == null) {
+                code = codes.size();
+                if(code == values.length) {
+                    values = Arrays.copyOf(values, code * 2);
+                }
+                values[code] = key;
+                codes.put(key, code);
+            }
+            return code;
+        }
+
+        String[] toArray() { return Arrays.copyOf(values, codes.size()); }
+    }
+}
@@ -20,6 +20,16 @@ public class CurrentUser {
         userId = JDBCQuery.getUserId(username);
     }
 
+    /**
+     * Constructs a new CurrentUser instance for a user whose ID is already known, e.g. from the login lookup.
+     * @param userId The user ID of the current user.
+     * @param username The username of the current user.
+     */
+    public CurrentUser(int userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+
     /**
      * Retrieves the user ID of the current user.
      * @return The user ID of the current user.